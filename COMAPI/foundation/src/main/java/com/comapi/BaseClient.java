@@ -49,11 +49,14 @@ import com.comapi.internal.network.sockets.SocketController;
 import com.comapi.internal.push.PushManager;
 
 import java.io.File;
+import java.io.InputStream;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import rx.Observable;
+import rx.Scheduler;
 import rx.functions.Func1;
 
 /**
@@ -99,6 +102,16 @@ public abstract class BaseClient<T> implements IClient<T> {
      */
     protected ListenerListAdapter listenerListAdapter;
 
+    /**
+     * Socket connection controller, null until the client is initialised.
+     */
+    private volatile SocketController socketController;
+
+    /**
+     * Worker delivering socket events if a scheduler was configured, released in {@link #clean(Context)}.
+     */
+    private volatile Scheduler.Worker socketEventsWorker;
+
     /**
      * Recommended constructor.
      *
@@ -179,7 +192,7 @@ public abstract class BaseClient<T> implements IClient<T> {
 
                 //logging
                 final LogConfig logConfig = config.getLogConfig() != null ? config.getLogConfig() : LogConfig.getProductionConfig();
-                logMgr.init(application.getApplicationContext(), logConfig.getConsoleLevel().getValue(), logConfig.getFileLevel().getValue(), config.getLogSizeLimit());
+                logMgr.init(application.getApplicationContext(), logConfig.getConsoleLevel().getValue(), logConfig.getFileLevel().getValue(), config.getLogSizeLimit(), logConfig.getMaxLogFiles(), logConfig.isCompressLogFiles());
                 log = new Logger(logMgr, LogConstants.TAG + "_" + BaseComapi.getVersion());
                 log.i("Comapi SDK " + BaseComapi.getVersion() + " client " + this.hashCode() + " initialising on " + (Thread.currentThread() == Looper.getMainLooper().getThread() ? "main thread." : "background thread."));
 
@@ -209,6 +222,11 @@ public abstract class BaseClient<T> implements IClient<T> {
 
                 //services
                 service = new InternalService(adapter, dataMgr, pushMgr, config.getApiSpaceId(), application.getPackageName(), log);
+                service.setTaskQueueParallelism(config.getServiceQueueParallelism());
+                service.setMessageStatusBatching(config.getMessageStatusBatchingWindow(), config.getMessageStatusBatchSize());
+                service.setTypingThrottling(config.getTypingInterval(), config.getTypingIdleTimeout());
+                service.setMessageOutbox(config.isMessageOutboxEnabled());
+                service.setChunkedUpload(config.getChunkedUploadThreshold(), config.getUploadChunkSize(), config.getUploadParallelism());
                 RestApi restApi = service.initialiseRestClient(logConfig.getNetworkLevel().getValue(), baseURIs);
                 SessionController sessionController = service.initialiseSessionController(
                         new SessionCreateManager(new AtomicBoolean()),
@@ -217,11 +235,22 @@ public abstract class BaseClient<T> implements IClient<T> {
                         config.getAuthenticator(),
                         restApi, new Handler(mainLooper),
                         config.isFcmEnabled(),
-                        listenerListAdapter);
+                        listenerListAdapter,
+                        config.getSessionRenewalFraction());
 
                 //sockets
-                SocketController socketController = service.initialiseSocketClient(sessionController, listenerListAdapter, baseURIs);
+                Executor socketEventsExecutor = config.getSocketEventsExecutor();
+                if (config.getSocketEventsScheduler() != null) {
+                    final Scheduler.Worker worker = config.getSocketEventsScheduler().createWorker();
+                    socketEventsWorker = worker;
+                    socketEventsExecutor = runnable -> worker.schedule(runnable::run);
+                }
+                SocketController socketController = service.initialiseSocketClient(sessionController, listenerListAdapter, baseURIs, socketEventsExecutor, config.getSocketEventsCoalescingWindow(), config.getSocketRetryStrategy(), config.getSocketBackgroundLinger(), config.getSocketMaxLingerExtension());
                 lifecycleListeners.add(socketController.createLifecycleListener());
+                socketController.startNetworkMonitor(application);
+                BaseClient.this.socketController = socketController;
+                lifecycleListeners.add(sessionController.createLifecycleListener());
+                lifecycleListeners.add(service.createLifecycleListener());
                 initialiseLifecycleObserver(application);
 
                 sub.onNext(state.compareAndSet(GlobalState.INITIALISING, GlobalState.INITIALISED));
@@ -284,6 +313,26 @@ public abstract class BaseClient<T> implements IClient<T> {
 
     abstract public T service();
 
+    /**
+     * Gets socket ping interval currently used for the type of the network, adapted to the longest interval that keeps the connection alive.
+     *
+     * @return Ping interval in milliseconds, zero if the client is not initialised.
+     */
+    public long getSocketKeepAliveInterval() {
+        final SocketController controller = socketController;
+        return controller != null ? controller.getKeepAliveInterval() : 0;
+    }
+
+    /**
+     * Gets number of socket connections closed because the services did not answer ping in time.
+     *
+     * @return Number of dead connections detected since the client was initialised.
+     */
+    public int getSocketDeadConnectionsDetected() {
+        final SocketController controller = socketController;
+        return controller != null ? controller.getDeadConnectionsDetected() : 0;
+    }
+
     /**
      * Gets the content of internal log files.
      */
@@ -292,6 +341,15 @@ public abstract class BaseClient<T> implements IClient<T> {
         return state.get() > GlobalState.INITIALISING ? logMgr.getLogs() : Observable.fromCallable(() -> null);
     }
 
+    /**
+     * Gets stream with the content of internal log files. The stream should be closed when no longer needed.
+     *
+     * @return Observable returning stream with internal logs.
+     */
+    public Observable<InputStream> getLogsStream() {
+        return state.get() > GlobalState.INITIALISING ? logMgr.getLogsStream() : Observable.fromCallable(() -> null);
+    }
+
     /**
      * Gets the content of internal log files merged into provided file.
      *
@@ -305,6 +363,11 @@ public abstract class BaseClient<T> implements IClient<T> {
     @Override
     public void clean(@NonNull Context context) {
         pushMgr.unregisterPushReceiver(context);
+        final Scheduler.Worker worker = socketEventsWorker;
+        if (worker != null) {
+            worker.unsubscribe();
+            socketEventsWorker = null;
+        }
     }
 
 
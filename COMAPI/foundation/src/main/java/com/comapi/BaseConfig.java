@@ -23,10 +23,17 @@ package com.comapi;
 import com.comapi.internal.CallbackAdapter;
 import com.comapi.internal.IStateListener;
 import com.comapi.internal.log.LogConfig;
+import com.comapi.internal.network.InternalService;
+import com.comapi.internal.network.sockets.RetryStrategy;
+import com.comapi.internal.network.sockets.SocketController;
 import com.comapi.internal.push.PushMessageListener;
 import com.comapi.internal.IProfileListener;
 import com.comapi.internal.push.PushTokenProvider;
 
+import java.util.concurrent.Executor;
+
+import rx.Scheduler;
+
 /**
  * Base class for Comapi configuration and setup.
  *
@@ -53,6 +60,38 @@ public abstract class BaseConfig<T extends BaseConfig<T>> {
 
     protected boolean fcmEnabled = true;
 
+    protected int serviceQueueParallelism;
+
+    protected Executor socketEventsExecutor;
+
+    protected Scheduler socketEventsScheduler;
+
+    protected long socketEventsCoalescingWindow;
+
+    protected float sessionRenewalFraction;
+
+    protected RetryStrategy socketRetryStrategy;
+
+    protected long socketBackgroundLinger = SocketController.DEFAULT_BACKGROUND_LINGER;
+
+    protected long socketMaxLingerExtension;
+
+    protected long messageStatusBatchingWindow = InternalService.DEFAULT_STATUS_BATCHING_WINDOW;
+
+    protected int messageStatusBatchSize = InternalService.DEFAULT_STATUS_BATCH_SIZE;
+
+    protected long typingInterval = InternalService.DEFAULT_TYPING_INTERVAL;
+
+    protected long typingIdleTimeout = InternalService.DEFAULT_TYPING_IDLE_TIMEOUT;
+
+    protected boolean messageOutboxEnabled;
+
+    protected long chunkedUploadThreshold = -1;
+
+    protected int uploadChunkSize = InternalService.DEFAULT_UPLOAD_CHUNK_SIZE;
+
+    protected int uploadParallelism = InternalService.DEFAULT_UPLOAD_PARALLELISM;
+
     /**
      * Gets Comapi ApiSpace identifier.
      *
@@ -134,6 +173,150 @@ public abstract class BaseConfig<T extends BaseConfig<T>> {
         return fcmEnabled;
     }
 
+    /**
+     * Gets maximum number of service calls, queued while the session was being authenticated, that are executed in parallel.
+     *
+     * @return Maximum number of queued service calls executed in parallel. Zero for the default value.
+     */
+    int getServiceQueueParallelism() {
+        return serviceQueueParallelism;
+    }
+
+    /**
+     * Gets executor on which listeners are notified about socket events.
+     *
+     * @return Executor for socket events. Null for the default dedicated background thread.
+     */
+    Executor getSocketEventsExecutor() {
+        return socketEventsExecutor;
+    }
+
+    /**
+     * Gets RxJava scheduler on which listeners are notified about socket events.
+     *
+     * @return Scheduler for socket events. Null if not set.
+     */
+    Scheduler getSocketEventsScheduler() {
+        return socketEventsScheduler;
+    }
+
+    /**
+     * Gets time window in which typing and message status socket events are collected before being passed to listeners.
+     *
+     * @return Time window in milliseconds. Zero if events are delivered immediately.
+     */
+    long getSocketEventsCoalescingWindow() {
+        return socketEventsCoalescingWindow;
+    }
+
+    /**
+     * Gets fraction of the access token lifetime after which the session will be renewed.
+     *
+     * @return Fraction of the access token lifetime. Zero for the default value.
+     */
+    float getSessionRenewalFraction() {
+        return sessionRenewalFraction;
+    }
+
+    /**
+     * Gets strategy for socket reconnection.
+     *
+     * @return Strategy for socket reconnection. Null for the default strategy.
+     */
+    RetryStrategy getSocketRetryStrategy() {
+        return socketRetryStrategy;
+    }
+
+    /**
+     * Gets time for which the socket stays connected after the app goes to background.
+     *
+     * @return Time in milliseconds.
+     */
+    long getSocketBackgroundLinger() {
+        return socketBackgroundLinger;
+    }
+
+    /**
+     * Gets maximum time by which the background linger is extended while messages are being sent or content uploaded.
+     *
+     * @return Time in milliseconds.
+     */
+    long getSocketMaxLingerExtension() {
+        return socketMaxLingerExtension;
+    }
+
+    /**
+     * Gets time for which message status updates are collected before being sent.
+     *
+     * @return Time in milliseconds.
+     */
+    long getMessageStatusBatchingWindow() {
+        return messageStatusBatchingWindow;
+    }
+
+    /**
+     * Gets maximum number of message ids sent in a single status update.
+     *
+     * @return Maximum number of message ids.
+     */
+    int getMessageStatusBatchSize() {
+        return messageStatusBatchSize;
+    }
+
+    /**
+     * Gets minimum time between 'typing' events sent for a conversation.
+     *
+     * @return Time in milliseconds.
+     */
+    long getTypingInterval() {
+        return typingInterval;
+    }
+
+    /**
+     * Gets time after the last 'typing' call when the 'typing off' event is sent.
+     *
+     * @return Time in milliseconds.
+     */
+    long getTypingIdleTimeout() {
+        return typingIdleTimeout;
+    }
+
+    /**
+     * Checks if sent messages are stored in the persistent outbox.
+     *
+     * @return True if the outbox is enabled.
+     */
+    boolean isMessageOutboxEnabled() {
+        return messageOutboxEnabled;
+    }
+
+    /**
+     * Gets minimum content size uploaded in resumable chunks.
+     *
+     * @return Size in bytes, negative if chunked uploads are disabled.
+     */
+    long getChunkedUploadThreshold() {
+        return chunkedUploadThreshold;
+    }
+
+    /**
+     * Gets chunk size for chunked uploads.
+     *
+     * @return Size in bytes.
+     */
+    int getUploadChunkSize() {
+        return uploadChunkSize;
+    }
+
+    /**
+     * Gets maximum number of chunks of a single upload sent in parallel.
+     *
+     * @return Maximum number of chunks sent in parallel.
+     */
+    int getUploadParallelism() {
+        return uploadParallelism;
+    }
+
     /**
      * Sets Comapi App Space identifier.
      *
@@ -221,6 +404,162 @@ public abstract class BaseConfig<T extends BaseConfig<T>> {
         return getThis();
     }
 
+    /**
+     * Sets maximum number of service calls, queued while the session was being authenticated, that are executed in parallel.
+     * Calls that depend on each other (e.g. messages sent to the same conversation) are always executed in order. Defaults to 5,
+     * the OkHttp limit of concurrent requests per host.
+     *
+     * @param parallelism Maximum number of queued service calls executed in parallel.
+     * @return BaseURIs instance with new value set.
+     */
+    public T serviceQueueParallelism(int parallelism) {
+        this.serviceQueueParallelism = parallelism;
+        return getThis();
+    }
+
+    /**
+     * Sets executor on which listeners are notified about socket events (new messages, status updates, typing, profile and conversation changes).
+     * By default events are delivered in order on a dedicated background thread. To receive them on the main thread pass
+     * {@code new Handler(Looper.getMainLooper())::post}. Events will be delivered in order only if the executor runs tasks sequentially.
+     *
+     * @param executor Executor for socket events.
+     * @return BaseURIs instance with new value set.
+     */
+    public T socketEventsExecutor(Executor executor) {
+        this.socketEventsExecutor = executor;
+        this.socketEventsScheduler = null;
+        return getThis();
+    }
+
+    /**
+     * Sets RxJava scheduler on which listeners are notified about socket events. All events are scheduled on a single worker of the scheduler
+     * so they will be delivered in order. The worker is created when the client is initialised and released when the client is cleaned with {@code clean(Context)}.
+     * See {@link #socketEventsExecutor(Executor)}.
+     *
+     * @param scheduler Scheduler for socket events.
+     * @return BaseURIs instance with new value set.
+     */
+    public T socketEventsScheduler(Scheduler scheduler) {
+        this.socketEventsScheduler = scheduler;
+        this.socketEventsExecutor = null;
+        return getThis();
+    }
+
+    /**
+     * Enables coalescing of high frequency socket events. Typing and message status events received within the time window are collected
+     * and then only the latest typing state of each participant is delivered and message delivered/read events are delivered in a single
+     * MessagingListener#onMessageStatusBatch call per conversation. Disabled by default, 100ms is a reasonable value for large group conversations.
+     *
+     * @param window Time window in milliseconds. Zero to deliver events immediately.
+     * @return BaseURIs instance with new value set.
+     */
+    public T socketEventsCoalescingWindow(long window) {
+        this.socketEventsCoalescingWindow = window;
+        return getThis();
+    }
+
+    /**
+     * Sets the fraction of the access token lifetime after which the SDK will renew the session, e.g. 0.8 to renew a one hour session after
+     * about 48 minutes. Actual renewal time is randomly shifted to spread renewals of many devices. Renewal is deferred while the app is in
+     * background. Values outside of (0, 1) range are ignored, 0.8 is used by default.
+     *
+     * @param fraction Fraction of the access token lifetime.
+     * @return BaseURIs instance with new value set.
+     */
+    public T sessionRenewalFraction(float fraction) {
+        this.sessionRenewalFraction = fraction;
+        return getThis();
+    }
+
+    /**
+     * Sets strategy for socket reconnection. By default the SDK uses exponential backoff with jitter between one second and one minute, see
+     * {@link RetryStrategy#exponential(long, long, int)}, and reconnects immediately when network connection becomes available.
+     *
+     * @param retryStrategy Strategy for socket reconnection.
+     * @return BaseURIs instance with new value set.
+     */
+    public T socketRetryStrategy(RetryStrategy retryStrategy) {
+        this.socketRetryStrategy = retryStrategy;
+        return getThis();
+    }
+
+    /**
+     * Sets time for which the socket stays connected after the app goes to background, so briefly switching to another app (e.g. camera or
+     * share sheet) will not close the connection. 15 seconds by default, zero to disconnect immediately.
+     *
+     * @param linger       Time in milliseconds for which the socket stays connected after the app goes to background.
+     * @param maxExtension Maximum time in milliseconds by which the linger is extended while messages are being sent or content uploaded.
+     * @return BaseURIs instance with new value set.
+     */
+    public T socketBackgroundLinger(long linger, long maxExtension) {
+        this.socketBackgroundLinger = linger;
+        this.socketMaxLingerExtension = maxExtension;
+        return getThis();
+    }
+
+    /**
+     * Sets batching of message status updates. Updates for the same conversation and status are merged and sent in a single
+     * request when the time window passes, when the maximum number of message ids is reached or when the app goes to background.
+     * One second and 100 message ids by default, zero window to send every update immediately.
+     *
+     * @param window       Time in milliseconds for which message status updates are collected before being sent.
+     * @param maxBatchSize Maximum number of message ids sent in a single status update.
+     * @return BaseURIs instance with new value set.
+     */
+    public T messageStatusBatching(long window, int maxBatchSize) {
+        this.messageStatusBatchingWindow = window;
+        this.messageStatusBatchSize = maxBatchSize;
+        return getThis();
+    }
+
+    /**
+     * Sets throttling of 'user is typing' events, so the events can be sent on every text change. For each conversation the 'typing'
+     * event is sent at most once per interval and the 'typing off' event is sent automatically after the idle timeout. 3 seconds interval
+     * and 5 seconds idle timeout by default, zero interval to send every event.
+     *
+     * @param interval    Minimum time in milliseconds between 'typing' events sent for a conversation.
+     * @param idleTimeout Time in milliseconds after the last 'typing' call when the 'typing off' event is sent. Zero to never send it automatically.
+     * @return BaseURIs instance with new value set.
+     */
+    public T typingThrottling(long interval, long idleTimeout) {
+        this.typingInterval = interval;
+        this.typingIdleTimeout = idleTimeout;
+        return getThis();
+    }
+
+    /**
+     * Enables persistent outbox for sent messages. Messages are stored on the device until the services accept or reject them, failed messages are sent
+     * again in the original order per conversation when the network becomes available or after the app restart. Observables and callbacks for sent
+     * messages are not notified until the message is accepted or rejected. Disabled by default.
+     *
+     * @param isEnabled True to enable the outbox.
+     * @return BaseURIs instance with new value set.
+     */
+    public T messageOutbox(boolean isEnabled) {
+        this.messageOutboxEnabled = isEnabled;
+        return getThis();
+    }
+
+    /**
+     * Enables uploading large content created from a file, bytes or content Uri in resumable chunks. The upload state is stored after each chunk and
+     * uploading the same content again after a network failure or app restart sends only the chunks the services have not received. The
+     * {@code /content/uploads} endpoints used for chunked uploads are a protocol defined by this SDK, not an existing Comapi service API, and must be
+     * provided by the backend before enabling this option. Disabled by default,
+     * {@link InternalService#DEFAULT_CHUNKED_UPLOAD_THRESHOLD}, {@link InternalService#DEFAULT_UPLOAD_CHUNK_SIZE} and
+     * {@link InternalService#DEFAULT_UPLOAD_PARALLELISM} are recommended values.
+     *
+     * @param threshold   Minimum content size in bytes uploaded in chunks. Negative value to disable chunked uploads.
+     * @param chunkSize   Chunk size in bytes.
+     * @param parallelism Maximum number of chunks of a single upload sent in parallel.
+     * @return BaseURIs instance with new value set.
+     */
+    public T chunkedUpload(long threshold, int chunkSize, int parallelism) {
+        this.chunkedUploadThreshold = threshold;
+        this.uploadChunkSize = chunkSize;
+        this.uploadParallelism = parallelism;
+        return getThis();
+    }
+
     /**
      * Sets observables to callbacks adapter. By Overriding CallbackAdapter#adapt(Observable, Callback) method you can change
      * e.g. the threads on which SDK subscribe to observable when callback APIs version are being called. By default they subscribe on
@@ -31,6 +31,7 @@ import com.comapi.internal.network.ComapiResult;
 import rx.Observable;
 
 import java.io.File;
+import java.io.InputStream;
 
 /**
  * Comapi Client implementation for foundation SDK. Handles initialisation and stores all internal objects.
@@ -110,6 +111,15 @@ public class ComapiClient extends BaseClient<ServiceAccessor> {
         adapter.adapt(super.copyLogs(file), callback);
     }
 
+    /**
+     * Gets stream with the content of internal log files. The stream should be closed when no longer needed.
+     *
+     * @param callback Callback with a stream of internal logs.
+     */
+    public void getLogsStream(Callback<InputStream> callback) {
+        adapter.adapt(super.getLogsStream(), callback);
+    }
+
     @Override
     public void clean(@NonNull Context context) {
         super.clean(context);
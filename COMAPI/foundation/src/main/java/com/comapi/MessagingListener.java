@@ -34,6 +34,8 @@ import com.comapi.internal.network.model.events.conversation.message.MessageDeli
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
 
+import java.util.List;
+
 /**
  * Listener for messaging events.
  *
@@ -127,4 +129,21 @@ public abstract class MessagingListener implements IMessagingListener {
      * @param event Event to dispatch.
      */
     public void onParticipantTypingOff(ParticipantTypingOffEvent event) {}
+
+    /**
+     * Dispatch batch of message status updates for a single conversation. Used when socket events coalescing is enabled.
+     * By default calls {@link #onMessageDelivered(MessageDeliveredEvent)} and {@link #onMessageRead(MessageReadEvent)} for each event in the batch.
+     *
+     * @param conversationId Conversation id.
+     * @param delivered      Message delivered events.
+     * @param read           Message read events.
+     */
+    public void onMessageStatusBatch(String conversationId, List<MessageDeliveredEvent> delivered, List<MessageReadEvent> read) {
+        for (MessageDeliveredEvent event : delivered) {
+            onMessageDelivered(event);
+        }
+        for (MessageReadEvent event : read) {
+            onMessageRead(event);
+        }
+    }
 }
@@ -30,6 +30,7 @@ import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.api.RxComapiService;
 
 import java.io.File;
+import java.io.InputStream;
 
 import rx.Observable;
 
@@ -111,6 +112,16 @@ public class RxComapiClient extends BaseClient<RxServiceAccessor> {
         return super.copyLogs(file);
     }
 
+    /**
+     * Gets stream with the content of internal log files. The stream should be closed when no longer needed.
+     *
+     * @return Observable with a stream of internal logs.
+     */
+    @Override
+    public Observable<InputStream> getLogsStream() {
+        return super.getLogsStream();
+    }
+
     @Override
     public void clean(@NonNull Context context) {
         pushMgr.unregisterPushReceiver(context);
@@ -26,6 +26,7 @@ import android.support.annotation.Nullable;
 import com.comapi.internal.network.ComapiResult;
 import com.comapi.internal.network.InternalService;
 import com.comapi.internal.network.ContentData;
+import com.comapi.internal.network.UploadProgressListener;
 import com.comapi.internal.network.model.conversation.ConversationCreate;
 import com.comapi.internal.network.model.conversation.ConversationDetails;
 import com.comapi.internal.network.model.conversation.ConversationUpdate;
@@ -41,6 +42,7 @@ import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.profile.ComapiProfile;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -212,6 +214,14 @@ public class RxServiceAccessor {
          */
         Observable<ComapiResult<List<ComapiProfile>>> queryProfiles(@NonNull final String queryString);
 
+        /**
+         * Get details of multiple profiles from the service. Ids are split into as few profile queries as the URL length allows and the queries are executed concurrently.
+         *
+         * @param profileIds Profile Ids of the users.
+         * @return Profile details mapped by profile id. Ids of profiles that were not found or failed to load are mapped to null.
+         */
+        Observable<ComapiResult<Map<String, ComapiProfile>>> getProfiles(@NonNull final Collection<String> profileIds);
+
         /**
          * Updates profile for an active session.
          *
@@ -352,6 +362,16 @@ public class RxServiceAccessor {
          */
         Observable<ComapiResult<UploadContentResponse>> uploadContent(@NonNull final String folder, @NonNull final ContentData data);
 
+        /**
+         * Upload content data notifying about the upload progress. Content created from streams, file descriptors or Uris is streamed without keeping it in memory.
+         *
+         * @param folder   Folder name to put the file in.
+         * @param data     Content data.
+         * @param listener Listener for upload progress, called on a background thread.
+         * @return Observable emitting details of uploaded content.
+         */
+        Observable<ComapiResult<UploadContentResponse>> uploadContent(@NonNull final String folder, @NonNull final ContentData data, @Nullable final UploadProgressListener listener);
+
         /**
          * Sets statuses for sets of messages.
          *
@@ -25,6 +25,7 @@ import android.support.annotation.Nullable;
 
 import com.comapi.internal.network.ComapiResult;
 import com.comapi.internal.network.ContentData;
+import com.comapi.internal.network.UploadProgressListener;
 import com.comapi.internal.network.InternalService;
 import com.comapi.internal.network.model.conversation.Conversation;
 import com.comapi.internal.network.model.conversation.ConversationCreate;
@@ -41,6 +42,7 @@ import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.profile.ComapiProfile;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -202,6 +204,14 @@ public class ServiceAccessor {
          */
         void queryProfiles(@NonNull final String queryString, @Nullable Callback<ComapiResult<List<ComapiProfile>>> callback);
 
+        /**
+         * Get details of multiple profiles from the service. Ids are split into as few profile queries as the URL length allows and the queries are executed concurrently.
+         *
+         * @param profileIds Profile Ids of the users.
+         * @param callback   Callback with profile details mapped by profile id. Ids of profiles that were not found or failed to load are mapped to null.
+         */
+        void getProfiles(@NonNull final Collection<String> profileIds, @Nullable Callback<ComapiResult<Map<String, ComapiProfile>>> callback);
+
         /**
          * Updates profile for an active session.
          *
@@ -343,6 +353,16 @@ public class ServiceAccessor {
          */
         void uploadContent(@NonNull final String folder, @NonNull final ContentData data, @Nullable Callback<ComapiResult<UploadContentResponse>> callback);
 
+        /**
+         * Upload content data notifying about the upload progress. Content created from streams, file descriptors or Uris is streamed without keeping it in memory.
+         *
+         * @param folder   Folder name to put the file in.
+         * @param data     Content data.
+         * @param listener Listener for upload progress, called on a background thread.
+         * @param callback Callback with the result.
+         */
+        void uploadContent(@NonNull final String folder, @NonNull final ContentData data, @Nullable final UploadProgressListener listener, @Nullable Callback<ComapiResult<UploadContentResponse>> callback);
+
         /**
          * Sets statuses for sets of messages.
          *
@@ -33,6 +33,8 @@ import com.comapi.internal.network.model.events.conversation.message.MessageDeli
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
 
+import java.util.List;
+
 /**
  * Listener interface for messaging events.
  *
@@ -126,4 +128,13 @@ public interface IMessagingListener {
      * @param event Event to dispatch.
      */
     void onParticipantTypingOff(ParticipantTypingOffEvent event);
+
+    /**
+     * Dispatch batch of message status updates for a single conversation. Used when socket events coalescing is enabled.
+     *
+     * @param conversationId Conversation id.
+     * @param delivered      Message delivered events.
+     * @param read           Message read events.
+     */
+    void onMessageStatusBatch(String conversationId, List<MessageDeliveredEvent> delivered, List<MessageReadEvent> read);
 }
@@ -37,6 +37,7 @@ import com.comapi.internal.network.model.events.conversation.message.MessageRead
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
 import com.comapi.internal.network.sockets.SocketEventListener;
 
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -121,6 +122,24 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
         }
     }
 
+    /**
+     * Dispatch batch of message status updates for a single conversation.
+     *
+     * @param conversationId Conversation id.
+     * @param delivered      Message delivered events.
+     * @param read           Message read events.
+     */
+    @Override
+    public void onMessageStatusBatch(String conversationId, List<MessageDeliveredEvent> delivered, List<MessageReadEvent> read) {
+        for (IMessagingListener listener : messagingListeners) {
+            try {
+                listener.onMessageStatusBatch(conversationId, delivered, read);
+            } catch (Exception e) {
+                logError(e, "message status batch for "+conversationId);
+            }
+        }
+    }
+
     @Override
     public void onSocketStarted(SocketStartEvent event) {
         for (IStateListener listener : stateListeners) {
@@ -38,4 +38,12 @@ public interface NetworkConnectivityListener {
      */
     void onNetworkUnavailable();
 
+    /**
+     * Default network changed e.g. from Wi-Fi to mobile data or its capabilities changed. Connections opened before the change may be dead.
+     *
+     * @param isValidated True if the system validated internet access on the current network.
+     * @param isMetered   True if the current network is metered.
+     */
+    void onNetworkChanged(boolean isValidated, boolean isMetered);
+
 }
\ No newline at end of file
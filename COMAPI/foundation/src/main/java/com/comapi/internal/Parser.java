@@ -21,7 +21,9 @@
 package com.comapi.internal;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
 
 /**
  * Json parser wrapper.
@@ -62,7 +64,27 @@ public class Parser {
         return gson.fromJson(obj, clazz);
     }
 
+    /**
+     * Gets json adapter for a POJO class. Adapters are cached and can be used to parse json streams directly.
+     *
+     * @param clazz POJO Class.
+     * @return Json adapter.
+     */
+    public <T> TypeAdapter<T> getAdapter(Class<T> clazz) {
+        return gson.getAdapter(clazz);
+    }
+
     public String toJson(Object obj) {
         return gson.toJson(obj);
     }
+
+    /**
+     * Serialise POJO to a tree of JsonElements.
+     *
+     * @param obj POJO to serialise.
+     * @return Json tree.
+     */
+    public JsonElement toJsonTree(Object obj) {
+        return gson.toJsonTree(obj);
+    }
 }
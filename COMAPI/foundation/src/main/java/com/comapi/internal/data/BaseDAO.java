@@ -36,6 +36,11 @@ class BaseDAO {
 
     private final SharedPreferences sharedPreferences;
 
+    /**
+     * Shared preferences keep listeners in a weak map, hence the strong reference.
+     */
+    private final SharedPreferences.OnSharedPreferenceChangeListener changeListener = (prefs, key) -> onDataChanged();
+
     /**
      * Recommended constructor.
      *
@@ -44,6 +49,13 @@ class BaseDAO {
      */
     BaseDAO(Context context, String fileName) {
         sharedPreferences = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
+        sharedPreferences.registerOnSharedPreferenceChangeListener(changeListener);
+    }
+
+    /**
+     * Called when entries in internal shared preferences file were changed or removed. Subclasses keeping in-memory copies of the data should invalidate them.
+     */
+    void onDataChanged() {
     }
 
     SharedPreferences getSharedPreferences() {
@@ -55,12 +67,13 @@ class BaseDAO {
      *
      * @param key   Key for shared preference entry.
      * @param value Value for shared preference entry.
-     * @return Returns true if the new values were successfully written
+     * @return Returns true if the new values were scheduled to be written
      */
     boolean putInt(String key, int value) {
         SharedPreferences.Editor editor = sharedPreferences.edit();
         editor.putInt(key, value);
-        return editor.commit();
+        editor.apply();
+        return true;
     }
 
     /**
@@ -68,18 +81,19 @@ class BaseDAO {
      *
      * @param key   Key for internal preference entry.
      * @param value Value for internal preference entry.
-     * @return Returns true if the new values were successfully written
+     * @return Returns true if the new values were scheduled to be written
      */
     boolean putString(String key, String value) {
         SharedPreferences.Editor editor = sharedPreferences.edit();
         editor.putString(key, value);
-        return editor.commit();
+        editor.apply();
+        return true;
     }
 
     /**
      * Clear all entries in internal shared preferences file.
      *
-     * @return Returns true if the new values were successfully written
+     * @return Returns true if the new values were scheduled to be written
      */
     boolean clearAll() {
         SharedPreferences.Editor editor = sharedPreferences.edit();
@@ -88,18 +102,22 @@ class BaseDAO {
         for (String key : all.keySet()) {
             editor.remove(key);
         }
-        return editor.commit();
+        editor.apply();
+        onDataChanged();
+        return true;
     }
 
     /**
      * Clear entry.
      *
      * @param key Key for internal preference entry.
-     * @return Returns true if the new values were successfully written
+     * @return Returns true if the new values were scheduled to be written
      */
     boolean clear(String key) {
         SharedPreferences.Editor editor = sharedPreferences.edit();
         editor.remove(key);
-        return editor.commit();
+        editor.apply();
+        onDataChanged();
+        return true;
     }
 }
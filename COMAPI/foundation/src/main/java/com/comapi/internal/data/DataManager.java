@@ -42,6 +42,12 @@ public class DataManager {
 
     private SessionDAO sessionDAO;
 
+    private MessageDAO messageDAO;
+
+    private OutboxDAO outboxDAO;
+
+    private UploadDAO uploadDAO;
+
     /**
      * Initialise Session Manager.
      *
@@ -54,6 +60,9 @@ public class DataManager {
         onetimeDeviceSetup(context);
         logInfo(log);
         sessionDAO = new SessionDAO(context, suffix);
+        messageDAO = new MessageDAO(context, suffix);
+        outboxDAO = new OutboxDAO(context, suffix);
+        uploadDAO = new UploadDAO(context, suffix);
     }
 
     /**
@@ -74,6 +83,33 @@ public class DataManager {
         return sessionDAO;
     }
 
+    /**
+     * Gets the locally stored messages data access object.
+     *
+     * @return Stored messages data.
+     */
+    public MessageDAO getMessageDAO() {
+        return messageDAO;
+    }
+
+    /**
+     * Gets the data access object for messages waiting to be sent.
+     *
+     * @return Messages waiting to be sent.
+     */
+    public OutboxDAO getOutboxDAO() {
+        return outboxDAO;
+    }
+
+    /**
+     * Gets the data access object for the state of chunked content uploads.
+     *
+     * @return State of chunked content uploads.
+     */
+    public UploadDAO getUploadDAO() {
+        return uploadDAO;
+    }
+
     /**
      * Populates basic application/device data if app is running for the first time.
      */
@@ -23,6 +23,8 @@ package com.comapi.internal.data;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Database Access Object for Device/Application related data.
  *
@@ -43,6 +45,11 @@ public class DeviceDAO extends BaseDAO {
 
     private static final String KEY_PUSH_TOKEN = "pT";
 
+    /**
+     * In-memory copy of the stored device details. Null if the copy needs to be reloaded. Must not be modified.
+     */
+    private final AtomicReference<Device> snapshot = new AtomicReference<>();
+
     /**
      * Recommended constructor.
      *
@@ -74,7 +81,24 @@ public class DeviceDAO extends BaseDAO {
      * @return Device/application related data.
      */
     public Device device() {
-        return loadDevice();
+        Device device = snapshot.get();
+        return device != null ? device : reloadDevice();
+    }
+
+    /**
+     * Loads device details from internal storage and swaps the in-memory copy.
+     *
+     * @return Loaded device details.
+     */
+    private synchronized Device reloadDevice() {
+        Device device = loadDevice();
+        snapshot.set(device);
+        return device;
+    }
+
+    @Override
+    void onDataChanged() {
+        snapshot.set(null);
     }
 
     /**
@@ -84,7 +108,9 @@ public class DeviceDAO extends BaseDAO {
      * @return True if value was set successfully.
      */
     synchronized boolean setInstanceId(String instanceId) {
-        return putString(KEY_INSTANCE_ID, instanceId);
+        boolean isUpdated = putString(KEY_INSTANCE_ID, instanceId);
+        reloadDevice();
+        return isUpdated;
     }
 
     /**
@@ -94,7 +120,9 @@ public class DeviceDAO extends BaseDAO {
      * @return True if value was set successfully.
      */
     synchronized boolean setAppVer(int appVer) {
-        return putInt(KEY_APP_VER, appVer);
+        boolean isUpdated = putInt(KEY_APP_VER, appVer);
+        reloadDevice();
+        return isUpdated;
     }
 
     /**
@@ -104,7 +132,9 @@ public class DeviceDAO extends BaseDAO {
      * @return True if value was set successfully.
      */
     synchronized boolean setDeviceId(String devId) {
-        return putString(KEY_DEVICE_ID, devId);
+        boolean isUpdated = putString(KEY_DEVICE_ID, devId);
+        reloadDevice();
+        return isUpdated;
     }
 
     /**
@@ -114,7 +144,9 @@ public class DeviceDAO extends BaseDAO {
      * @return True if value was set successfully.
      */
     public synchronized boolean setApiSpaceId(String apiSpaceId) {
-        return putString(KEY_API_SPACE_ID, apiSpaceId);
+        boolean isUpdated = putString(KEY_API_SPACE_ID, apiSpaceId);
+        reloadDevice();
+        return isUpdated;
     }
 
     /**
@@ -124,6 +156,8 @@ public class DeviceDAO extends BaseDAO {
      * @return True if value was set successfully.
      */
     public synchronized boolean setPushToken(String token) {
-        return putString(KEY_PUSH_TOKEN, token);
+        boolean isUpdated = putString(KEY_PUSH_TOKEN, token);
+        reloadDevice();
+        return isUpdated;
     }
 }
\ No newline at end of file
@@ -0,0 +1,514 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.comapi.internal.Parser;
+import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.conversation.message.MessageDeliveredEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageUpdateEvent;
+import com.comapi.internal.network.model.messaging.MessageReceived;
+import com.comapi.internal.network.model.messaging.MessageStatus;
+import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
+import com.comapi.internal.network.model.messaging.OrphanedEvent;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Data Access Object for conversation messages stored on the device. Keeps pages of {@link MessageReceived} and {@link OrphanedEvent} obtained from the services
+ * together with the range of conversation events that is known to be fully synchronised, so message queries inside that range can be served locally.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+public class MessageDAO {
+
+    private static final String fileNamePrefix = "messages.";
+
+    private static final int DB_VERSION = 1;
+
+    private static final String TABLE_MESSAGES = "messages";
+
+    private static final String TABLE_ORPHANED_EVENTS = "orphaned_events";
+
+    private static final String TABLE_SYNC_STATE = "sync_state";
+
+    private static final String TABLE_OWNER = "owner";
+
+    private static final String COLUMN_CONVERSATION_ID = "conversation_id";
+
+    private static final String COLUMN_EVENT_ID = "event_id";
+
+    private static final String COLUMN_MESSAGE_ID = "message_id";
+
+    private static final String COLUMN_JSON = "json";
+
+    private static final String COLUMN_EARLIEST_EVENT_ID = "earliest_event_id";
+
+    private static final String COLUMN_LATEST_EVENT_ID = "latest_event_id";
+
+    private static final String COLUMN_PROFILE_ID = "profile_id";
+
+    private static final String KEY_MESSAGES = "messages";
+
+    private static final String KEY_ORPHANED_EVENTS = "orphanedEvents";
+
+    private static final String KEY_LATEST_EVENT_ID = "latestEventId";
+
+    private static final String KEY_EARLIEST_EVENT_ID = "earliestEventId";
+
+    private static final String KEY_STATUS_UPDATES = "statusUpdates";
+
+    private static final String KEY_STATUS = "status";
+
+    private static final String KEY_ON = "on";
+
+    private final DatabaseHelper dbHelper;
+
+    private final Parser parser;
+
+    private final JsonParser jsonParser;
+
+    /**
+     * Profile id the stored messages belong to, cached so the owner table is queried only when the profile changes.
+     */
+    private volatile String owner;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context Application context.
+     * @param suffix  Database file name suffix.
+     */
+    MessageDAO(final Context context, final String suffix) {
+        dbHelper = new DatabaseHelper(context, fileNamePrefix + suffix);
+        parser = new Parser();
+        jsonParser = new JsonParser();
+    }
+
+    /**
+     * Makes sure stored messages belong to the given user profile. If the store was populated for a different profile its content is deleted.
+     *
+     * @param profileId Profile id of the active session.
+     */
+    public void setOwner(@NonNull final String profileId) {
+        if (!profileId.equals(owner)) {
+            updateOwner(profileId);
+        }
+    }
+
+    private synchronized void updateOwner(@NonNull final String profileId) {
+
+        if (profileId.equals(owner)) {
+            return;
+        }
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        String stored = null;
+        Cursor cursor = db.query(TABLE_OWNER, new String[]{COLUMN_PROFILE_ID}, null, null, null, null, null);
+        try {
+            if (cursor.moveToFirst()) {
+                stored = cursor.getString(0);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (!profileId.equals(stored)) {
+            db.beginTransaction();
+            try {
+                deleteAll(db);
+                db.delete(TABLE_OWNER, null, null);
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_PROFILE_ID, profileId);
+                db.insert(TABLE_OWNER, null, values);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        owner = profileId;
+    }
+
+    /**
+     * Gets the id of the latest conversation event synchronised with the services.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @return Latest synchronised event id or null if no messages are stored for this conversation.
+     */
+    public synchronized Long getLatestEventId(@NonNull final String conversationId) {
+        long[] range = loadRange(dbHelper.getReadableDatabase(), conversationId);
+        return range != null ? range[1] : null;
+    }
+
+    /**
+     * Builds a page of messages from the local store. The page has the same shape as the one returned by the services for the same query.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @param from           Event id to start from when aggregating messages, null for the latest synchronised event.
+     * @param limit          Maximum number of messages in a page.
+     * @return Page of messages or null if the requested page is not fully available locally.
+     */
+    public synchronized MessagesQueryResponse query(@NonNull final String conversationId, @Nullable final Long from, final int limit) {
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        long[] range = loadRange(db, conversationId);
+        if (range == null || limit <= 0) {
+            return null;
+        }
+
+        final long upper = from != null ? from : range[1];
+        if (upper < range[0] || upper > range[1]) {
+            return null;
+        }
+
+        JsonArray messages = new JsonArray();
+        Set<String> messageIds = new HashSet<>();
+        long earliest = range[0];
+
+        Cursor cursor = db.query(TABLE_MESSAGES,
+                new String[]{COLUMN_EVENT_ID, COLUMN_MESSAGE_ID, COLUMN_JSON},
+                COLUMN_CONVERSATION_ID + "=? AND " + COLUMN_EVENT_ID + "<=? AND " + COLUMN_EVENT_ID + ">=?",
+                new String[]{conversationId, String.valueOf(upper), String.valueOf(range[0])},
+                null, null, COLUMN_EVENT_ID + " DESC", String.valueOf(limit));
+        try {
+            while (cursor.moveToNext()) {
+                earliest = cursor.getLong(0);
+                messageIds.add(cursor.getString(1));
+                messages.add(jsonParser.parse(cursor.getString(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (messages.size() < limit) {
+            if (range[0] > 0) {
+                // Page reaches beyond the synchronised range, only the services know what is there.
+                return null;
+            }
+            earliest = range[0];
+        }
+
+        JsonArray orphanedEvents = new JsonArray();
+        cursor = db.query(TABLE_ORPHANED_EVENTS,
+                new String[]{COLUMN_MESSAGE_ID, COLUMN_JSON},
+                COLUMN_CONVERSATION_ID + "=? AND " + COLUMN_EVENT_ID + "<=? AND " + COLUMN_EVENT_ID + ">=?",
+                new String[]{conversationId, String.valueOf(upper), String.valueOf(earliest)},
+                null, null, COLUMN_EVENT_ID + " DESC");
+        try {
+            while (cursor.moveToNext()) {
+                if (!messageIds.contains(cursor.getString(0))) {
+                    orphanedEvents.add(jsonParser.parse(cursor.getString(1)));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        JsonObject page = new JsonObject();
+        page.addProperty(KEY_LATEST_EVENT_ID, upper);
+        page.addProperty(KEY_EARLIEST_EVENT_ID, earliest);
+        page.add(KEY_MESSAGES, messages);
+        page.add(KEY_ORPHANED_EVENTS, orphanedEvents);
+
+        return parser.parse(page, MessagesQueryResponse.class);
+    }
+
+    /**
+     * Saves a page of messages obtained from the services. Extends the synchronised range if the page overlaps or is adjacent to it, otherwise the stored
+     * conversation is replaced with the new page.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @param page           Page of messages obtained from the services.
+     */
+    public synchronized void save(@NonNull final String conversationId, @NonNull final MessagesQueryResponse page) {
+
+        final long pageEarliest = page.getEarliestEventId();
+        final long pageLatest = page.getLatestEventId();
+        if (pageLatest < pageEarliest) {
+            return;
+        }
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long[] range = loadRange(db, conversationId);
+            if (range != null && (pageEarliest > range[1] + 1 || pageLatest < range[0] - 1)) {
+                deleteConversation(db, conversationId);
+                range = null;
+            }
+
+            if (page.getMessages() != null) {
+                for (MessageReceived message : page.getMessages()) {
+                    if (message != null && message.getSentEventId() != null && !TextUtils.isEmpty(message.getMessageId())) {
+                        putMessage(db, conversationId, message.getSentEventId(), message.getMessageId(), parser.toJsonTree(message).getAsJsonObject());
+                    }
+                }
+            }
+
+            if (page.getOrphanedEvents() != null) {
+                for (OrphanedEvent event : page.getOrphanedEvents()) {
+                    if (event != null && !TextUtils.isEmpty(event.getMessageId())) {
+                        putOrphanedEvent(db, conversationId, event.getConversationEventId(), event.getMessageId(), parser.toJson(event));
+                        applyStatus(db, conversationId, event.getMessageId(), event.getProfileId(), event.isEventTypeRead() ? MessageStatus.read : MessageStatus.delivered, event.getTimestamp());
+                    }
+                }
+            }
+
+            putRange(db, conversationId, range != null ? Math.min(range[0], pageEarliest) : pageEarliest, range != null ? Math.max(range[1], pageLatest) : pageLatest);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Applies conversation events newer than the latest synchronised event to the store and moves the synchronised range forward.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @param events         Message sent, delivered and read events in the order they were published.
+     * @param lastEventId    Id of the last event obtained from the services (including event types not stored locally).
+     * @return New latest synchronised event id or null if there was no synchronised range to extend.
+     */
+    public synchronized Long applyEvents(@NonNull final String conversationId, @NonNull final Collection<Event> events, final long lastEventId) {
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long[] range = loadRange(db, conversationId);
+            if (range == null) {
+                return null;
+            }
+
+            for (Event event : events) {
+                if (event instanceof MessageSentEvent) {
+                    MessageSentEvent sent = (MessageSentEvent) event;
+                    if (!TextUtils.isEmpty(sent.getMessageId())) {
+                        putMessage(db, conversationId, sent.getConversationEventId(), sent.getMessageId(), createMessage(sent));
+                    }
+                } else if (event instanceof MessageUpdateEvent) {
+                    MessageUpdateEvent update = (MessageUpdateEvent) event;
+                    if (!TextUtils.isEmpty(update.getMessageId())) {
+                        MessageStatus status = event instanceof MessageReadEvent ? MessageStatus.read : MessageStatus.delivered;
+                        putOrphanedEvent(db, conversationId, update.getConversationEventId(), update.getMessageId(), createOrphanedEvent(update, status).toString());
+                        applyStatus(db, conversationId, update.getMessageId(), update.getProfileId(), status, update.getTimestamp());
+                    }
+                }
+            }
+
+            long latest = Math.max(range[1], lastEventId);
+            putRange(db, conversationId, range[0], latest);
+            db.setTransactionSuccessful();
+            return latest;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes all stored messages.
+     */
+    public synchronized void clear() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            deleteAll(db);
+            db.delete(TABLE_OWNER, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        owner = null;
+    }
+
+    private long[] loadRange(SQLiteDatabase db, String conversationId) {
+        Cursor cursor = db.query(TABLE_SYNC_STATE, new String[]{COLUMN_EARLIEST_EVENT_ID, COLUMN_LATEST_EVENT_ID}, COLUMN_CONVERSATION_ID + "=?", new String[]{conversationId}, null, null, null);
+        try {
+            if (cursor.moveToFirst()) {
+                return new long[]{cursor.getLong(0), cursor.getLong(1)};
+            }
+        } finally {
+            cursor.close();
+        }
+        return null;
+    }
+
+    private void putRange(SQLiteDatabase db, String conversationId, long earliest, long latest) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_CONVERSATION_ID, conversationId);
+        values.put(COLUMN_EARLIEST_EVENT_ID, earliest);
+        values.put(COLUMN_LATEST_EVENT_ID, latest);
+        db.insertWithOnConflict(TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private void putMessage(SQLiteDatabase db, String conversationId, long eventId, String messageId, JsonObject message) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_CONVERSATION_ID, conversationId);
+        values.put(COLUMN_EVENT_ID, eventId);
+        values.put(COLUMN_MESSAGE_ID, messageId);
+        values.put(COLUMN_JSON, message.toString());
+        db.insertWithOnConflict(TABLE_MESSAGES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private void putOrphanedEvent(SQLiteDatabase db, String conversationId, long eventId, String messageId, String json) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_CONVERSATION_ID, conversationId);
+        values.put(COLUMN_EVENT_ID, eventId);
+        values.put(COLUMN_MESSAGE_ID, messageId);
+        values.put(COLUMN_JSON, json);
+        db.insertWithOnConflict(TABLE_ORPHANED_EVENTS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Updates status of a stored message for a given profile. Status 'read' is never replaced with 'delivered'.
+     */
+    private void applyStatus(SQLiteDatabase db, String conversationId, String messageId, String profileId, MessageStatus status, String timestamp) {
+
+        if (TextUtils.isEmpty(profileId)) {
+            return;
+        }
+
+        Cursor cursor = db.query(TABLE_MESSAGES, new String[]{COLUMN_EVENT_ID, COLUMN_JSON}, COLUMN_CONVERSATION_ID + "=? AND " + COLUMN_MESSAGE_ID + "=?", new String[]{conversationId, messageId}, null, null, null);
+        try {
+            if (cursor.moveToFirst()) {
+                long eventId = cursor.getLong(0);
+                JsonObject message = jsonParser.parse(cursor.getString(1)).getAsJsonObject();
+                JsonObject statusUpdates = message.has(KEY_STATUS_UPDATES) && message.get(KEY_STATUS_UPDATES).isJsonObject() ? message.getAsJsonObject(KEY_STATUS_UPDATES) : new JsonObject();
+                JsonElement current = statusUpdates.get(profileId);
+                if (current != null && current.isJsonObject() && MessageStatus.read.name().equals(getString(current.getAsJsonObject(), KEY_STATUS)) && status != MessageStatus.read) {
+                    return;
+                }
+                JsonObject newStatus = new JsonObject();
+                newStatus.addProperty(KEY_STATUS, status.name());
+                newStatus.addProperty(KEY_ON, timestamp);
+                statusUpdates.add(profileId, newStatus);
+                message.add(KEY_STATUS_UPDATES, statusUpdates);
+                putMessage(db, conversationId, eventId, messageId, message);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private JsonObject createMessage(MessageSentEvent event) {
+        JsonObject message = new JsonObject();
+        message.addProperty("id", event.getMessageId());
+        message.addProperty("sentEventId", event.getConversationEventId());
+        message.add("metadata", parser.toJsonTree(event.getMetadata()));
+        message.add("context", parser.toJsonTree(event.getContext()));
+        message.add("parts", parser.toJsonTree(event.getParts()));
+        message.add(KEY_STATUS_UPDATES, new JsonObject());
+        return message;
+    }
+
+    private JsonObject createOrphanedEvent(MessageUpdateEvent event, MessageStatus status) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("messageId", event.getMessageId());
+        payload.addProperty("conversationId", event.getConversationId());
+        payload.addProperty("profileId", event.getProfileId());
+        payload.addProperty("timestamp", event.getTimestamp());
+        JsonObject data = new JsonObject();
+        data.addProperty("name", status.name());
+        data.addProperty("eventId", event.getEventId());
+        data.addProperty("profileId", event.getProfileId());
+        data.add("payload", payload);
+        JsonObject orphanedEvent = new JsonObject();
+        orphanedEvent.addProperty("id", event.getConversationEventId());
+        orphanedEvent.add("data", data);
+        return orphanedEvent;
+    }
+
+    private String getString(JsonObject obj, String key) {
+        JsonElement element = obj.get(key);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    private void deleteConversation(SQLiteDatabase db, String conversationId) {
+        String[] args = new String[]{conversationId};
+        db.delete(TABLE_MESSAGES, COLUMN_CONVERSATION_ID + "=?", args);
+        db.delete(TABLE_ORPHANED_EVENTS, COLUMN_CONVERSATION_ID + "=?", args);
+        db.delete(TABLE_SYNC_STATE, COLUMN_CONVERSATION_ID + "=?", args);
+    }
+
+    private void deleteAll(SQLiteDatabase db) {
+        db.delete(TABLE_MESSAGES, null, null);
+        db.delete(TABLE_ORPHANED_EVENTS, null, null);
+        db.delete(TABLE_SYNC_STATE, null, null);
+    }
+
+    /**
+     * Creates and upgrades message store database. Stored data is a cache of the services state so it is recreated on schema changes.
+     */
+    private static class DatabaseHelper extends SQLiteOpenHelper {
+
+        DatabaseHelper(Context context, String name) {
+            super(context, name, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_MESSAGES + " (" +
+                    COLUMN_CONVERSATION_ID + " TEXT NOT NULL, " +
+                    COLUMN_EVENT_ID + " INTEGER NOT NULL, " +
+                    COLUMN_MESSAGE_ID + " TEXT NOT NULL, " +
+                    COLUMN_JSON + " TEXT NOT NULL, " +
+                    "PRIMARY KEY (" + COLUMN_CONVERSATION_ID + ", " + COLUMN_EVENT_ID + "))");
+            db.execSQL("CREATE INDEX idx_messages_message_id ON " + TABLE_MESSAGES + " (" + COLUMN_CONVERSATION_ID + ", " + COLUMN_MESSAGE_ID + ")");
+            db.execSQL("CREATE TABLE " + TABLE_ORPHANED_EVENTS + " (" +
+                    COLUMN_CONVERSATION_ID + " TEXT NOT NULL, " +
+                    COLUMN_EVENT_ID + " INTEGER NOT NULL, " +
+                    COLUMN_MESSAGE_ID + " TEXT NOT NULL, " +
+                    COLUMN_JSON + " TEXT NOT NULL, " +
+                    "PRIMARY KEY (" + COLUMN_CONVERSATION_ID + ", " + COLUMN_EVENT_ID + "))");
+            db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " (" +
+                    COLUMN_CONVERSATION_ID + " TEXT PRIMARY KEY, " +
+                    COLUMN_EARLIEST_EVENT_ID + " INTEGER NOT NULL, " +
+                    COLUMN_LATEST_EVENT_ID + " INTEGER NOT NULL)");
+            db.execSQL("CREATE TABLE " + TABLE_OWNER + " (" + COLUMN_PROFILE_ID + " TEXT)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_ORPHANED_EVENTS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_OWNER);
+            onCreate(db);
+        }
+    }
+}
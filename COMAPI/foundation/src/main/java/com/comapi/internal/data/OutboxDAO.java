@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.Parser;
+import com.comapi.internal.network.model.messaging.MessageToSend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for messages waiting to be sent. Messages are kept in the order they were added, so they can be sent in the same order per conversation
+ * after network failures or application restarts.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+public class OutboxDAO {
+
+    private static final String fileNamePrefix = "outbox.";
+
+    private static final int DB_VERSION = 1;
+
+    private static final String TABLE_OUTBOX = "outbox";
+
+    private static final String COLUMN_ID = "id";
+
+    private static final String COLUMN_CLIENT_ID = "client_id";
+
+    private static final String COLUMN_CONVERSATION_ID = "conversation_id";
+
+    private static final String COLUMN_JSON = "json";
+
+    private final DatabaseHelper dbHelper;
+
+    private final Parser parser;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context Application context.
+     * @param suffix  Database file name suffix.
+     */
+    OutboxDAO(final Context context, final String suffix) {
+        dbHelper = new DatabaseHelper(context, fileNamePrefix + suffix);
+        parser = new Parser();
+    }
+
+    /**
+     * Adds message at the end of the outbox.
+     *
+     * @param clientId       Unique message identifier assigned by the SDK.
+     * @param conversationId Conversation unique identifier.
+     * @param message        Message to send.
+     */
+    public synchronized void add(@NonNull final String clientId, @NonNull final String conversationId, @NonNull final MessageToSend message) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_CLIENT_ID, clientId);
+        values.put(COLUMN_CONVERSATION_ID, conversationId);
+        values.put(COLUMN_JSON, parser.toJson(message));
+        dbHelper.getWritableDatabase().insertWithOnConflict(TABLE_OUTBOX, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    /**
+     * Gets the oldest message waiting to be sent to a conversation.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @return Oldest message in the outbox for the conversation or null if there are none.
+     */
+    public synchronized Entry peek(@NonNull final String conversationId) {
+        Cursor cursor = dbHelper.getReadableDatabase().query(TABLE_OUTBOX, new String[]{COLUMN_CLIENT_ID, COLUMN_JSON}, COLUMN_CONVERSATION_ID + "=?", new String[]{conversationId}, null, null, COLUMN_ID + " ASC", "1");
+        try {
+            if (cursor.moveToFirst()) {
+                return new Entry(cursor.getString(0), conversationId, parser.parse(cursor.getString(1), MessageToSend.class));
+            }
+        } finally {
+            cursor.close();
+        }
+        return null;
+    }
+
+    /**
+     * Gets ids of the conversations with messages waiting to be sent.
+     *
+     * @return Conversation unique identifiers.
+     */
+    public synchronized List<String> getConversationIds() {
+        List<String> ids = new ArrayList<>();
+        Cursor cursor = dbHelper.getReadableDatabase().query(true, TABLE_OUTBOX, new String[]{COLUMN_CONVERSATION_ID}, null, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+
+    /**
+     * Removes message from the outbox.
+     *
+     * @param clientId Unique message identifier assigned by the SDK.
+     * @return True if the message was in the outbox.
+     */
+    public synchronized boolean remove(@NonNull final String clientId) {
+        return dbHelper.getWritableDatabase().delete(TABLE_OUTBOX, COLUMN_CLIENT_ID + "=?", new String[]{clientId}) > 0;
+    }
+
+    /**
+     * Deletes all messages waiting to be sent.
+     */
+    public synchronized void clear() {
+        dbHelper.getWritableDatabase().delete(TABLE_OUTBOX, null, null);
+    }
+
+    /**
+     * Message waiting to be sent.
+     */
+    public static class Entry {
+
+        private final String clientId;
+
+        private final String conversationId;
+
+        private final MessageToSend message;
+
+        Entry(String clientId, String conversationId, MessageToSend message) {
+            this.clientId = clientId;
+            this.conversationId = conversationId;
+            this.message = message;
+        }
+
+        /**
+         * @return Unique message identifier assigned by the SDK.
+         */
+        public String getClientId() {
+            return clientId;
+        }
+
+        /**
+         * @return Conversation unique identifier.
+         */
+        public String getConversationId() {
+            return conversationId;
+        }
+
+        /**
+         * @return Message to send.
+         */
+        public MessageToSend getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Creates and upgrades outbox database.
+     */
+    private static class DatabaseHelper extends SQLiteOpenHelper {
+
+        DatabaseHelper(Context context, String name) {
+            super(context, name, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " (" +
+                    COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    COLUMN_CLIENT_ID + " TEXT NOT NULL UNIQUE, " +
+                    COLUMN_CONVERSATION_ID + " TEXT NOT NULL, " +
+                    COLUMN_JSON + " TEXT NOT NULL)");
+            db.execSQL("CREATE INDEX idx_outbox_conversation_id ON " + TABLE_OUTBOX + " (" + COLUMN_CONVERSATION_ID + ", " + COLUMN_ID + ")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_OUTBOX);
+            onCreate(db);
+        }
+    }
+}
@@ -24,6 +24,8 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.text.TextUtils;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Data Access Object for {@link SessionData}.
  *
@@ -44,6 +46,16 @@ public class SessionDAO extends BaseDAO {
 
     private static final Object sharedLock = new Object();
 
+    /**
+     * Marks in-memory session snapshot as not loaded from internal storage.
+     */
+    private static final SessionData NOT_LOADED = new SessionData();
+
+    /**
+     * In-memory copy of the stored session. Null if there is no session, {@link #NOT_LOADED} if the copy needs to be reloaded.
+     */
+    private final AtomicReference<SessionData> snapshot = new AtomicReference<>(NOT_LOADED);
+
     /**
      * Recommended constructor.
      *
@@ -61,29 +73,59 @@ public class SessionDAO extends BaseDAO {
     private SessionData loadSession() {
 
         synchronized (sharedLock) {
-            SharedPreferences sharedPreferences = getSharedPreferences();
-            String id = sharedPreferences.getString(KEY_PROFILE_ID, null);
-            if (!TextUtils.isEmpty(id)) {
-                sharedLock.notifyAll();
-                return new SessionData()
-                        .setProfileId(id)
-                        .setSessionId(sharedPreferences.getString(KEY_SESSION_ID, null))
-                        .setAccessToken(sharedPreferences.getString(KEY_ACCESS_TOKEN, null))
-                        .setExpiresOn(sharedPreferences.getLong(KEY_EXPIRES_ON, 0));
-            }
+            SessionData session = readSession();
+            snapshot.set(session);
             sharedLock.notifyAll();
+            return session;
         }
+    }
 
+    /**
+     * Reads session details from internal storage.
+     *
+     * @return Read-only session details or null if there is no session.
+     */
+    private SessionData readSession() {
+        SharedPreferences sharedPreferences = getSharedPreferences();
+        String id = sharedPreferences.getString(KEY_PROFILE_ID, null);
+        if (!TextUtils.isEmpty(id)) {
+            return new ReadOnlySessionData(new SessionData()
+                    .setProfileId(id)
+                    .setSessionId(sharedPreferences.getString(KEY_SESSION_ID, null))
+                    .setAccessToken(sharedPreferences.getString(KEY_ACCESS_TOKEN, null))
+                    .setExpiresOn(sharedPreferences.getLong(KEY_EXPIRES_ON, 0)));
+        }
         return null;
     }
 
     /**
-     * Gets currently active session.
+     * Gets currently active session. Returns in-memory copy of the stored session, internal storage is read only on the first call and after the
+     * storage was changed by other means than this DAO.
      *
-     * @return Currently active session.
+     * @return Currently active session. Read-only, setters throw {@link UnsupportedOperationException}.
      */
     public SessionData session() {
-        return loadSession();
+        SessionData session = snapshot.get();
+        return session != NOT_LOADED ? session : loadSession();
+    }
+
+    /**
+     * Invalidates in-memory copy if the stored session differs from it. Notifications for writes made by this DAO are ignored as the copy is already swapped.
+     */
+    @Override
+    void onDataChanged() {
+        SessionData current = snapshot.get();
+        if (current != NOT_LOADED && !isSame(current, readSession())) {
+            snapshot.compareAndSet(current, NOT_LOADED);
+        }
+    }
+
+    private boolean isSame(SessionData a, SessionData b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return TextUtils.equals(a.getProfileId(), b.getProfileId()) && TextUtils.equals(a.getSessionId(), b.getSessionId())
+                && TextUtils.equals(a.getAccessToken(), b.getAccessToken()) && a.getExpiresOn() == b.getExpiresOn();
     }
 
     /**
@@ -94,8 +136,9 @@ public class SessionDAO extends BaseDAO {
     public String clearSession() {
 
         synchronized (sharedLock) {
-            SessionData session = loadSession();
+            SessionData session = session();
             String id = session != null ? session.getSessionId() : null;
+            snapshot.set(null);
             clearAll();
             sharedLock.notifyAll();
             return id;
@@ -110,11 +153,12 @@ public class SessionDAO extends BaseDAO {
     public boolean startSession() {
 
         synchronized (sharedLock) {
-            SessionData session = loadSession();
+            SessionData session = session();
             if (isSessionActive(session)) {
                 sharedLock.notifyAll();
                 return false;
             } else {
+                snapshot.set(null);
                 clearAll();
             }
             sharedLock.notifyAll();
@@ -136,7 +180,7 @@ public class SessionDAO extends BaseDAO {
     }
 
     /**
-     * Updates session details obtained frm the services.
+     * Updates session details obtained frm the services. In-memory copy is swapped immediately, internal storage is updated asynchronously.
      *
      * @return True if session was updated. If false the update is for a different user or session is not started.
      */
@@ -144,18 +188,49 @@ public class SessionDAO extends BaseDAO {
 
         synchronized (sharedLock) {
             if (session != null) {
+                snapshot.set(TextUtils.isEmpty(session.getProfileId()) ? null : new ReadOnlySessionData(session));
                 SharedPreferences.Editor editor = getSharedPreferences().edit();
                 editor.putString(KEY_PROFILE_ID, session.getProfileId());
                 editor.putString(KEY_SESSION_ID, session.getSessionId());
                 editor.putString(KEY_ACCESS_TOKEN, session.getAccessToken());
                 editor.putLong(KEY_EXPIRES_ON, session.getExpiresOn());
-                boolean isUpdated = editor.commit();
+                editor.apply();
                 sharedLock.notifyAll();
-                return isUpdated;
+                return true;
             }
             sharedLock.notifyAll();
         }
 
         return false;
     }
+
+    /**
+     * Immutable copy of session details shared by all {@link #session()} callers.
+     */
+    private static final class ReadOnlySessionData extends SessionData {
+
+        ReadOnlySessionData(SessionData session) {
+            super(session);
+        }
+
+        @Override
+        public SessionData setProfileId(String profileId) {
+            throw new UnsupportedOperationException("Session snapshot is read-only.");
+        }
+
+        @Override
+        public SessionData setSessionId(String sessionId) {
+            throw new UnsupportedOperationException("Session snapshot is read-only.");
+        }
+
+        @Override
+        public SessionData setAccessToken(String accessToken) {
+            throw new UnsupportedOperationException("Session snapshot is read-only.");
+        }
+
+        @Override
+        public SessionData setExpiresOn(long expiresOn) {
+            throw new UnsupportedOperationException("Session snapshot is read-only.");
+        }
+    }
 }
@@ -36,6 +36,24 @@ public class SessionData {
 
     private long expiresOn;
 
+    /**
+     * Creates empty session data.
+     */
+    public SessionData() {
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param session Session data to copy.
+     */
+    SessionData(SessionData session) {
+        profileId = session.profileId;
+        sessionId = session.sessionId;
+        accessToken = session.accessToken;
+        expiresOn = session.expiresOn;
+    }
+
     /**
      * Gets user unique identifier.
      *
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.data;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.Parser;
+
+/**
+ * Data Access Object for {@link UploadState} of chunked content uploads.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+public class UploadDAO extends BaseDAO {
+
+    private static final String fileNamePrefix = "uploads.";
+
+    private final Parser parser;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context Application context.
+     * @param suffix  Shared preferences file name suffix.
+     */
+    UploadDAO(final Context context, final String suffix) {
+        super(context, fileNamePrefix + suffix);
+        parser = new Parser();
+    }
+
+    /**
+     * Loads state of an upload.
+     *
+     * @param key Key identifying uploaded content.
+     * @return Upload state or null if there is no upload in progress for the content.
+     */
+    public synchronized UploadState load(@NonNull final String key) {
+        String json = getSharedPreferences().getString(key, null);
+        if (json != null) {
+            try {
+                return parser.parse(json, UploadState.class);
+            } catch (RuntimeException e) {
+                clear(key);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Saves state of an upload.
+     *
+     * @param key   Key identifying uploaded content.
+     * @param state Upload state.
+     */
+    public synchronized void save(@NonNull final String key, @NonNull final UploadState state) {
+        synchronized (state) {
+            putString(key, parser.toJson(state));
+        }
+    }
+
+    /**
+     * Removes state of a finished upload.
+     *
+     * @param key Key identifying uploaded content.
+     */
+    public synchronized void remove(@NonNull final String key) {
+        clear(key);
+    }
+
+    /**
+     * Removes state of all uploads.
+     */
+    public synchronized void removeAll() {
+        clearAll();
+    }
+}
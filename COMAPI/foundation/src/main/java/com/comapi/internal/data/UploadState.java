@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.data;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State of a chunked content upload, stored so the upload can be resumed after network failure or application restart.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+public class UploadState {
+
+    @SerializedName("uploadId")
+    private String uploadId;
+
+    @SerializedName("size")
+    private long size;
+
+    @SerializedName("chunkSize")
+    private int chunkSize;
+
+    @SerializedName("acknowledged")
+    private Set<Integer> acknowledged;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param uploadId  Upload identifier obtained from the services.
+     * @param size      Content size in bytes.
+     * @param chunkSize Chunk size in bytes.
+     */
+    public UploadState(String uploadId, long size, int chunkSize) {
+        this.uploadId = uploadId;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.acknowledged = new HashSet<>();
+    }
+
+    /**
+     * @return Upload identifier obtained from the services.
+     */
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    /**
+     * @return Content size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Chunk size in bytes.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Gets number of chunks the content is split into.
+     *
+     * @return Number of chunks.
+     */
+    public int getChunkCount() {
+        return chunkSize > 0 ? (int) ((size + chunkSize - 1) / chunkSize) : 0;
+    }
+
+    /**
+     * Gets offset of the first byte of a chunk.
+     *
+     * @param index Chunk index.
+     * @return Offset in bytes.
+     */
+    public long getChunkStart(int index) {
+        return (long) index * chunkSize;
+    }
+
+    /**
+     * Gets chunk length, the last chunk may be shorter than the others.
+     *
+     * @param index Chunk index.
+     * @return Chunk length in bytes.
+     */
+    public int getChunkLength(int index) {
+        return (int) Math.min(chunkSize, size - getChunkStart(index));
+    }
+
+    /**
+     * Marks chunk as acknowledged by the services.
+     *
+     * @param index Chunk index.
+     */
+    public synchronized void acknowledge(int index) {
+        if (acknowledged == null) {
+            acknowledged = new HashSet<>();
+        }
+        acknowledged.add(index);
+    }
+
+    /**
+     * Marks all chunks received by the services without gaps as acknowledged.
+     *
+     * @param offset Number of bytes from the beginning of the content the services confirmed to have received.
+     */
+    public synchronized void acknowledgeUpTo(long offset) {
+        for (int i = 0; i < getChunkCount() && getChunkStart(i) + getChunkLength(i) <= offset; i++) {
+            acknowledge(i);
+        }
+    }
+
+    /**
+     * Gets chunks which need to be uploaded.
+     *
+     * @return Indexes of chunks which weren't acknowledged.
+     */
+    public synchronized List<Integer> getPendingChunks() {
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < getChunkCount(); i++) {
+            if (acknowledged == null || !acknowledged.contains(i)) {
+                pending.add(i);
+            }
+        }
+        return pending;
+    }
+}
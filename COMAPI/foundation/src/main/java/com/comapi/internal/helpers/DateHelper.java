@@ -26,28 +26,59 @@ import android.text.TextUtils;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
 
 /**
- * Helper methods to obtain and format date and time.
+ * Helper methods to obtain and format date and time. Dates in the fixed ISO-8601 format used by the services are formatted and parsed
+ * without creating date formats.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
  */
 public class DateHelper {
 
+    private static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+    /**
+     * Length of the date string in {@link #PATTERN} format.
+     */
+    private static final int LENGTH = 24;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
+    /**
+     * Range of years handled without date formats. Earlier dates use Julian calendar in {@link SimpleDateFormat}.
+     */
+    private static final int MIN_YEAR = 1600;
+
+    private static final int MAX_YEAR = 9999;
+
+    /**
+     * Date formats for dates that cannot be handled by the fixed pattern formatter and parser.
+     */
+    private static final ThreadLocal<DateFormat> fallbackFormat = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            DateFormat sdf = new SimpleDateFormat(PATTERN, Locale.ENGLISH);
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return sdf;
+        }
+    };
+
+    /**
+     * Last formatted time. Log entries are often created within the same millisecond.
+     */
+    private static volatile Formatted lastFormatted = new Formatted(0, "1970-01-01T00:00:00.000Z");
+
     /**
      * Gets the current UTC date and time in 'yyyy-MM-dd'T'HH:mm:ss.SSS'Z'' format.
      *
      * @return Current UTC date and time.
      */
     public static String getCurrentUTC() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return sdf.format(Calendar.getInstance().getTime());
+        return getUTC(System.currentTimeMillis());
     }
 
     /**
@@ -60,11 +91,14 @@ public class DateHelper {
 
         if (!TextUtils.isEmpty(dateStr)) {
 
-            DateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
-            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            long time = parse(dateStr);
+            if (time != Long.MIN_VALUE) {
+                return time;
+            }
+
             Date date = null;
             try {
-                date = sdf.parse(dateStr);
+                date = fallbackFormat.get().parse(dateStr);
             } catch (ParseException e) {
                 e.printStackTrace();
             }
@@ -83,8 +117,151 @@ public class DateHelper {
      * @return UTC date and time.
      */
     public static String getUTC(long time) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return sdf.format(time);
+
+        Formatted last = lastFormatted;
+        if (last.time == time) {
+            return last.text;
+        }
+
+        long days = floorDiv(time, MILLIS_PER_DAY);
+        int millisOfDay = (int) (time - days * MILLIS_PER_DAY);
+
+        // Civil date from days since epoch, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return fallbackFormat.get().format(time);
+        }
+
+        char[] chars = new char[LENGTH];
+        write4(chars, 0, (int) year);
+        chars[4] = '-';
+        write2(chars, 5, month);
+        chars[7] = '-';
+        write2(chars, 8, day);
+        chars[10] = 'T';
+        write2(chars, 11, millisOfDay / 3600000);
+        chars[13] = ':';
+        write2(chars, 14, millisOfDay / 60000 % 60);
+        chars[16] = ':';
+        write2(chars, 17, millisOfDay / 1000 % 60);
+        chars[19] = '.';
+        write3(chars, 20, millisOfDay % 1000);
+        chars[23] = 'Z';
+
+        String text = new String(chars);
+        lastFormatted = new Formatted(time, text);
+        return text;
+    }
+
+    /**
+     * Parses date string in exactly 'yyyy-MM-dd'T'HH:mm:ss.SSS'Z'' format.
+     *
+     * @param text Date string.
+     * @return UTC time in milliseconds or Long.MIN_VALUE if the string is not in the expected format.
+     */
+    private static long parse(String text) {
+
+        if (text.length() != LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != '.' || text.charAt(23) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+
+        int year = read(text, 0, 4);
+        int month = read(text, 5, 2);
+        int day = read(text, 8, 2);
+        int hour = read(text, 11, 2);
+        int minute = read(text, 14, 2);
+        int second = read(text, 17, 2);
+        int millis = read(text, 20, 3);
+
+        if (year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return Long.MIN_VALUE;
+        }
+
+        // Days since epoch from civil date, see http://howardhinnant.github.io/date_algorithms.html
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        long days = era * 146097L + doe - 719468;
+
+        return days * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L + millis;
+    }
+
+    /**
+     * Reads non negative decimal number.
+     *
+     * @return Number or -1 if non digit character was found.
+     */
+    private static int read(String text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static void write2(char[] chars, int offset, int value) {
+        chars[offset] = (char) ('0' + value / 10);
+        chars[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void write3(char[] chars, int offset, int value) {
+        chars[offset] = (char) ('0' + value / 100);
+        write2(chars, offset + 1, value % 100);
+    }
+
+    private static void write4(char[] chars, int offset, int value) {
+        write2(chars, offset, value / 100);
+        write2(chars, offset + 2, value % 100);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    /**
+     * Formatted time.
+     */
+    private static final class Formatted {
+
+        final long time;
+
+        final String text;
+
+        Formatted(long time, String text) {
+            this.time = time;
+            this.text = text;
+        }
     }
-}
\ No newline at end of file
+}
@@ -27,20 +27,36 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
 import java.io.Writer;
 import java.lang.ref.WeakReference;
-import java.util.concurrent.ExecutorService;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import rx.Observable;
 import rx.exceptions.Exceptions;
 import rx.schedulers.Schedulers;
 
 /**
- * Class to implement log output to console.
+ * Class to implement log output to files. Log entries are queued and written in batches on a worker thread to a log file
+ * kept open between writes.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
@@ -52,15 +68,44 @@ class AppenderFile extends Appender {
 
     private static final int DEFAULT_LOG_SIZE = 1000;
 
+    /**
+     * Maximum number of log entries waiting to be written. Entries logged when the queue is full are dropped and counted.
+     */
+    static final int QUEUE_CAPACITY = 2048;
+
+    /**
+     * Maximum time in milliseconds log entries can stay buffered before being flushed to the file.
+     */
+    static final long FLUSH_INTERVAL = 1000;
+
+    /**
+     * Entries of this or more severe level are flushed to the file immediately.
+     */
+    private static final int FLUSH_LEVEL = LogLevelConst.ERROR;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     /**
      * Object to lock the thread on.
      */
     private static final Object sharedLock = new Object();
 
+    /**
+     * Default maximum number of files in which the logs are stored.
+     */
+    static final int DEFAULT_MAX_FILES = 2;
+
     /**
      * Maximum number of files in which the logs are stored.
      */
-    private final int maxFiles = 2;
+    private final int maxFiles;
+
+    /**
+     * Should rolled over log files be compressed with gzip.
+     */
+    private final boolean compress;
 
     /**
      * Limit of the file size. When exceeded the files will be rolled over.
@@ -80,14 +125,35 @@ class AppenderFile extends Appender {
     private final FormatterFileLog formatter;
 
     /**
-     * File input stream to load Donky SDK logs.
+     * Work thread executor.
      */
-    private FileInputStream inputStream;
+    private final ScheduledExecutorService executor;
 
     /**
-     * Work thread executor.
+     * Log entries waiting to be written to the file.
      */
-    private final ExecutorService executor;
+    private final BlockingQueue<Record> queue;
+
+    private final AtomicBoolean isDrainScheduled;
+
+    /**
+     * Number of log entries dropped since the last write because the queue was full.
+     */
+    private final AtomicInteger dropped;
+
+    /**
+     * Open main log file. Accessed only when holding the shared lock.
+     */
+    private Writer writer;
+
+    /**
+     * Size of the main log file.
+     */
+    private long fileSize;
+
+    private long lastFlush;
+
+    private boolean isFlushScheduled;
 
     /**
      * Recommended constructor.
@@ -99,10 +165,30 @@ class AppenderFile extends Appender {
      * @param logSizeLimit Size limit for internal log files
      */
     AppenderFile(@NonNull final Context appContext, final int logLevel, @NonNull final FormatterFileLog formatter, int logSizeLimit) {
+        this(appContext, logLevel, formatter, logSizeLimit, DEFAULT_MAX_FILES, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param appContext   Application Context.
+     * @param logLevel     Logging level that should be used for console output. Messages with higher
+     *                     level won't be displayed in logcat.
+     * @param formatter    Message formatter. Defines the format of the output.
+     * @param logSizeLimit Size limit for internal log files
+     * @param maxFiles     Maximum number of log files, including the file currently written to.
+     * @param compress     True if rolled over log files should be compressed with gzip.
+     */
+    AppenderFile(@NonNull final Context appContext, final int logLevel, @NonNull final FormatterFileLog formatter, int logSizeLimit, int maxFiles, boolean compress) {
         super(logLevel);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.compress = compress;
         this.appContextRef = new WeakReference<>(appContext);
         this.formatter = formatter;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.executor = Executors.newSingleThreadScheduledExecutor();
+        this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.isDrainScheduled = new AtomicBoolean();
+        this.dropped = new AtomicInteger();
         if (logSizeLimit >= MIN_LOG_SIZE) {
             this.fileSizeLimitKb = logSizeLimit;
         } else {
@@ -113,39 +199,131 @@ class AppenderFile extends Appender {
     @Override
     public void appendLog(final String tag, final int logLevel, final String msg, final Throwable exception) {
 
-        Context context = appContextRef.get();
+        if (shouldAppend(logLevel) && appContextRef.get() != null) {
+            if (queue.offer(new Record(System.currentTimeMillis(), logLevel, tag, msg, exception))) {
+                if (isDrainScheduled.compareAndSet(false, true)) {
+                    executor.execute(this::drain);
+                }
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+    }
 
-        if (shouldAppend(logLevel) && context != null) {
+    /**
+     * Writes all queued log entries to the log file. Flushes the file if an error was logged or the flush interval has passed,
+     * otherwise schedules a delayed flush.
+     */
+    private void drain() {
 
-            executor.submit(() -> {
+        synchronized (sharedLock) {
 
-                synchronized (sharedLock) {
+            isDrainScheduled.set(false);
 
-                    try {
+            try {
 
-                        rollOverFiles();
+                boolean flushNow = false;
 
-                        File mainFile = new File(context.getFilesDir(), name(1));
-                        if (!mainFile.exists()) {
-                            mainFile.createNewFile();
-                        }
-                        if (mainFile.exists() && mainFile.canWrite()) {
-                            Writer outputStream = new BufferedWriter(new FileWriter(mainFile, true), 1024);
-                            outputStream.write(formatter.formatMessage(logLevel, tag, msg, exception));
-                            outputStream.flush();
-                            outputStream.close();
-                        }
+                Record record;
+                while ((record = queue.poll()) != null) {
+                    write(formatter.formatMessage(record.time, record.level, record.tag, record.msg, record.exception));
+                    flushNow |= record.level <= FLUSH_LEVEL;
+                }
 
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    } finally {
-                        sharedLock.notifyAll();
-                    }
+                int droppedCount = dropped.getAndSet(0);
+                if (droppedCount > 0) {
+                    write(formatter.formatMessage(LogLevelConst.WARNING, "", droppedCount + " log entries dropped, log queue full.", null));
                 }
-            });
+
+                if (flushNow || System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL) {
+                    flush();
+                } else if (writer != null && !isFlushScheduled) {
+                    isFlushScheduled = true;
+                    executor.schedule(() -> {
+                        synchronized (sharedLock) {
+                            flush();
+                        }
+                    }, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+
+            } catch (Exception e) {
+                e.printStackTrace();
+                closeWriter();
+            } finally {
+                sharedLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes log entry to the main log file, rolling the files over if the size limit has been exceeded.
+     *
+     * @param entry Formatted log entry.
+     * @throws IOException If the file couldn't be written.
+     */
+    private void write(String entry) throws IOException {
+
+        if (writer != null && fileSize > fileSizeLimitKb * 1024L) {
+            closeWriter();
+            rollOverFiles();
+        }
+
+        if (writer == null) {
+            Context context = appContextRef.get();
+            if (context == null) {
+                return;
+            }
+            File mainFile = new File(context.getFilesDir(), name(1));
+            if (mainFile.length() > fileSizeLimitKb * 1024L) {
+                rollOverFiles();
+            }
+            fileSize = mainFile.length();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(mainFile, true), UTF_8), BUFFER_SIZE);
+        }
+
+        writer.write(entry);
+        // Characters count, close enough to the file size in bytes for rolling over.
+        fileSize += entry.length();
+    }
+
+    /**
+     * Flushes buffered log entries to the log file.
+     */
+    private void flush() {
+        isFlushScheduled = false;
+        lastFlush = System.currentTimeMillis();
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeWriter();
+            }
+        }
+    }
+
+    /**
+     * Closes the log file.
+     */
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            writer = null;
         }
     }
 
+    /**
+     * Writes all queued log entries to the log file and flushes it. Must be called while holding the shared lock.
+     */
+    private void sync() {
+        drain();
+        flush();
+    }
+
     /**
      * Gets the content of internal log files.
      */
@@ -156,8 +334,27 @@ class AppenderFile extends Appender {
     }
 
     /**
-     * Keep the maximum size of log files close to maximum value.
-     * Logs are cached if the size of the currently used log file exceeds max value.
+     * Gets stream with the content of internal log files. Compressed files are decompressed while being read. The stream should be closed when no longer needed.
+     */
+    Observable<InputStream> getLogsStream() {
+
+        return Observable.fromCallable(() -> {
+            synchronized (sharedLock) {
+                try {
+                    sync();
+                    return openLogs();
+                } catch (Exception e) {
+                    throw Exceptions.propagate(e);
+                } finally {
+                    sharedLock.notifyAll();
+                }
+            }
+        }).subscribeOn(Schedulers.from(executor));
+    }
+
+    /**
+     * Roll the log files over. The oldest file is removed and the main file becomes the first rotated file, compressed if configured so.
+     * Must be called when the main log file is closed.
      */
     private void rollOverFiles() {
 
@@ -167,31 +364,63 @@ class AppenderFile extends Appender {
 
             File dir = context.getFilesDir();
 
-            File mainFile = new File(dir, name(1));
-
-            if (mainFile.exists()) {
-
-                float fileSize = mainFile.length();
-                fileSize = fileSize / 1024.0f; //In kilobytes
+            new File(dir, name(maxFiles)).delete();
+            new File(dir, compressedName(maxFiles)).delete();
 
-                if (fileSize > fileSizeLimitKb) {
-
-                    File file;
-                    File target;
-
-                    file = new File(dir, name(maxFiles));
-                    if (file.exists()) {
-                        file.delete();
-                    }
+            for (int i = maxFiles - 1; i > 1; i--) {
+                File file = new File(dir, name(i));
+                if (file.exists()) {
+                    file.renameTo(new File(dir, name(i + 1)));
+                }
+                file = new File(dir, compressedName(i));
+                if (file.exists()) {
+                    file.renameTo(new File(dir, compressedName(i + 1)));
+                }
+            }
 
-                    for (int i = maxFiles - 1; i > 0; i--) {
-                        file = new File(dir, name(i));
-                        if (file.exists()) {
-                            target = new File(dir, name(i + 1));
-                            file.renameTo(target);
-                        }
+            File mainFile = new File(dir, name(1));
+            if (maxFiles > 1 && mainFile.exists()) {
+                if (compress) {
+                    File target = new File(dir, compressedName(2));
+                    try {
+                        compress(mainFile, target);
+                        mainFile.delete();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        target.delete();
+                        mainFile.renameTo(new File(dir, name(2)));
                     }
+                } else {
+                    mainFile.renameTo(new File(dir, name(2)));
                 }
+            } else {
+                mainFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Compress file content with gzip.
+     *
+     * @param source File to compress.
+     * @param target Compressed file.
+     * @throws IOException If the file couldn't be compressed.
+     */
+    private void compress(File source, File target) throws IOException {
+        InputStream in = new FileInputStream(source);
+        OutputStream out = null;
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            out = new GZIPOutputStream(new FileOutputStream(target), BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+            if (out != null) {
+                out.close();
             }
         }
     }
@@ -206,6 +435,55 @@ class AppenderFile extends Appender {
         return LOG_FILE_NAME + index + ".log";
     }
 
+    /**
+     * Gets the name of compressed log file with a given index.
+     *
+     * @param index Index of log file.
+     * @return Name of compressed log file.
+     */
+    private String compressedName(int index) {
+        return name(index) + ".gz";
+    }
+
+    /**
+     * Opens single stream over all log files. All files are opened at once so the content is available even if the files are rolled over while being read.
+     * Must be called while holding the shared lock.
+     *
+     * @return Stream with the content of log files.
+     * @throws IOException If the files couldn't be opened.
+     */
+    private InputStream openLogs() throws IOException {
+
+        Vector<InputStream> streams = new Vector<>();
+
+        Context context = appContextRef.get();
+
+        if (context != null) {
+
+            File dir = context.getFilesDir();
+
+            try {
+                for (int i = 1; i <= maxFiles; i++) {
+                    File file = new File(dir, name(i));
+                    if (file.exists()) {
+                        streams.add(new FileInputStream(file));
+                    }
+                    file = new File(dir, compressedName(i));
+                    if (file.exists()) {
+                        streams.add(new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE));
+                    }
+                }
+            } catch (IOException e) {
+                for (InputStream stream : streams) {
+                    stream.close();
+                }
+                throw e;
+            }
+        }
+
+        return new SequenceInputStream(streams.elements());
+    }
+
     /**
      * Gets rx observable that reads the log files and appends to string.
      *
@@ -217,36 +495,26 @@ class AppenderFile extends Appender {
 
             StringBuilder sb = new StringBuilder();
 
-            Context context = appContextRef.get();
+            synchronized (sharedLock) {
 
-            if (context != null) {
+                try {
 
-                synchronized (sharedLock) {
+                    sync();
 
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(openLogs(), UTF_8));
+                    //noinspection TryFinallyCanBeTryWithResources
                     try {
-
-                        File dir = context.getFilesDir();
-
                         String line;
-
-                        for (int i = 1; i <= maxFiles; i++) {
-
-                            File file = new File(dir, name(i));
-
-                            if (file.exists()) {
-                                inputStream = new FileInputStream(file);
-                                BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-                                while ((line = reader.readLine()) != null) {
-                                    sb.append(line).append('\n');
-                                }
-                                reader.close();
-                            }
+                        while ((line = reader.readLine()) != null) {
+                            sb.append(line).append('\n');
                         }
-                    } catch (Exception e) {
-                        throw Exceptions.propagate(e);
                     } finally {
-                        sharedLock.notifyAll();
+                        reader.close();
                     }
+                } catch (Exception e) {
+                    throw Exceptions.propagate(e);
+                } finally {
+                    sharedLock.notifyAll();
                 }
             }
 
@@ -265,6 +533,7 @@ class AppenderFile extends Appender {
         return Observable.fromCallable(() -> {
             synchronized (sharedLock) {
                 try {
+                    sync();
                     mergeFiles(mergedFile);
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -277,7 +546,7 @@ class AppenderFile extends Appender {
     }
 
     /**
-     * Merged content of internal log files.
+     * Merged content of internal log files. Uncompressed files are transferred directly between file channels.
      *
      * @param mergedFile Instance of a file to merge logs into.
      */
@@ -287,39 +556,73 @@ class AppenderFile extends Appender {
 
         if (context != null) {
 
-            FileWriter fw;
-            BufferedWriter bw;
-            fw = new FileWriter(mergedFile, true);
-            bw = new BufferedWriter(fw);
+            FileOutputStream out = new FileOutputStream(mergedFile, true);
+            FileChannel target = out.getChannel();
 
-            File dir = context.getFilesDir();
-            for (int i = 1; i <= maxFiles; i++) {
+            //noinspection TryFinallyCanBeTryWithResources
+            try {
 
-                File file = new File(dir, name(i));
-                if (file.exists()) {
+                File dir = context.getFilesDir();
+                for (int i = 1; i <= maxFiles; i++) {
 
-                    FileInputStream fis;
-                    try {
+                    File file = new File(dir, name(i));
+                    if (file.exists()) {
+                        FileInputStream in = new FileInputStream(file);
+                        //noinspection TryFinallyCanBeTryWithResources
+                        try {
+                            FileChannel source = in.getChannel();
+                            long position = 0;
+                            long size = source.size();
+                            while (position < size) {
+                                position += source.transferTo(position, size - position, target);
+                            }
+                        } finally {
+                            in.close();
+                        }
+                    }
 
-                        fis = new FileInputStream(file);
-                        BufferedReader br = new BufferedReader(new InputStreamReader(fis));
+                    file = new File(dir, compressedName(i));
+                    if (file.exists()) {
+                        InputStream in = new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE);
                         //noinspection TryFinallyCanBeTryWithResources
                         try {
-                            String aLine;
-                            while ((aLine = br.readLine()) != null) {
-                                bw.write(aLine);
-                                bw.newLine();
+                            byte[] buffer = new byte[BUFFER_SIZE];
+                            int count;
+                            while ((count = in.read(buffer)) != -1) {
+                                target.write(ByteBuffer.wrap(buffer, 0, count));
                             }
                         } finally {
-                            br.close();
+                            in.close();
                         }
-                    } catch (IOException e) {
-                        e.printStackTrace();
                     }
                 }
+            } finally {
+                out.close();
             }
+        }
+    }
+
+    /**
+     * Log entry waiting to be written.
+     */
+    private static class Record {
+
+        final long time;
+
+        final int level;
+
+        final String tag;
+
+        final String msg;
+
+        final Throwable exception;
 
-            bw.close();
+        Record(long time, int level, String tag, String msg, Throwable exception) {
+            this.time = time;
+            this.level = level;
+            this.tag = tag;
+            this.msg = msg;
+            this.exception = exception;
         }
     }
-}
\ No newline at end of file
+}
@@ -40,10 +40,24 @@ class FormatterFileLog extends Formatter {
      * @return Formatted log entry.
      */
     String formatMessage(int msgLogLevel, String tag, String msg, Throwable exception) {
+        return formatMessage(System.currentTimeMillis(), msgLogLevel, tag, msg, exception);
+    }
+
+    /**
+     * Format log data into a log entry String.
+     *
+     * @param time        Time when the entry was logged.
+     * @param msgLogLevel Log level of an entry.
+     * @param tag         Tag with SDK and version details.
+     * @param msg         Log message.
+     * @param exception   Exception with a stach
+     * @return Formatted log entry.
+     */
+    String formatMessage(long time, int msgLogLevel, String tag, String msg, Throwable exception) {
         if (exception != null) {
-            return DateHelper.getUTC(System.currentTimeMillis()) + "/" + getLevelTag(msgLogLevel) + tag + ": " + msg + "\n" + getStackTrace(exception) + "\n";
+            return DateHelper.getUTC(time) + "/" + getLevelTag(msgLogLevel) + tag + ": " + msg + "\n" + getStackTrace(exception) + "\n";
         } else {
-            return DateHelper.getUTC(System.currentTimeMillis()) + "/" + getLevelTag(msgLogLevel) + tag + ": " + msg + "\n";
+            return DateHelper.getUTC(time) + "/" + getLevelTag(msgLogLevel) + tag + ": " + msg + "\n";
         }
     }
 
@@ -34,6 +34,10 @@ public class LogConfig {
 
     private LogLevel networkLevel;
 
+    private int maxLogFiles = AppenderFile.DEFAULT_MAX_FILES;
+
+    private boolean compressLogFiles;
+
     /**
      * Default constructor.
      */
@@ -135,4 +139,45 @@ public class LogConfig {
         this.networkLevel = networkLevel;
         return this;
     }
+
+    /**
+     * Gets maximum number of files in which internal logs are stored.
+     *
+     * @return Maximum number of log files.
+     */
+    public int getMaxLogFiles() {
+        return maxLogFiles;
+    }
+
+    /**
+     * Sets maximum number of files in which internal logs are stored, including the file currently written to. When the current file
+     * exceeds the log size limit it is rolled over and the oldest file is removed. Defaults to 2.
+     *
+     * @param maxLogFiles Maximum number of log files.
+     * @return Log configuration.
+     */
+    public LogConfig setMaxLogFiles(int maxLogFiles) {
+        this.maxLogFiles = maxLogFiles;
+        return this;
+    }
+
+    /**
+     * Checks if rolled over log files are compressed.
+     *
+     * @return True if rolled over log files are compressed with gzip.
+     */
+    public boolean isCompressLogFiles() {
+        return compressLogFiles;
+    }
+
+    /**
+     * Sets if rolled over log files should be compressed with gzip. Logs are decompressed when exported. Disabled by default.
+     *
+     * @param compressLogFiles True if rolled over log files should be compressed.
+     * @return Log configuration.
+     */
+    public LogConfig setCompressLogFiles(boolean compressLogFiles) {
+        this.compressLogFiles = compressLogFiles;
+        return this;
+    }
 }
@@ -24,6 +24,7 @@ import android.content.Context;
 import android.support.annotation.NonNull;
 
 import java.io.File;
+import java.io.InputStream;
 
 import rx.Observable;
 
@@ -48,11 +49,25 @@ public class LogManager {
      * @param logSizeLimit Log files size limit.
      */
     public void init(@NonNull Context context, final int levConsole, final int levFile, int logSizeLimit) {
+        init(context, levConsole, levFile, logSizeLimit, AppenderFile.DEFAULT_MAX_FILES, false);
+    }
+
+    /**
+     * Initialise Logging manager.
+     *
+     * @param context      Application context.
+     * @param levConsole   Log level threshold for console output.
+     * @param levFile      Log level threshold for file output.
+     * @param logSizeLimit Log files size limit.
+     * @param maxFiles     Maximum number of log files.
+     * @param compress     True if rolled over log files should be compressed.
+     */
+    public void init(@NonNull Context context, final int levConsole, final int levFile, int logSizeLimit, int maxFiles, boolean compress) {
         if (levConsole != LogLevel.OFF.getValue()) {
             aConsole = new AppenderConsole(levConsole, new FormatterConsoleLog());
         }
         if (levFile != LogLevelConst.OFF) {
-            aFile = new AppenderFile(context, levFile, new FormatterFileLog(), logSizeLimit);
+            aFile = new AppenderFile(context, levFile, new FormatterFileLog(), logSizeLimit, maxFiles, compress);
         }
     }
 
@@ -63,6 +78,13 @@ public class LogManager {
         return aFile != null ? aFile.getLogs() : Observable.just(null);
     }
 
+    /**
+     * Gets stream with the content of internal log files. The stream should be closed when no longer needed.
+     */
+    public Observable<InputStream> getLogsStream() {
+        return aFile != null ? aFile.getLogsStream() : Observable.just(null);
+    }
+
     /**
      * Gets the content of internal log files.
      */
@@ -70,6 +92,16 @@ public class LogManager {
         return aFile != null ? aFile.mergeLogs(file) : Observable.just(null);
     }
 
+    /**
+     * Checks if a message with given log level would be accepted by any of the appenders.
+     *
+     * @param logLevel Level of the log message.
+     * @return True if message with given log level would be logged.
+     */
+    public boolean isLoggable(final int logLevel) {
+        return (aConsole != null && aConsole.shouldAppend(logLevel)) || (aFile != null && aFile.shouldAppend(logLevel));
+    }
+
     /**
      * Logs message using defined appender.
      *
@@ -22,6 +22,8 @@ package com.comapi.internal.log;
 
 import android.support.annotation.NonNull;
 
+import rx.functions.Func0;
+
 /**
  * Helper class for all log messages in Comapi SDK. Controls the logging level and triggers any additional tasks performed during logging.
  *
@@ -45,6 +47,16 @@ public class Logger {
         this.tag = tag;
     }
 
+    /**
+     * Checks if a message with given log level would be logged. Use to avoid building log messages that will be discarded.
+     *
+     * @param logLevel Log level, should be one of {@link LogLevelConst}.
+     * @return True if message with given log level would be logged.
+     */
+    public boolean isLoggable(final int logLevel) {
+        return logMgr.isLoggable(logLevel);
+    }
+
     /**
      * Logs message log level has been set at least to {@link LogLevel#INFO}.
      *
@@ -54,6 +66,29 @@ public class Logger {
         logMgr.log(tag, LogLevelConst.INFO, msg, null);
     }
 
+    /**
+     * Logs message log level has been set at least to {@link LogLevel#INFO}. Message is created only if it will be logged.
+     *
+     * @param msg Message prefix.
+     * @param arg Object which string representation should be appended to the message.
+     */
+    public void i(final String msg, final Object arg) {
+        if (logMgr.isLoggable(LogLevelConst.INFO)) {
+            logMgr.log(tag, LogLevelConst.INFO, msg + arg, null);
+        }
+    }
+
+    /**
+     * Logs message log level has been set at least to {@link LogLevel#INFO}. Message is created only if it will be logged.
+     *
+     * @param msg Function creating message to be logged.
+     */
+    public void i(@NonNull final Func0<String> msg) {
+        if (logMgr.isLoggable(LogLevelConst.INFO)) {
+            logMgr.log(tag, LogLevelConst.INFO, msg.call(), null);
+        }
+    }
+
     /**
      * Logs message log level has been set at least to {@link LogLevel#WARNING}.
      *
@@ -63,6 +98,29 @@ public class Logger {
         logMgr.log(tag, LogLevelConst.WARNING, msg, null);
     }
 
+    /**
+     * Logs message log level has been set at least to {@link LogLevel#WARNING}. Message is created only if it will be logged.
+     *
+     * @param msg Message prefix.
+     * @param arg Object which string representation should be appended to the message.
+     */
+    public void w(final String msg, final Object arg) {
+        if (logMgr.isLoggable(LogLevelConst.WARNING)) {
+            logMgr.log(tag, LogLevelConst.WARNING, msg + arg, null);
+        }
+    }
+
+    /**
+     * Logs message log level has been set at least to {@link LogLevel#WARNING}. Message is created only if it will be logged.
+     *
+     * @param msg Function creating message to be logged.
+     */
+    public void w(@NonNull final Func0<String> msg) {
+        if (logMgr.isLoggable(LogLevelConst.WARNING)) {
+            logMgr.log(tag, LogLevelConst.WARNING, msg.call(), null);
+        }
+    }
+
     /**
      * Logs message log level has been set at least to {@link LogLevel#ERROR}.
      *
@@ -91,6 +149,29 @@ public class Logger {
         logMgr.log(tag, LogLevelConst.DEBUG, msg, null);
     }
 
+    /**
+     * Logs message log level has been set at least to {@link LogLevel#DEBUG}. Message is created only if it will be logged.
+     *
+     * @param msg Message prefix.
+     * @param arg Object which string representation should be appended to the message.
+     */
+    public void d(final String msg, final Object arg) {
+        if (logMgr.isLoggable(LogLevelConst.DEBUG)) {
+            logMgr.log(tag, LogLevelConst.DEBUG, msg + arg, null);
+        }
+    }
+
+    /**
+     * Logs message log level has been set at least to {@link LogLevel#DEBUG}. Message is created only if it will be logged.
+     *
+     * @param msg Function creating message to be logged.
+     */
+    public void d(@NonNull final Func0<String> msg) {
+        if (logMgr.isLoggable(LogLevelConst.DEBUG)) {
+            logMgr.log(tag, LogLevelConst.DEBUG, msg.call(), null);
+        }
+    }
+
     /**
      * Clone Logger instance with additional tag suffix to include with every log entry. Eg. with SDK name and version.
      *
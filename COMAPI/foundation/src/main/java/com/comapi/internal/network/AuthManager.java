@@ -41,6 +41,27 @@ public abstract class AuthManager {
      */
     protected abstract Observable<SessionData> restartSession();
 
+    /**
+     * Gets new session when the access token has been rejected by the services. Implementations can reuse a session
+     * obtained in the meantime by another caller.
+     *
+     * @param rejectedToken Access token rejected by the services.
+     * @return Observable to obtain new session.
+     */
+    protected Observable<SessionData> restartSession(String rejectedToken) {
+        return restartSession();
+    }
+
+    /**
+     * Removes prefix from access token in the authorisation header.
+     *
+     * @param header Authorisation header value.
+     * @return Access token without prefix.
+     */
+    public static String removeAuthPrefix(String header) {
+        return header != null && header.startsWith(AUTH_PREFIX) ? header.substring(AUTH_PREFIX.length()) : header;
+    }
+
     /**
      * Adds appropriate prefix to access token.
      *
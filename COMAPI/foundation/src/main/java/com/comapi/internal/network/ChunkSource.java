@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.NonNull;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Random access to the content data, so it can be uploaded in chunks and the upload can be resumed from any offset. Chunks can be read concurrently.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+abstract class ChunkSource {
+
+    /**
+     * Gets a key identifying the content, used to find the state of an interrupted upload of the same content.
+     *
+     * @return Content key.
+     */
+    abstract String getKey();
+
+    /**
+     * Gets content length.
+     *
+     * @return Number of bytes or -1 if unknown.
+     */
+    abstract long length();
+
+    /**
+     * Reads a chunk of the content.
+     *
+     * @param offset Offset of the first byte to read.
+     * @param count  Number of bytes to read.
+     * @return Chunk bytes.
+     * @throws IOException If the content cannot be read.
+     */
+    abstract byte[] read(long offset, int count) throws IOException;
+
+    /**
+     * Creates source reading chunks from a file.
+     *
+     * @param file File with the content.
+     * @return Chunk source.
+     */
+    static ChunkSource create(@NonNull final File file) {
+        return new ChunkSource() {
+
+            @Override
+            String getKey() {
+                return "file:" + file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+            }
+
+            @Override
+            long length() {
+                return file.exists() ? file.length() : -1;
+            }
+
+            @Override
+            byte[] read(long offset, int count) throws IOException {
+                RandomAccessFile raf = new RandomAccessFile(file, "r");
+                try {
+                    return readFully(raf.getChannel(), offset, count);
+                } finally {
+                    raf.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates source reading chunks from a byte array.
+     *
+     * @param data Content bytes.
+     * @return Chunk source.
+     */
+    static ChunkSource create(@NonNull final byte[] data) {
+        return new ChunkSource() {
+
+            @Override
+            String getKey() {
+                return "bytes:" + data.length + ":" + Arrays.hashCode(data);
+            }
+
+            @Override
+            long length() {
+                return data.length;
+            }
+
+            @Override
+            byte[] read(long offset, int count) throws IOException {
+                if (offset < 0 || offset + count > data.length) {
+                    throw new EOFException("Chunk " + offset + "+" + count + " out of content bounds " + data.length);
+                }
+                return Arrays.copyOfRange(data, (int) offset, (int) offset + count);
+            }
+        };
+    }
+
+    /**
+     * Creates source reading chunks from a content Uri. The Uri is opened for each chunk, so the upload can continue after the application restarts
+     * as long as the Uri permission is still granted.
+     *
+     * @param resolver Content resolver.
+     * @param uri      Content Uri.
+     * @return Chunk source.
+     */
+    static ChunkSource create(@NonNull final ContentResolver resolver, @NonNull final Uri uri) {
+        return new ChunkSource() {
+
+            private volatile Long length;
+
+            @Override
+            String getKey() {
+                return "uri:" + uri.toString() + ":" + length();
+            }
+
+            @Override
+            long length() {
+                if (length == null) {
+                    length = StreamingRequestBody.querySize(resolver, uri);
+                }
+                return length;
+            }
+
+            @Override
+            byte[] read(long offset, int count) throws IOException {
+                ParcelFileDescriptor fd = resolver.openFileDescriptor(uri, "r");
+                if (fd == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                FileInputStream stream = new ParcelFileDescriptor.AutoCloseInputStream(fd);
+                try {
+                    return readFully(stream.getChannel(), offset, count);
+                } finally {
+                    stream.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads bytes from a channel at a given position.
+     *
+     * @param channel Channel to read from.
+     * @param offset  Position of the first byte to read.
+     * @param count   Number of bytes to read.
+     * @return Bytes read.
+     * @throws IOException If the channel ends before all bytes were read.
+     */
+    private static byte[] readFully(FileChannel channel, long offset, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Content ended at " + (offset + buffer.position()) + " before the end of the chunk " + (offset + count));
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.comapi.internal.data.UploadDAO;
+import com.comapi.internal.data.UploadState;
+import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.messaging.UploadContentResponse;
+import com.comapi.internal.network.model.messaging.UploadSession;
+import com.comapi.internal.network.model.messaging.UploadSessionCreate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func0;
+
+/**
+ * Uploads large content in chunks. The upload state is stored after each acknowledged chunk, so an upload interrupted by network failure or
+ * application restart continues from the chunks the services have not received yet when the same content is uploaded again. Chunks are uploaded
+ * in parallel up to the configured limit. Content below the size threshold or available only as a stream is uploaded in a single request.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class ChunkedUploader {
+
+    /**
+     * Default minimum content size in bytes uploaded in chunks.
+     */
+    static final long DEFAULT_THRESHOLD = 5 * 1024 * 1024;
+
+    /**
+     * Default chunk size in bytes.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Default maximum number of chunks uploaded in parallel.
+     */
+    static final int DEFAULT_PARALLELISM = 3;
+
+    /**
+     * Number of times a chunk is sent again after a network error before the upload fails.
+     */
+    static final int MAX_CHUNK_RETRIES = 3;
+
+    /**
+     * Delay in milliseconds before sending a chunk again, multiplied by the attempt number.
+     */
+    static final long RETRY_DELAY = 1000;
+
+    private final ServiceApiWrapper api;
+
+    private final Func0<UploadDAO> store;
+
+    private final Scheduler scheduler;
+
+    private final Logger log;
+
+    private final long threshold;
+
+    private final int chunkSize;
+
+    private final int parallelism;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param api         Service API wrapper.
+     * @param store       Gets upload state storage.
+     * @param scheduler   Scheduler for retry delays.
+     * @param log         Internal logger.
+     * @param threshold   Minimum content size in bytes uploaded in chunks.
+     * @param chunkSize   Chunk size in bytes.
+     * @param parallelism Maximum number of chunks uploaded in parallel.
+     */
+    ChunkedUploader(@NonNull final ServiceApiWrapper api, @NonNull final Func0<UploadDAO> store, @NonNull final Scheduler scheduler, @NonNull final Logger log, long threshold, int chunkSize, int parallelism) {
+        this.api = api;
+        this.store = store;
+        this.scheduler = scheduler;
+        this.log = log;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        this.parallelism = parallelism > 0 ? parallelism : 1;
+    }
+
+    /**
+     * Uploads content data, in chunks if the content is large enough and supports random access.
+     *
+     * @param token    Comapi access token.
+     * @param folder   Folder name to put the file in.
+     * @param data     Content data.
+     * @param listener Listener for upload progress.
+     * @return Observable emitting details of uploaded content.
+     */
+    Observable<ComapiResult<UploadContentResponse>> upload(@NonNull final String token, @NonNull final String folder, @NonNull final ContentData data, @Nullable final UploadProgressListener listener) {
+
+        final ChunkSource source = data.getChunks();
+        if (source == null) {
+            return api.doUploadContent(token, folder, data.getName(), data, listener);
+        }
+
+        return Observable.defer(() -> {
+
+            final long length = source.length();
+            if (length < 0 || length < threshold) {
+                return api.doUploadContent(token, folder, data.getName(), data, listener);
+            }
+
+            final MediaType type = data.getBody().contentType();
+            final String key = folder + ":" + data.getName() + ":" + source.getKey();
+
+            return resume(token, key, folder, data.getName(), type, length)
+                    .flatMap(state -> uploadChunks(token, key, state, source, type, listener).toList()
+                            .flatMap(ignored -> api.doCompleteUpload(token, state.getUploadId()))
+                            .doOnNext(result -> {
+                                if (result.isSuccessful() || result.getCode() == 404) {
+                                    store.call().remove(key);
+                                }
+                            }));
+        }).subscribeOn(scheduler).onErrorResumeNext(t -> {
+            if (t instanceof UploadFailedException) {
+                return Observable.just(new ComapiResult<>(((UploadFailedException) t).result, (UploadContentResponse) null));
+            }
+            return Observable.error(t);
+        });
+    }
+
+    /**
+     * Loads state of an interrupted upload of the same content and checks with the services which chunks were received, or starts a new upload.
+     *
+     * @param token  Comapi access token.
+     * @param key    Key identifying the content.
+     * @param folder Folder name to put the file in.
+     * @param name   Content name.
+     * @param type   Mime type of the content.
+     * @param length Content size in bytes.
+     * @return Observable emitting upload state.
+     */
+    private Observable<UploadState> resume(@NonNull final String token, @NonNull final String key, @NonNull final String folder, @Nullable final String name, @Nullable final MediaType type, final long length) {
+
+        final UploadState saved = store.call().load(key);
+        if (saved == null || saved.getSize() != length || saved.getChunkSize() <= 0) {
+            return create(token, key, folder, name, type, length);
+        }
+
+        return api.doGetUpload(token, saved.getUploadId()).flatMap(result -> {
+            if (result.isSuccessful() && result.getResult() != null) {
+                saved.acknowledgeUpTo(result.getResult().getOffset());
+                log.d(() -> "Resuming chunked upload " + saved.getUploadId() + ", " + saved.getPendingChunks().size() + " of " + saved.getChunkCount() + " chunks left.");
+                return Observable.just(saved);
+            } else {
+                // upload expired or cannot be resumed, start again
+                log.w("Cannot resume chunked upload " + saved.getUploadId() + ", code " + result.getCode() + ". Starting new upload.");
+                store.call().remove(key);
+                return create(token, key, folder, name, type, length);
+            }
+        });
+    }
+
+    /**
+     * Starts a new upload.
+     *
+     * @param token  Comapi access token.
+     * @param key    Key identifying the content.
+     * @param folder Folder name to put the file in.
+     * @param name   Content name.
+     * @param type   Mime type of the content.
+     * @param length Content size in bytes.
+     * @return Observable emitting upload state.
+     */
+    private Observable<UploadState> create(@NonNull final String token, @NonNull final String key, @NonNull final String folder, @Nullable final String name, @Nullable final MediaType type, final long length) {
+        return api.doCreateUpload(token, folder, name, new UploadSessionCreate(length, type != null ? type.toString() : null)).flatMap(result -> {
+            if (result.isSuccessful() && result.getResult() != null && result.getResult().getId() != null) {
+                final UploadState state = new UploadState(result.getResult().getId(), length, chunkSize);
+                state.acknowledgeUpTo(result.getResult().getOffset());
+                store.call().save(key, state);
+                return Observable.just(state);
+            } else {
+                return Observable.error(new UploadFailedException(result));
+            }
+        });
+    }
+
+    /**
+     * Uploads chunks not acknowledged by the services yet, saving the upload state after each acknowledged chunk.
+     *
+     * @param token    Comapi access token.
+     * @param key      Key identifying the content.
+     * @param state    Upload state.
+     * @param source   Random access to the content.
+     * @param type     Mime type of the content.
+     * @param listener Listener for upload progress.
+     * @return Observable emitting index of each acknowledged chunk.
+     */
+    private Observable<Integer> uploadChunks(@NonNull final String token, @NonNull final String key, @NonNull final UploadState state, @NonNull final ChunkSource source, @Nullable final MediaType type, @Nullable final UploadProgressListener listener) {
+
+        final List<Integer> pending = state.getPendingChunks();
+        long remaining = 0;
+        for (Integer index : pending) {
+            remaining += state.getChunkLength(index);
+        }
+        final AtomicLong written = new AtomicLong(state.getSize() - remaining);
+        if (listener != null && written.get() > 0) {
+            listener.onProgress(written.get(), state.getSize());
+        }
+
+        return Observable.from(pending).flatMap(index -> uploadChunk(token, state, source, type, index)
+                .map(result -> {
+                    if (!result.isSuccessful()) {
+                        throw new UploadFailedException(result);
+                    }
+                    state.acknowledge(index);
+                    store.call().save(key, state);
+                    final long total = written.addAndGet(state.getChunkLength(index));
+                    if (listener != null) {
+                        listener.onProgress(total, state.getSize());
+                    }
+                    return index;
+                }), parallelism);
+    }
+
+    /**
+     * Uploads single chunk, sending it again after network errors.
+     *
+     * @param token  Comapi access token.
+     * @param state  Upload state.
+     * @param source Random access to the content.
+     * @param type   Mime type of the content.
+     * @param index  Chunk index.
+     * @return Observable emitting the service response.
+     */
+    private Observable<ComapiResult<UploadSession>> uploadChunk(@NonNull final String token, @NonNull final UploadState state, @NonNull final ChunkSource source, @Nullable final MediaType type, final int index) {
+        return Observable.defer(() -> {
+            final byte[] bytes;
+            try {
+                bytes = source.read(state.getChunkStart(index), state.getChunkLength(index));
+            } catch (IOException e) {
+                return Observable.error(e);
+            }
+            return api.doUploadChunk(token, state.getUploadId(), state.getChunkStart(index), state.getSize(), RequestBody.create(type, bytes));
+        }).retryWhen(errors -> errors.zipWith(Observable.range(1, MAX_CHUNK_RETRIES + 1), (t, attempt) ->
+                attempt <= MAX_CHUNK_RETRIES && t instanceof IOException ? Observable.timer(RETRY_DELAY * attempt, TimeUnit.MILLISECONDS, scheduler) : Observable.<Long>error(t))
+                .flatMap(retry -> retry));
+    }
+
+    /**
+     * Carries unsuccessful service response out of the upload pipeline.
+     */
+    private static class UploadFailedException extends RuntimeException {
+
+        private final ComapiResult result;
+
+        UploadFailedException(ComapiResult result) {
+            super("Chunked upload failed (" + result.getCode() + ") " + result.getMessage());
+            this.result = result;
+        }
+    }
+}
@@ -20,11 +20,15 @@
 
 package com.comapi.internal.network;
 
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import java.io.File;
+import java.io.InputStream;
 
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
@@ -41,6 +45,8 @@ public class ContentData {
 
     private String name;
 
+    private ChunkSource chunks;
+
     /**
      * Create data object to send from a file.
      *
@@ -49,7 +55,7 @@ public class ContentData {
      * @return Data object to send.
      */
     public static ContentData create(@NonNull File data, @NonNull String type, @Nullable String name) {
-        return new ContentData(RequestBody.create(MediaType.parse(type), data), TextUtils.isEmpty(name) ? data.getName() : name);
+        return new ContentData(RequestBody.create(MediaType.parse(type), data), TextUtils.isEmpty(name) ? data.getName() : name, ChunkSource.create(data));
     }
 
     /**
@@ -60,7 +66,7 @@ public class ContentData {
      * @return Data object to send.
      */
     public static ContentData create(byte[] data, String type, @Nullable String name) {
-        return new ContentData(RequestBody.create(MediaType.parse(type), data), name);
+        return new ContentData(RequestBody.create(MediaType.parse(type), data), name, ChunkSource.create(data));
     }
 
     /**
@@ -71,12 +77,67 @@ public class ContentData {
      * @return Data object to send.
      */
     public static ContentData create(String data, String type, @Nullable String name) {
-        return new ContentData(RequestBody.create(MediaType.parse(type), data), name);
+        return new ContentData(RequestBody.create(MediaType.parse(type), data), name, null);
+    }
+
+    /**
+     * Create data object to send from a stream. The content is streamed to the services without keeping it in memory and the stream is closed once
+     * read. The stream can be read only once, so the upload cannot be repeated e.g. after re-authentication.
+     *
+     * @param data   Stream with the data to upload.
+     * @param length Length of the data in bytes or -1 if unknown.
+     * @param type   Mime type of the data.
+     * @param name   Name of the content.
+     * @return Data object to send.
+     */
+    public static ContentData create(@NonNull InputStream data, long length, @NonNull String type, @Nullable String name) {
+        return new ContentData(StreamingRequestBody.create(MediaType.parse(type), data, length), name, null);
+    }
+
+    /**
+     * Create data object to send from a stream of unknown length. The content is streamed to the services without keeping it in memory and the stream
+     * is closed once read. The stream can be read only once, so the upload cannot be repeated e.g. after re-authentication.
+     *
+     * @param data Stream with the data to upload.
+     * @param type Mime type of the data.
+     * @param name Name of the content.
+     * @return Data object to send.
+     */
+    public static ContentData create(@NonNull InputStream data, @NonNull String type, @Nullable String name) {
+        return create(data, -1, type, name);
+    }
+
+    /**
+     * Create data object to send from a file descriptor, e.g. obtained from {@link ContentResolver#openFileDescriptor(Uri, String)}. The content is
+     * streamed to the services without keeping it in memory. The descriptor is not closed by the SDK and should be closed once the upload finishes.
+     *
+     * @param data File descriptor with the data to upload.
+     * @param type Mime type of the data.
+     * @param name Name of the content.
+     * @return Data object to send.
+     */
+    public static ContentData create(@NonNull ParcelFileDescriptor data, @NonNull String type, @Nullable String name) {
+        return new ContentData(StreamingRequestBody.create(MediaType.parse(type), data), name, null);
+    }
+
+    /**
+     * Create data object to send from a content Uri, e.g. an image or video picked from the gallery. The content is streamed to the services without
+     * keeping it in memory.
+     *
+     * @param resolver Content resolver to open the Uri.
+     * @param data     Uri of the data to upload.
+     * @param type     Mime type of the data.
+     * @param name     Name of the content.
+     * @return Data object to send.
+     */
+    public static ContentData create(@NonNull ContentResolver resolver, @NonNull Uri data, @NonNull String type, @Nullable String name) {
+        return new ContentData(StreamingRequestBody.create(MediaType.parse(type), resolver, data), name, ChunkSource.create(resolver, data));
     }
 
-    private ContentData(RequestBody body, String name) {
+    private ContentData(RequestBody body, String name, ChunkSource chunks) {
         this.body = body;
         this.name = name;
+        this.chunks = chunks;
     }
 
     /**
@@ -88,6 +149,26 @@ public class ContentData {
         return body;
     }
 
+    /**
+     * Request body for REST API to upload the content data notifying about the upload progress.
+     *
+     * @param listener Listener for upload progress.
+     * @return Request body for REST API.
+     */
+    RequestBody getBody(@Nullable UploadProgressListener listener) {
+        return listener != null ? new ProgressRequestBody(body, listener) : body;
+    }
+
+    /**
+     * Random access to the content data for chunked, resumable uploads.
+     *
+     * @return Chunk source or null if the content can only be read as a stream.
+     */
+    @Nullable
+    ChunkSource getChunks() {
+        return chunks;
+    }
+
     /**
      * Get name for the content.
      *
@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Conditional GET cache. Stores bodies of GET responses with an ETag in memory, sends If-None-Match for subsequent requests
+ * to the same URL and returns the stored body if the services respond with 304 Not Modified. Only conversation, profile and
+ * participant reads are cached, message and event queries are large and rarely repeated.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class ETagCacheInterceptor implements Interceptor {
+
+    private static final String HEADER_ETAG = "ETag";
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private static final String METHOD_GET = "GET";
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final String SEGMENT_API_SPACES = "apispaces";
+
+    private static final String SEGMENT_PROFILES = "profiles";
+
+    private static final String SEGMENT_CONVERSATIONS = "conversations";
+
+    private static final String SEGMENT_PARTICIPANTS = "participants";
+
+    /**
+     * Responses bigger than this won't be stored.
+     */
+    static final int MAX_ENTRY_SIZE = 256 * 1024;
+
+    /**
+     * Maximum size of all stored responses.
+     */
+    static final int MAX_CACHE_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * Stored responses in least recently used order.
+     */
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+
+        Request request = chain.request();
+        final String key = request.url().toString();
+
+        if (!METHOD_GET.equals(request.method())) {
+            // Resource is about to be modified.
+            remove(key);
+            return chain.proceed(request);
+        }
+
+        if (request.header(HEADER_IF_NONE_MATCH) != null || !isCacheable(request.url())) {
+            return chain.proceed(request);
+        }
+
+        final Entry cached = get(key);
+        if (cached != null) {
+            request = request.newBuilder().header(HEADER_IF_NONE_MATCH, cached.eTag).build();
+        }
+
+        Response response = chain.proceed(request);
+
+        if (response.code() == HTTP_NOT_MODIFIED && cached != null) {
+            if (response.body() != null) {
+                response.body().close();
+            }
+            return response.newBuilder()
+                    .code(200)
+                    .message("OK")
+                    .header(HEADER_ETAG, cached.eTag)
+                    .body(ResponseBody.create(cached.contentType, cached.body))
+                    .build();
+        }
+
+        final String eTag = response.header(HEADER_ETAG);
+        final ResponseBody body = response.body();
+        if (response.isSuccessful() && eTag != null && body != null && body.contentLength() <= MAX_ENTRY_SIZE) {
+            final MediaType contentType = body.contentType();
+            final byte[] bytes = body.bytes();
+            if (bytes.length <= MAX_ENTRY_SIZE) {
+                put(key, new Entry(eTag, contentType, bytes));
+            } else {
+                remove(key);
+            }
+            return response.newBuilder().body(ResponseBody.create(contentType, bytes)).build();
+        } else {
+            remove(key);
+        }
+
+        return response;
+    }
+
+    /**
+     * Checks if the url points to a conversation, profile or participants resource, e.g. /apispaces/{apiSpaceId}/conversations/{conversationId}/participants.
+     *
+     * @param url Request url.
+     * @return True if responses for the url should be cached.
+     */
+    static boolean isCacheable(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        if (segments.size() < 3 || !SEGMENT_API_SPACES.equals(segments.get(0))) {
+            return false;
+        }
+        final String resource = segments.get(2);
+        switch (segments.size()) {
+            case 3:
+            case 4:
+                return SEGMENT_PROFILES.equals(resource) || SEGMENT_CONVERSATIONS.equals(resource);
+            case 5:
+                return SEGMENT_CONVERSATIONS.equals(resource) && SEGMENT_PARTICIPANTS.equals(segments.get(4));
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Removes all stored responses.
+     */
+    synchronized void clear() {
+        cache.clear();
+        size = 0;
+    }
+
+    private synchronized Entry get(String key) {
+        return cache.get(key);
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry previous = cache.put(key, entry);
+        if (previous != null) {
+            size -= previous.body.length;
+        }
+        size += entry.body.length;
+        Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+        while (size > MAX_CACHE_SIZE && iterator.hasNext()) {
+            size -= iterator.next().getValue().body.length;
+            iterator.remove();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Entry previous = cache.remove(key);
+        if (previous != null) {
+            size -= previous.body.length;
+        }
+    }
+
+    /**
+     * Stored response.
+     */
+    private static class Entry {
+
+        final String eTag;
+
+        final MediaType contentType;
+
+        final byte[] body;
+
+        Entry(String eTag, MediaType contentType, byte[] body) {
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 
 package com.comapi.internal.network;
 
+import android.content.Context;
 import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -40,6 +41,7 @@ import com.comapi.internal.ListenerListAdapter;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.data.SessionData;
 import com.comapi.internal.helpers.APIHelper;
+import com.comapi.internal.lifecycle.LifecycleListener;
 import com.comapi.internal.log.LogLevel;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.api.ComapiService;
@@ -59,15 +61,25 @@ import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.profile.ComapiProfile;
+import com.comapi.internal.network.sockets.RetryStrategy;
 import com.comapi.internal.network.sockets.SocketController;
+import com.comapi.internal.network.sockets.SocketEventDispatcher;
 import com.comapi.internal.push.PushManager;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import rx.Observable;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
 
 /**
  * Manages all service calls checking session state and redirecting to appropriate controllers.
@@ -77,6 +89,56 @@ import rx.Observable;
  */
 public class InternalService extends ServiceQueue implements ComapiService, RxComapiService {
 
+    /**
+     * Profile key used to query multiple profiles.
+     */
+    private static final String KEY_PROFILE_ID = "id";
+
+    /**
+     * Maximum length of the profile ids part of a profile query URL.
+     */
+    private static final int MAX_PROFILE_QUERY_LENGTH = 1500;
+
+    /**
+     * Maximum number of profile queries executed in parallel when obtaining multiple profiles.
+     */
+    private static final int MAX_CONCURRENT_PROFILE_QUERIES = 4;
+
+    /**
+     * Default time in milliseconds for which message status updates are collected before being sent.
+     */
+    public static final long DEFAULT_STATUS_BATCHING_WINDOW = MessageStatusBatcher.DEFAULT_WINDOW;
+
+    /**
+     * Default maximum number of message ids sent in a single status update.
+     */
+    public static final int DEFAULT_STATUS_BATCH_SIZE = MessageStatusBatcher.DEFAULT_MAX_BATCH_SIZE;
+
+    /**
+     * Default minimum time in milliseconds between 'typing' events sent for a conversation.
+     */
+    public static final long DEFAULT_TYPING_INTERVAL = TypingStateManager.DEFAULT_INTERVAL;
+
+    /**
+     * Default time in milliseconds after the last 'typing' call when the 'typing off' event is sent.
+     */
+    public static final long DEFAULT_TYPING_IDLE_TIMEOUT = TypingStateManager.DEFAULT_IDLE_TIMEOUT;
+
+    /**
+     * Default minimum content size in bytes uploaded in resumable chunks.
+     */
+    public static final long DEFAULT_CHUNKED_UPLOAD_THRESHOLD = ChunkedUploader.DEFAULT_THRESHOLD;
+
+    /**
+     * Default chunk size in bytes for chunked uploads.
+     */
+    public static final int DEFAULT_UPLOAD_CHUNK_SIZE = ChunkedUploader.DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Default maximum number of chunks of a single upload sent in parallel.
+     */
+    public static final int DEFAULT_UPLOAD_PARALLELISM = ChunkedUploader.DEFAULT_PARALLELISM;
+
     private final PushManager pushMgr;
 
     /**
@@ -89,11 +151,36 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
 
     private SessionController sessionController;
 
+    /**
+     * Recently obtained profile details.
+     */
+    final ProfileCache profileCache = new ProfileCache();
+
     /**
      * App package name.
      */
     private final String packageName;
 
+    /**
+     * Number of outbound calls (sending messages, uploading content) in progress.
+     */
+    private final AtomicInteger pendingOutbound = new AtomicInteger();
+
+    /**
+     * Collects message status updates to send them in batches. Null if batching is disabled.
+     */
+    private volatile MessageStatusBatcher statusBatcher;
+
+    /**
+     * Throttles 'user is typing' events. Null if throttling is disabled.
+     */
+    private volatile TypingStateManager typingManager;
+
+    /**
+     * Persistent outbox for sent messages. Null if disabled.
+     */
+    private MessageOutbox outbox;
+
     /**
      * Recommended constructor.
      *
@@ -125,6 +212,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
             protected Observable<SessionData> restartSession() {
                 return reAuthenticate();
             }
+
+            @Override
+            protected Observable<SessionData> restartSession(String rejectedToken) {
+                return wrapObservable(sessionController.refreshSession(rejectedToken));
+            }
         };
 
         restClient = new RestClient(new OkHttpAuthenticator(authManager), logLevelNet, baseURIs.getService().toString());
@@ -154,21 +246,62 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
                                                          @NonNull Handler handler,
                                                          boolean fcmEnabled, @NonNull
                                                          final ISessionListener sessionListener) {
-        sessionController = new SessionController(sessionCreateManager, pushMgr, state, dataMgr, auth, restApi, packageName, handler, log, getTaskQueue(), fcmEnabled, sessionListener);
+        return initialiseSessionController(sessionCreateManager, pushMgr, state, auth, restApi, handler, fcmEnabled, sessionListener, SessionController.DEFAULT_RENEWAL_FRACTION);
+    }
+
+    /**
+     * Initialise controller for creating and managing session.
+     *
+     * @param sessionCreateManager Manager for the process of creation of a new session
+     * @param pushMgr              Push messaging manager.
+     * @param state                SDK global state.
+     * @param auth                 ComapiImplementation calls authentication request callback
+     * @param restApi              Rest API definitions.
+     * @param handler              Main thread handler.
+     * @param fcmEnabled           True if Firebase initialised and configured.
+     * @param sessionListener      Listener for new sessions.
+     * @param renewalFraction      Fraction of the access token lifetime after which the session will be renewed.
+     * @return Controller for creating and managing session.
+     */
+    public SessionController initialiseSessionController(@NonNull SessionCreateManager sessionCreateManager,
+                                                         @NonNull PushManager pushMgr,
+                                                         @NonNull AtomicInteger state,
+                                                         @NonNull ComapiAuthenticator auth,
+                                                         @NonNull RestApi restApi,
+                                                         @NonNull Handler handler,
+                                                         boolean fcmEnabled, @NonNull
+                                                         final ISessionListener sessionListener,
+                                                         float renewalFraction) {
+        sessionController = new SessionController(sessionCreateManager, pushMgr, state, dataMgr, auth, restApi, packageName, handler, log, getTaskQueue(), fcmEnabled, sessionListener, renewalFraction);
         return sessionController;
     }
 
     /**
      * Initialise client for managing socket connections.
      *
-     * @param sessionController Controller for creating and managing session.
-     * @param listener          Listener for socket events.
-     * @param baseURIs          APIs baseURIs.
+     * @param sessionController  Controller for creating and managing session.
+     * @param listener           Listener for socket events.
+     * @param baseURIs           APIs baseURIs.
+     * @param eventsExecutor     Executor on which socket event listeners will be notified. If null events will be delivered on a dedicated background thread.
+     * @param coalescingWindow   Time window in milliseconds in which typing and message status events are collected before being passed to listeners. Zero to deliver them immediately.
+     * @param retryStrategy      Strategy for socket reconnection. If null exponential backoff with jitter will be used.
+     * @param backgroundLinger   Time in milliseconds for which the socket stays connected after the app goes to background.
+     * @param maxLingerExtension Maximum time in milliseconds by which the background linger is extended while messages are being sent or content uploaded.
      * @return Client for managing socket connections.
      */
-    public SocketController initialiseSocketClient(@NonNull SessionController sessionController, ListenerListAdapter listener, APIConfig.BaseURIs baseURIs) {
-        SocketController socketController = new SocketController(dataMgr, listener, log, baseURIs.getSocket(), baseURIs.getProxy());
+    public SocketController initialiseSocketClient(@NonNull SessionController sessionController, ListenerListAdapter listener, APIConfig.BaseURIs baseURIs, @Nullable Executor eventsExecutor, long coalescingWindow, @Nullable RetryStrategy retryStrategy, long backgroundLinger, long maxLingerExtension) {
+        SocketController socketController = new SocketController(dataMgr, listener, log, baseURIs.getSocket(), baseURIs.getProxy(), eventsExecutor != null ? eventsExecutor : SocketEventDispatcher.createDefaultExecutor(), coalescingWindow, retryStrategy != null ? retryStrategy : SocketController.createDefaultRetryStrategy());
+        socketController.setBackgroundLinger(backgroundLinger, maxLingerExtension, this::hasPendingOutbound);
         sessionController.setSocketController(socketController);
+        if (restClient != null) {
+            socketController.addNetworkListener(restClient);
+        }
+        listener.addListener(profileCache);
+        if (outbox != null) {
+            socketController.addNetworkListener(outbox);
+            listener.addListener(outbox);
+            outbox.resume();
+        }
         if (isSessionValid()) {
             socketController.connectSocket();
         }
@@ -181,7 +314,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @return True if session was started.
      */
     public Observable<Session> startSession() {
-        return wrapObservable(sessionController.startSession().map(Session::new));
+        return wrapObservable(sessionController.startSession().doOnNext(session -> {
+            if (outbox != null) {
+                outbox.resume();
+            }
+        }).map(Session::new));
     }
 
     /**
@@ -200,7 +337,14 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      */
     public Observable<ComapiResult<Void>> endSession() {
         if (isSessionValid()) {
-            return wrapObservable(sessionController.endSession().map(mapToComapiResult()));
+            return wrapObservable(sessionController.endSession().map(mapToComapiResult()).doOnNext(result -> {
+                restClient.clearCache();
+                profileCache.clear();
+                if (outbox != null) {
+                    outbox.clear();
+                }
+                dataMgr.getUploadDAO().removeAll();
+            }));
         } else {
             //return Observable.onError(getSessionStateErrorDescription());
             return Observable.just(null);
@@ -220,7 +364,7 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @return Observable emitting new session.
      */
     public Observable<SessionData> reAuthenticate() {
-        return wrapObservable(sessionController.reAuthenticate());
+        return wrapObservable(sessionController.refreshSession());
     }
 
     /**
@@ -271,11 +415,15 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queueGetProfile(profileId);
+            return getTaskQueue().queueGetProfile(profileId).doOnNext(result -> profileCache.put(profileId, result));
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doGetProfile(token, profileId);
+            final ComapiResult<Map<String, Object>> cached = profileCache.get(profileId);
+            if (cached != null) {
+                return Observable.just(cached);
+            }
+            return doGetProfile(token, profileId).doOnNext(result -> profileCache.put(profileId, result));
         }
     }
 
@@ -289,6 +437,20 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         adapter.adapt(getProfile(profileId), callback);
     }
 
+    /**
+     * Removes modified profile from the profile cache.
+     *
+     * @param result Result of profile update call.
+     */
+    private void invalidateProfile(ComapiResult<Map<String, Object>> result) {
+        Object profileId = result != null && result.getResult() != null ? result.getResult().get(KEY_PROFILE_ID) : null;
+        if (profileId instanceof String) {
+            profileCache.invalidate((String) profileId);
+        } else {
+            profileCache.clear();
+        }
+    }
+
     /**
      * Query user profiles on the services.
      *
@@ -330,11 +492,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queueUpdateProfile(profileDetails, eTag);
+            return getTaskQueue().queueUpdateProfile(profileDetails, eTag).doOnNext(this::invalidateProfile);
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doUpdateProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
+            return doUpdateProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag).doOnNext(this::invalidateProfile);
         }
     }
 
@@ -363,11 +525,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queuePatchProfile(profileDetails, eTag);
+            return getTaskQueue().queuePatchProfile(profileDetails, eTag).doOnNext(this::invalidateProfile);
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doPatchProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
+            return doPatchProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag).doOnNext(this::invalidateProfile);
         }
     }
 
@@ -697,13 +859,28 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
     }
 
     /**
-     * Send message to the chanel.
+     * Send message to the chanel. If the outbox is enabled the message is stored and sent again after network failures, see {@link #setMessageOutbox(boolean)}.
      *
      * @param conversationId ID of a conversation to send a message to.
      * @param message        Message to be send.
      * @return Observable to send message to a conversation.
      */
     public Observable<ComapiResult<MessageSentResponse>> sendMessage(@NonNull final String conversationId, @NonNull final MessageToSend message) {
+        if (outbox != null) {
+            return outbox.send(conversationId, message);
+        } else {
+            return trackOutbound(sendMessageNow(conversationId, message));
+        }
+    }
+
+    /**
+     * Send message to the conversation without storing it in the outbox.
+     *
+     * @param conversationId ID of a conversation to send a message to.
+     * @param message        Message to be send.
+     * @return Observable to send message to a conversation.
+     */
+    private Observable<ComapiResult<MessageSentResponse>> sendMessageNow(@NonNull final String conversationId, @NonNull final MessageToSend message) {
 
         final String token = getToken();
 
@@ -762,6 +939,18 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         adapter.adapt(uploadContent(folder, data), callback);
     }
 
+    /**
+     * Upload content data notifying about the upload progress.
+     *
+     * @param folder   Folder name to put the file in.
+     * @param data     Content data.
+     * @param listener Listener for upload progress, called on a background thread.
+     * @param callback Callback with the details of uploaded content.
+     */
+    public void uploadContent(@NonNull final String folder, @NonNull final ContentData data, @Nullable final UploadProgressListener listener, @Nullable Callback<ComapiResult<UploadContentResponse>> callback) {
+        adapter.adapt(uploadContent(folder, data, listener), callback);
+    }
+
     /**
      * Upload content data.
      *
@@ -770,20 +959,131 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @return Observable emitting details of uploaded content.
      */
     public Observable<ComapiResult<UploadContentResponse>> uploadContent(@NonNull final String folder, @NonNull final ContentData data) {
+        return uploadContent(folder, data, (UploadProgressListener) null);
+    }
+
+    /**
+     * Upload content data notifying about the upload progress. Large content is uploaded in resumable chunks if enabled, see {@link #setChunkedUpload(long, int, int)}.
+     *
+     * @param folder   Folder name to put the file in.
+     * @param data     Content data.
+     * @param listener Listener for upload progress, called on a background thread.
+     * @return Observable emitting details of uploaded content.
+     */
+    public Observable<ComapiResult<UploadContentResponse>> uploadContent(@NonNull final String folder, @NonNull final ContentData data, @Nullable final UploadProgressListener listener) {
 
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queueUploadContent(folder, data);
+            return trackOutbound(getTaskQueue().queueUploadContent(folder, data, listener));
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doUploadContent(token, folder, data.getName(), data);
+            return trackOutbound(doUploadContentResumable(token, folder, data, listener));
         }
     }
 
     /**
-     * Sets statuses for sets of messages.
+     * Counts outbound call as pending while it is subscribed.
+     *
+     * @param obs Outbound call.
+     * @param <T> Type of the call result.
+     * @return Observable for the outbound call.
+     */
+    private <T> Observable<T> trackOutbound(Observable<T> obs) {
+        return Observable.defer(() -> {
+            pendingOutbound.incrementAndGet();
+            final AtomicBoolean isFinished = new AtomicBoolean();
+            final Action0 finish = () -> {
+                if (isFinished.compareAndSet(false, true)) {
+                    pendingOutbound.decrementAndGet();
+                }
+            };
+            return obs.doAfterTerminate(finish).doOnUnsubscribe(finish);
+        });
+    }
+
+    /**
+     * Checks if messages are being sent or content uploaded.
+     *
+     * @return True if there are outbound calls in progress.
+     */
+    boolean hasPendingOutbound() {
+        return pendingOutbound.get() > 0;
+    }
+
+    /**
+     * Enables collecting message status updates and sending them in batches per conversation and status.
+     *
+     * @param window       Time in milliseconds for which message status updates are collected before being sent. Zero to send them immediately.
+     * @param maxBatchSize Maximum number of message ids sent in a single status update.
+     */
+    public void setMessageStatusBatching(long window, int maxBatchSize) {
+        final MessageStatusBatcher previous = statusBatcher;
+        statusBatcher = window > 0 ? new MessageStatusBatcher(this::sendMessageStatus, Schedulers.computation(), window, maxBatchSize) : null;
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    /**
+     * Enables persistent outbox for sent messages. Messages are stored on the device until the services accept or reject them and are sent again
+     * in the original order per conversation after network failures or application restart. Must be called before the socket client is initialised.
+     *
+     * @param isEnabled True to enable the outbox.
+     */
+    public void setMessageOutbox(boolean isEnabled) {
+        outbox = isEnabled ? new MessageOutbox((conversationId, message) -> trackOutbound(sendMessageNow(conversationId, message)), dataMgr::getOutboxDAO, Schedulers.io(), log) : null;
+    }
+
+    /**
+     * Enables throttling of 'user is typing' events. For each conversation 'typing' event is sent at most once per interval
+     * and 'typing off' event is sent automatically after the idle timeout.
+     *
+     * @param interval    Minimum time in milliseconds between 'typing' events sent for a conversation. Zero to send every event.
+     * @param idleTimeout Time in milliseconds after the last 'typing' call when the 'typing off' event is sent. Zero to never send it automatically.
+     */
+    public void setTypingThrottling(long interval, long idleTimeout) {
+        final TypingStateManager previous = typingManager;
+        typingManager = interval > 0 ? new TypingStateManager(this::sendIsTyping, Schedulers.computation(), interval, idleTimeout) : null;
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    /**
+     * Sends all collected message status updates.
+     */
+    public void flushMessageStatusUpdates() {
+        final MessageStatusBatcher batcher = statusBatcher;
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    /**
+     * Creates listener for application lifecycle, sending collected message status updates when the app goes to background.
+     *
+     * @return Listener for application lifecycle.
+     */
+    public LifecycleListener createLifecycleListener() {
+        return new LifecycleListener() {
+
+            @Override
+            public void onForegrounded(Context context) {
+
+            }
+
+            @Override
+            public void onBackgrounded(Context context) {
+                flushMessageStatusUpdates();
+            }
+        };
+    }
+
+    /**
+     * Sets statuses for sets of messages. If batching is enabled the updates are merged with other updates for the same
+     * conversation and status, see {@link #setMessageStatusBatching(long, int)}.
      *
      * @param conversationId ID of a conversation to modify.
      * @param msgStatusList  List of status modifications.
@@ -791,6 +1091,23 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      */
     public Observable<ComapiResult<Void>> updateMessageStatus(@NonNull final String conversationId, @NonNull final List<MessageStatusUpdate> msgStatusList) {
 
+        final MessageStatusBatcher batcher = statusBatcher;
+        if (batcher != null) {
+            return batcher.add(conversationId, msgStatusList);
+        } else {
+            return sendMessageStatus(conversationId, msgStatusList);
+        }
+    }
+
+    /**
+     * Sends statuses for sets of messages without batching.
+     *
+     * @param conversationId ID of a conversation to modify.
+     * @param msgStatusList  List of status modifications.
+     * @return Observable to modify message statuses.
+     */
+    private Observable<ComapiResult<Void>> sendMessageStatus(@NonNull final String conversationId, @NonNull final List<MessageStatusUpdate> msgStatusList) {
+
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
@@ -896,7 +1213,7 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doQueryMessages(token, conversationId, from, limit);
+            return getMessageSync().queryMessages(token, conversationId, from, limit);
         }
     }
 
@@ -919,14 +1236,7 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @return Observable to send event.
      */
     public Observable<ComapiResult<Void>> isTyping(@NonNull final String conversationId) {
-
-        final String token = getToken();
-
-        if (sessionController.isCreatingSession() || TextUtils.isEmpty(token)) {
-            return Observable.error(getSessionStateErrorDescription());
-        } else {
-            return doIsTyping(token, conversationId, true);
-        }
+        return isTyping(conversationId, true);
     }
 
     /**
@@ -940,7 +1250,8 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
     }
 
     /**
-     * Send participant typing type of event for a specified conversation.
+     * Send participant typing type of event for a specified conversation. If throttling is enabled redundant events are
+     * not sent, see {@link #setTypingThrottling(long, long)}.
      *
      * @param conversationId ID of a conversation.
      * @param isTyping       True if participant is typing, false if he has stopped typing.
@@ -948,6 +1259,23 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      */
     public Observable<ComapiResult<Void>> isTyping(@NonNull final String conversationId, final boolean isTyping) {
 
+        final TypingStateManager manager = typingManager;
+        if (manager != null) {
+            return manager.setTyping(conversationId, isTyping);
+        } else {
+            return sendIsTyping(conversationId, isTyping);
+        }
+    }
+
+    /**
+     * Send participant typing type of event for a specified conversation without throttling.
+     *
+     * @param conversationId ID of a conversation.
+     * @param isTyping       True if participant is typing, false if he has stopped typing.
+     * @return Observable to send event.
+     */
+    private Observable<ComapiResult<Void>> sendIsTyping(@NonNull final String conversationId, final boolean isTyping) {
+
         final String token = getToken();
 
         if (sessionController.isCreatingSession() || TextUtils.isEmpty(token)) {
@@ -1069,6 +1397,91 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
             });
         }
 
+        /**
+         * Get details of multiple profiles from the service. Ids are split into as few profile queries as the URL length allows and the queries are executed concurrently.
+         *
+         * @param profileIds Profile Ids of the users.
+         * @return Observable emitting profile details mapped by profile id. Ids of profiles that were not found or failed to load are mapped to null.
+         */
+        public Observable<ComapiResult<Map<String, ComapiProfile>>> getProfiles(@NonNull final Collection<String> profileIds) {
+
+            final Set<String> ids = new LinkedHashSet<>();
+            for (String id : profileIds) {
+                if (!TextUtils.isEmpty(id)) {
+                    ids.add(id);
+                }
+            }
+
+            if (ids.isEmpty()) {
+                return Observable.just(new ComapiResult<>(new HashMap<>(), true, null, 200, null, null));
+            }
+
+            return Observable.from(splitProfileIds(ids))
+                    .flatMap(chunk -> queryProfiles(new QueryBuilder().inArray(KEY_PROFILE_ID, chunk).build()), MAX_CONCURRENT_PROFILE_QUERIES)
+                    .toList()
+                    .map(results -> mergeProfileResults(ids, results));
+        }
+
+        /**
+         * Splits profile ids into lists small enough to fit in a single profile query URL.
+         *
+         * @param ids Profile ids.
+         * @return Chunks of profile ids.
+         */
+        private List<List<String>> splitProfileIds(@NonNull final Collection<String> ids) {
+            List<List<String>> chunks = new ArrayList<>();
+            List<String> chunk = new ArrayList<>();
+            int length = 0;
+            for (String id : ids) {
+                // '&id[]=' + id
+                int idLength = KEY_PROFILE_ID.length() + 4 + id.length();
+                if (!chunk.isEmpty() && length + idLength > MAX_PROFILE_QUERY_LENGTH) {
+                    chunks.add(chunk);
+                    chunk = new ArrayList<>();
+                    length = 0;
+                }
+                chunk.add(id);
+                length += idLength;
+            }
+            chunks.add(chunk);
+            return chunks;
+        }
+
+        /**
+         * Merges results of profile queries into a single result. Unsuccessful if any of the queries failed.
+         *
+         * @param ids     Requested profile ids.
+         * @param results Profile query results.
+         * @return Profile details mapped by profile id.
+         */
+        private ComapiResult<Map<String, ComapiProfile>> mergeProfileResults(@NonNull final Set<String> ids, @NonNull final List<ComapiResult<List<ComapiProfile>>> results) {
+
+            Map<String, ComapiProfile> profiles = new HashMap<>();
+            for (String id : ids) {
+                profiles.put(id, null);
+            }
+
+            ComapiResult<List<ComapiProfile>> failed = null;
+            for (ComapiResult<List<ComapiProfile>> result : results) {
+                if (result.isSuccessful()) {
+                    for (ComapiProfile profile : result.getResult()) {
+                        if (profile.getId() != null && profiles.containsKey(profile.getId())) {
+                            profiles.put(profile.getId(), profile);
+                        }
+                    }
+                } else if (failed == null) {
+                    failed = result;
+                }
+            }
+
+            if (failed != null) {
+                log.w("Failed to obtain some of the requested profiles. " + failed.getCode() + " " + failed.getMessage());
+                return new ComapiResult<>(profiles, false, null, failed.getCode(), failed.getMessage(), failed.getErrorBody());
+            }
+
+            return new ComapiResult<>(profiles, true, null, 200, null, null);
+        }
+
         /**
          * Updates profile for an active session.
          *
@@ -1135,6 +1548,16 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
             adapter.adapt(service.queryProfiles(queryString), callback);
         }
 
+        /**
+         * Get details of multiple profiles from the service. Ids are split into as few profile queries as the URL length allows and the queries are executed concurrently.
+         *
+         * @param profileIds Profile Ids of the users.
+         * @param callback   Profile details mapped by profile id. Ids of profiles that were not found or failed to load are mapped to null.
+         */
+        public void getProfiles(@NonNull final Collection<String> profileIds, @Nullable Callback<ComapiResult<Map<String, ComapiProfile>>> callback) {
+            adapter.adapt(service.getProfiles(profileIds), callback);
+        }
+
         /**
          * Updates profile for an active session.
          *
@@ -0,0 +1,412 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+
+import com.comapi.MessagingListener;
+import com.comapi.internal.ComapiException;
+import com.comapi.internal.NetworkConnectivityListener;
+import com.comapi.internal.Parser;
+import com.comapi.internal.data.OutboxDAO;
+import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
+import com.comapi.internal.network.model.messaging.MessageSentResponse;
+import com.comapi.internal.network.model.messaging.MessageToSend;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Func0;
+import rx.functions.Func2;
+import rx.subjects.AsyncSubject;
+
+/**
+ * Persistent outbox for sent messages. Messages are stored before being sent and removed once the services accepted or rejected them, so they survive network
+ * failures and application restarts. Each message gets a client id in its metadata. Messages to a conversation are sent one at a time in the order they were
+ * added, failed calls are retried with exponential backoff and immediately when the network becomes available. Retries are paused while the network is
+ * unavailable and network failures are retried until the message is sent, only error responses from the services count towards {@link #MAX_ATTEMPTS}.
+ * Messages are not retried when there is no active session. A message is considered sent when a {@link MessageSentEvent} with its client id arrives,
+ * so messages accepted by the services before the response was lost are not sent again.
+ * <p>
+ * All outbox state is accessed on a single worker thread.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class MessageOutbox extends MessagingListener implements NetworkConnectivityListener {
+
+    /**
+     * Message metadata key for the client id assigned by the SDK.
+     */
+    static final String KEY_CLIENT_ID = "_clientId";
+
+    /**
+     * Minimum delay in milliseconds before sending a message again.
+     */
+    static final long BASE_RETRY_DELAY = 1000;
+
+    /**
+     * Maximum delay in milliseconds before sending a message again.
+     */
+    static final long MAX_RETRY_DELAY = 60 * 1000;
+
+    /**
+     * Maximum number of error responses from the services for a message before it is removed from the outbox.
+     */
+    static final int MAX_ATTEMPTS = 10;
+
+    private final Func2<String, MessageToSend, Observable<ComapiResult<MessageSentResponse>>> sender;
+
+    private final Func0<OutboxDAO> store;
+
+    private final Scheduler.Worker worker;
+
+    private final Logger log;
+
+    private final Parser parser = new Parser();
+
+    private final Random random = new Random();
+
+    /**
+     * Send state per conversation with messages in the outbox.
+     */
+    private final Map<String, Queue> queues = new HashMap<>();
+
+    /**
+     * True if sending is paused because the network is unavailable.
+     */
+    private boolean isPaused;
+
+    /**
+     * Results for the callers who added messages since the process started.
+     */
+    private final ConcurrentMap<String, AsyncSubject<ComapiResult<MessageSentResponse>>> results = new ConcurrentHashMap<>();
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sender    Sends message to a conversation.
+     * @param store     Gets messages storage.
+     * @param scheduler Scheduler providing worker thread for the outbox.
+     * @param log       Internal logger.
+     */
+    MessageOutbox(@NonNull final Func2<String, MessageToSend, Observable<ComapiResult<MessageSentResponse>>> sender, @NonNull final Func0<OutboxDAO> store, @NonNull final Scheduler scheduler, @NonNull final Logger log) {
+        this.sender = sender;
+        this.store = store;
+        this.worker = scheduler.createWorker();
+        this.log = log;
+    }
+
+    /**
+     * Adds message to the outbox. The message is stored when the returned observable is subscribed and will be sent even if the subscriber unsubscribes.
+     * A copy of the message is tagged with a new client id, so the same message object can be sent again.
+     *
+     * @param conversationId ID of a conversation to send a message to.
+     * @param message        Message to be send.
+     * @return Observable emitting the result once the services accepted or rejected the message. Emits an error when there is no active session or
+     * the services responded with an error {@link #MAX_ATTEMPTS} times.
+     */
+    Observable<ComapiResult<MessageSentResponse>> send(@NonNull final String conversationId, @NonNull final MessageToSend message) {
+
+        return Observable.defer(() -> {
+
+            final String clientId = UUID.randomUUID().toString();
+            final MessageToSend tagged = parser.parse(parser.toJson(message), MessageToSend.class);
+            tagged.addMetadata(KEY_CLIENT_ID, clientId);
+
+            final AsyncSubject<ComapiResult<MessageSentResponse>> result = AsyncSubject.create();
+            results.put(clientId, result);
+
+            worker.schedule(() -> {
+                try {
+                    store.call().add(clientId, conversationId, tagged);
+                } catch (RuntimeException e) {
+                    log.f("Error storing message in the outbox for " + conversationId, e);
+                    results.remove(clientId);
+                    result.onError(e);
+                    return;
+                }
+                process(conversationId);
+            });
+
+            return result;
+        });
+    }
+
+    /**
+     * Starts sending messages remaining in the outbox, e.g. after the application restart or when a new session was created.
+     */
+    void resume() {
+        worker.schedule(() -> {
+            isPaused = false;
+            try {
+                for (String conversationId : store.call().getConversationIds()) {
+                    retryNow(conversationId);
+                }
+            } catch (RuntimeException e) {
+                log.f("Error reading the outbox.", e);
+            }
+        });
+    }
+
+    /**
+     * Deletes messages waiting to be sent, e.g. when the session ends.
+     */
+    void clear() {
+        worker.schedule(() -> {
+            for (Queue queue : queues.values()) {
+                queue.cancelRetry();
+            }
+            queues.clear();
+            store.call().clear();
+            for (String clientId : results.keySet()) {
+                AsyncSubject<ComapiResult<MessageSentResponse>> subject = results.remove(clientId);
+                if (subject != null) {
+                    subject.onError(new ComapiException("Session ended before the message was sent."));
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onNetworkActive() {
+        worker.schedule(() -> {
+            isPaused = false;
+            for (String conversationId : queues.keySet().toArray(new String[queues.size()])) {
+                retryNow(conversationId);
+            }
+        });
+    }
+
+    @Override
+    public void onNetworkUnavailable() {
+        worker.schedule(() -> {
+            isPaused = true;
+            for (Queue queue : queues.values()) {
+                queue.cancelRetry();
+            }
+        });
+    }
+
+    @Override
+    public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+        if (isValidated) {
+            onNetworkActive();
+        }
+    }
+
+    @Override
+    public void onMessage(MessageSentEvent event) {
+        final String clientId = getClientId(event.getMetadata());
+        if (clientId == null) {
+            return;
+        }
+        worker.schedule(() -> {
+            try {
+                if (store.call().remove(clientId)) {
+                    JsonObject response = new JsonObject();
+                    response.addProperty("id", event.getMessageId());
+                    response.addProperty("eventId", event.getConversationEventId());
+                    deliver(clientId, new ComapiResult<>(parser.parse(response, MessageSentResponse.class), true, null, 200, null, null));
+                    if (event.getContext() != null && event.getContext().getConversationId() != null) {
+                        Queue queue = queues.get(event.getContext().getConversationId());
+                        if (queue != null) {
+                            queue.attempts = 0;
+                        }
+                        retryNow(event.getContext().getConversationId());
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.f("Error updating the outbox.", e);
+            }
+        });
+    }
+
+    /**
+     * Sends the oldest message to a conversation if no other message to this conversation is being sent or waiting for retry and the network
+     * is not unavailable.
+     *
+     * @param conversationId ID of a conversation.
+     */
+    private void process(@NonNull final String conversationId) {
+
+        Queue queue = queues.get(conversationId);
+        if (queue == null) {
+            queue = new Queue();
+            queues.put(conversationId, queue);
+        }
+        if (queue.isSending || queue.retry != null || isPaused) {
+            return;
+        }
+
+        final OutboxDAO.Entry entry;
+        try {
+            entry = store.call().peek(conversationId);
+        } catch (RuntimeException e) {
+            log.f("Error reading the outbox for " + conversationId, e);
+            return;
+        }
+        if (entry == null) {
+            queues.remove(conversationId);
+            return;
+        }
+
+        final Queue sending = queue;
+        sending.isSending = true;
+        sender.call(conversationId, entry.getMessage()).subscribe(
+                result -> worker.schedule(() -> onResult(sending, entry, result)),
+                error -> worker.schedule(() -> onError(sending, entry, error)));
+    }
+
+    /**
+     * Removes message accepted or rejected by the services and sends the next one. Retries the message if the services were unavailable.
+     */
+    private void onResult(@NonNull final Queue queue, @NonNull final OutboxDAO.Entry entry, @NonNull final ComapiResult<MessageSentResponse> result) {
+        queue.isSending = false;
+        if (!result.isSuccessful() && isRetryable(result.getCode()) && (result.getCode() < 100 || ++queue.attempts < MAX_ATTEMPTS)) {
+            log.w("Sending message to " + entry.getConversationId() + " failed with code " + result.getCode() + ", will retry.");
+            scheduleRetry(queue, entry.getConversationId());
+        } else {
+            remove(queue, entry);
+            deliver(entry.getClientId(), result);
+            process(entry.getConversationId());
+        }
+    }
+
+    /**
+     * Retries the message after network errors. Removes the message if there is no active session or it cannot be sent.
+     */
+    private void onError(@NonNull final Queue queue, @NonNull final OutboxDAO.Entry entry, @NonNull final Throwable error) {
+        queue.isSending = false;
+        if (error instanceof IOException || (!(error instanceof ComapiException) && ++queue.attempts < MAX_ATTEMPTS)) {
+            log.w("Sending message to " + entry.getConversationId() + " failed, will retry. " + error.getMessage());
+            scheduleRetry(queue, entry.getConversationId());
+        } else {
+            log.e("Sending message to " + entry.getConversationId() + " failed. " + error.getMessage());
+            remove(queue, entry);
+            AsyncSubject<ComapiResult<MessageSentResponse>> subject = results.remove(entry.getClientId());
+            if (subject != null) {
+                subject.onError(error);
+            }
+            process(entry.getConversationId());
+        }
+    }
+
+    /**
+     * Removes message from the outbox after the last attempt to send it.
+     */
+    private void remove(@NonNull final Queue queue, @NonNull final OutboxDAO.Entry entry) {
+        try {
+            store.call().remove(entry.getClientId());
+        } catch (RuntimeException e) {
+            log.f("Error updating the outbox.", e);
+        }
+        queue.lastDelay = BASE_RETRY_DELAY;
+        queue.attempts = 0;
+    }
+
+    /**
+     * Schedules the next attempt to send messages to a conversation. Delay is a random value between the base delay and three times the previous delay.
+     */
+    private void scheduleRetry(@NonNull final Queue queue, @NonNull final String conversationId) {
+        if (isPaused) {
+            // sent when the network becomes available
+            return;
+        }
+        long upper = Math.max(BASE_RETRY_DELAY, Math.min(MAX_RETRY_DELAY, queue.lastDelay * 3));
+        queue.lastDelay = BASE_RETRY_DELAY + (long) (random.nextDouble() * (upper - BASE_RETRY_DELAY));
+        queue.retry = worker.schedule(() -> {
+            queue.retry = null;
+            process(conversationId);
+        }, queue.lastDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends messages to a conversation without waiting for the scheduled retry.
+     */
+    private void retryNow(@NonNull final String conversationId) {
+        Queue queue = queues.get(conversationId);
+        if (queue != null) {
+            queue.cancelRetry();
+        }
+        process(conversationId);
+    }
+
+    /**
+     * Delivers result to the caller who added the message.
+     */
+    private void deliver(@NonNull final String clientId, @NonNull final ComapiResult<MessageSentResponse> result) {
+        AsyncSubject<ComapiResult<MessageSentResponse>> subject = results.remove(clientId);
+        if (subject != null) {
+            subject.onNext(result);
+            subject.onCompleted();
+        }
+    }
+
+    /**
+     * Checks if the call should be repeated for the response code. Codes below 100 are not HTTP responses and are always retried, number of attempts
+     * for HTTP responses is limited by {@link #MAX_ATTEMPTS}.
+     */
+    private static boolean isRetryable(int code) {
+        return code < 100 || code == 401 || code == 408 || code == 429 || code >= 500;
+    }
+
+    private static String getClientId(Map<String, Object> metadata) {
+        Object id = metadata != null ? metadata.get(KEY_CLIENT_ID) : null;
+        return id != null ? id.toString() : null;
+    }
+
+    /**
+     * Send state of messages to a single conversation.
+     */
+    private static class Queue {
+
+        boolean isSending;
+
+        long lastDelay = BASE_RETRY_DELAY;
+
+        /**
+         * Number of error responses from the services for the oldest message.
+         */
+        int attempts;
+
+        Subscription retry;
+
+        void cancelRetry() {
+            if (retry != null) {
+                retry.unsubscribe();
+                retry = null;
+            }
+            lastDelay = BASE_RETRY_DELAY;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.network.model.messaging.MessageStatus;
+import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Func2;
+import rx.subjects.AsyncSubject;
+
+/**
+ * Collects message status updates and sends them in batches. Updates are grouped per conversation and status, message
+ * ids of the updates in a group are merged into a single update. A group is sent when the time window since its first
+ * update passes, when it reaches maximum number of message ids or when {@link #flush()} is called. Updates with more
+ * message ids than the maximum are split between groups. Each caller receives
+ * the result of the call that sent its updates.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class MessageStatusBatcher {
+
+    /**
+     * Default time in milliseconds for which message status updates are collected before being sent.
+     */
+    static final long DEFAULT_WINDOW = 1000;
+
+    /**
+     * Default maximum number of message ids sent in a single status update.
+     */
+    static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    private final Func2<String, List<MessageStatusUpdate>, Observable<ComapiResult<Void>>> sender;
+
+    private final Scheduler.Worker worker;
+
+    private final long window;
+
+    private final int maxBatchSize;
+
+    /**
+     * Updates waiting to be sent, per conversation and status.
+     */
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    /**
+     * True if the batcher was released, updates are sent immediately. Guarded by the batches lock.
+     */
+    private boolean isReleased;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sender       Sends message status updates for a conversation.
+     * @param scheduler    Scheduler on which the time windows are measured.
+     * @param window       Time in milliseconds for which message status updates are collected before being sent.
+     * @param maxBatchSize Maximum number of message ids sent in a single status update.
+     */
+    MessageStatusBatcher(@NonNull final Func2<String, List<MessageStatusUpdate>, Observable<ComapiResult<Void>>> sender, @NonNull final Scheduler scheduler, long window, int maxBatchSize) {
+        this.sender = sender;
+        this.worker = scheduler.createWorker();
+        this.window = window;
+        this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+    }
+
+    /**
+     * Adds message status updates to the batches. Updates are added when the returned observable is subscribed, they
+     * will be sent even if the subscriber unsubscribes before the result is available.
+     *
+     * @param conversationId ID of a conversation to modify.
+     * @param updates        List of status modifications.
+     * @return Observable emitting result of the call sending the updates. If the updates were sent in more than one call
+     * the first unsuccessful result is emitted.
+     */
+    Observable<ComapiResult<Void>> add(@NonNull final String conversationId, @NonNull final List<MessageStatusUpdate> updates) {
+
+        return Observable.defer(() -> {
+
+            if (updates.isEmpty()) {
+                return sender.call(conversationId, updates);
+            }
+
+            final Set<Observable<ComapiResult<Void>>> results = new LinkedHashSet<>();
+            final List<MessageStatusUpdate> unknownStatus = new ArrayList<>();
+            final List<Batch> full = new ArrayList<>();
+
+            synchronized (batches) {
+                if (isReleased) {
+                    // worker is released, the batch would never be sent on time
+                    return sender.call(conversationId, updates);
+                }
+                for (MessageStatusUpdate update : updates) {
+                    MessageStatus status = parseStatus(update.getStatus());
+                    if (status == null) {
+                        unknownStatus.add(update);
+                        continue;
+                    }
+                    String key = conversationId + ":" + status.name();
+                    Batch batch = obtainBatch(key, conversationId, status);
+                    batch.addTimestamp(update.getTimestamp());
+                    results.add(batch.result);
+                    if (update.getMessageIds() != null) {
+                        // split message ids between batches so none of them exceeds the maximum size
+                        for (String messageId : update.getMessageIds()) {
+                            if (batch.messageIds.size() >= maxBatchSize) {
+                                batches.remove(key);
+                                full.add(batch);
+                                batch = obtainBatch(key, conversationId, status);
+                                batch.addTimestamp(update.getTimestamp());
+                                results.add(batch.result);
+                            }
+                            batch.messageIds.add(messageId);
+                        }
+                    }
+                    if (batch.messageIds.size() >= maxBatchSize) {
+                        batches.remove(key);
+                        full.add(batch);
+                    }
+                }
+            }
+
+            for (Batch batch : full) {
+                send(batch);
+            }
+
+            if (!unknownStatus.isEmpty()) {
+                results.add(sender.call(conversationId, unknownStatus));
+            }
+
+            return Observable.merge(results).toList().map(MessageStatusBatcher::selectResult);
+        });
+    }
+
+    /**
+     * Gets batch collecting updates for a conversation and status, creates and schedules a new one if there is none.
+     * Must be called while holding the lock on the batches.
+     *
+     * @param key            Key of the batch.
+     * @param conversationId ID of a conversation.
+     * @param status         Message status.
+     * @return Batch collecting the updates.
+     */
+    private Batch obtainBatch(@NonNull final String key, @NonNull final String conversationId, @NonNull final MessageStatus status) {
+        Batch batch = batches.get(key);
+        if (batch == null) {
+            batch = new Batch(key, conversationId, status);
+            batches.put(key, batch);
+            final Batch scheduled = batch;
+            batch.timer = worker.schedule(() -> flush(scheduled), window, TimeUnit.MILLISECONDS);
+        }
+        return batch;
+    }
+
+    /**
+     * Sends all collected message status updates, e.g. when the app goes to background.
+     */
+    void flush() {
+        final List<Batch> pending;
+        synchronized (batches) {
+            pending = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        for (Batch batch : pending) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Sends all collected message status updates and releases the worker measuring time windows. Updates added afterwards
+     * are sent immediately.
+     */
+    void release() {
+        synchronized (batches) {
+            isReleased = true;
+        }
+        flush();
+        worker.unsubscribe();
+    }
+
+    /**
+     * Sends collected message status updates if the batch hasn't been sent yet.
+     *
+     * @param batch Batch of updates for which the time window passed.
+     */
+    private void flush(@NonNull final Batch batch) {
+        synchronized (batches) {
+            if (batches.get(batch.key) != batch) {
+                return;
+            }
+            batches.remove(batch.key);
+        }
+        send(batch);
+    }
+
+    /**
+     * Sends merged message status update and delivers the result to the callers who added updates to the batch.
+     *
+     * @param batch Batch of updates to send.
+     */
+    private void send(@NonNull final Batch batch) {
+        if (batch.timer != null) {
+            batch.timer.unsubscribe();
+        }
+        MessageStatusUpdate update = MessageStatusUpdate.builder()
+                .setMessagesIds(batch.messageIds)
+                .setStatus(batch.status)
+                .setTimestamp(batch.timestamp)
+                .build();
+        List<MessageStatusUpdate> list = new ArrayList<>();
+        list.add(update);
+        sender.call(batch.conversationId, list).subscribe(batch.result);
+    }
+
+    /**
+     * Selects result to deliver to a caller whose updates were sent in a number of calls.
+     *
+     * @param results Results of the calls.
+     * @return First unsuccessful result or the first result if all calls were successful.
+     */
+    private static ComapiResult<Void> selectResult(@NonNull final List<ComapiResult<Void>> results) {
+        for (ComapiResult<Void> result : results) {
+            if (!result.isSuccessful()) {
+                return result;
+            }
+        }
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Gets message status from its name.
+     *
+     * @param status Message status name.
+     * @return Message status or null if the name is not recognised.
+     */
+    private static MessageStatus parseStatus(final String status) {
+        if (status != null) {
+            for (MessageStatus value : MessageStatus.values()) {
+                if (value.name().equals(status)) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Message status updates for a single conversation and status waiting to be sent.
+     */
+    private static class Batch {
+
+        final String key;
+
+        final String conversationId;
+
+        final MessageStatus status;
+
+        final Set<String> messageIds = new LinkedHashSet<>();
+
+        /**
+         * Result of the call sending this batch, replayed to all callers.
+         */
+        final AsyncSubject<ComapiResult<Void>> result = AsyncSubject.create();
+
+        /**
+         * The most recent timestamp of the merged updates.
+         */
+        String timestamp;
+
+        Subscription timer;
+
+        Batch(String key, String conversationId, MessageStatus status) {
+            this.key = key;
+            this.conversationId = conversationId;
+            this.status = status;
+        }
+
+        void addTimestamp(final String updateTimestamp) {
+            if (timestamp == null || (updateTimestamp != null && updateTimestamp.compareTo(timestamp) > 0)) {
+                timestamp = updateTimestamp;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.Parser;
+import com.comapi.internal.data.DataManager;
+import com.comapi.internal.data.MessageDAO;
+import com.comapi.internal.data.SessionData;
+import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.messaging.ConversationEventsResponse;
+import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.List;
+
+import rx.Observable;
+
+/**
+ * Serves message queries from the local message store and synchronises it with the services. For the latest page of messages only the conversation events
+ * published since the latest stored event are obtained from the services.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class MessageSyncController extends ApiWrapper {
+
+    private static final String KEY_CONVERSATION_EVENT_ID = "conversationEventId";
+
+    /**
+     * Maximum number of events obtained in a single delta synchronisation call.
+     */
+    static final int DELTA_EVENTS_LIMIT = 100;
+
+    /**
+     * Maximum number of delta synchronisation calls before falling back to the messages query.
+     */
+    static final int MAX_DELTA_PAGES = 5;
+
+    private final ServiceApiWrapper api;
+
+    private final DataManager dataMgr;
+
+    private final Logger log;
+
+    private final Parser parser;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param api     Wrapper around REST API calls.
+     * @param dataMgr Manager for internal data storage.
+     * @param log     Internal logger.
+     */
+    MessageSyncController(@NonNull final ServiceApiWrapper api, @NonNull final DataManager dataMgr, @NonNull final Logger log) {
+        this.api = api;
+        this.dataMgr = dataMgr;
+        this.log = log;
+        this.parser = new Parser();
+    }
+
+    /**
+     * Query messages in a conversation. Pages available in the local store are returned without calling the services.
+     *
+     * @param token          Comapi access token.
+     * @param conversationId Id of the conversation.
+     * @param from           Event id to start from when aggregating messages, null for the latest page.
+     * @param limit          Limit of messages send in query response.
+     * @return Observable to get messages in a conversation.
+     */
+    Observable<ComapiResult<MessagesQueryResponse>> queryMessages(@NonNull final String token, @NonNull final String conversationId, final Long from, @NonNull final Integer limit) {
+
+        if (from != null) {
+            return queryLocal(conversationId, from, limit)
+                    .flatMap(cached -> cached != null ? Observable.just(cached) : queryRemote(token, conversationId, from, limit));
+        } else {
+            return wrapObservable(Observable.fromCallable(() -> getStore().getLatestEventId(conversationId)))
+                    .onErrorReturn(t -> {
+                        log.f("Error reading message store for " + conversationId, t);
+                        return null;
+                    })
+                    .flatMap(latest -> latest != null ? syncDelta(token, conversationId, latest + 1, MAX_DELTA_PAGES) : Observable.just(false))
+                    .flatMap(isSynchronised -> isSynchronised ? queryLocal(conversationId, null, limit) : Observable.<ComapiResult<MessagesQueryResponse>>just(null))
+                    .flatMap(cached -> cached != null ? Observable.just(cached) : queryRemote(token, conversationId, null, limit));
+        }
+    }
+
+    /**
+     * Obtains conversation events newer than the latest stored event and applies them to the local store.
+     *
+     * @return Observable emitting true if the local store is up to date with the services.
+     */
+    private Observable<Boolean> syncDelta(@NonNull final String token, @NonNull final String conversationId, final long from, final int pagesLeft) {
+
+        return api.doQueryRawEvents(token, conversationId, from, DELTA_EVENTS_LIMIT)
+                .flatMap(result -> {
+                    if (!result.isSuccessful()) {
+                        return Observable.just(false);
+                    }
+                    List<JsonObject> events = result.getResult();
+                    int count = events != null ? events.size() : 0;
+                    Long latest = getStore().applyEvents(conversationId, new ConversationEventsResponse(events, parser).getEventsInOrder(), getLastEventId(events, from - 1));
+                    if (latest == null) {
+                        return Observable.just(false);
+                    } else if (count < DELTA_EVENTS_LIMIT) {
+                        return Observable.just(true);
+                    } else if (pagesLeft > 1) {
+                        return syncDelta(token, conversationId, latest + 1, pagesLeft - 1);
+                    } else {
+                        return Observable.just(false);
+                    }
+                })
+                .onErrorReturn(t -> {
+                    log.f("Error synchronising messages in " + conversationId, t);
+                    return false;
+                });
+    }
+
+    /**
+     * Gets a page of messages from the local store.
+     *
+     * @return Observable emitting a page of messages or null if the page is not available locally.
+     */
+    private Observable<ComapiResult<MessagesQueryResponse>> queryLocal(@NonNull final String conversationId, final Long from, @NonNull final Integer limit) {
+
+        return wrapObservable(Observable.fromCallable(() -> loadPage(conversationId, from, limit)))
+                .onErrorReturn(t -> {
+                    log.f("Error reading message store for " + conversationId, t);
+                    return null;
+                });
+    }
+
+    /**
+     * Loads a page of messages from the local store.
+     */
+    private ComapiResult<MessagesQueryResponse> loadPage(@NonNull final String conversationId, final Long from, @NonNull final Integer limit) {
+        MessagesQueryResponse page = getStore().query(conversationId, from, limit);
+        if (page != null) {
+            log.d(() -> "Messages in " + conversationId + " obtained from the local store.");
+            return new ComapiResult<>(page, true, null, 200, null, null);
+        }
+        return null;
+    }
+
+    /**
+     * Query messages from the services and save the result in the local store.
+     */
+    private Observable<ComapiResult<MessagesQueryResponse>> queryRemote(@NonNull final String token, @NonNull final String conversationId, final Long from, @NonNull final Integer limit) {
+
+        return api.doQueryMessages(token, conversationId, from, limit)
+                .doOnNext(result -> {
+                    if (result.isSuccessful() && result.getResult() != null) {
+                        try {
+                            getStore().save(conversationId, result.getResult());
+                        } catch (RuntimeException e) {
+                            log.f("Error saving messages for " + conversationId, e);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Gets local message store making sure it contains messages of the active session's profile only.
+     */
+    private MessageDAO getStore() {
+        MessageDAO store = dataMgr.getMessageDAO();
+        SessionData session = dataMgr.getSessionDAO().session();
+        if (session != null && session.getProfileId() != null) {
+            store.setOwner(session.getProfileId());
+        }
+        return store;
+    }
+
+    /**
+     * Gets the highest conversation event id from a list of events.
+     */
+    private long getLastEventId(List<JsonObject> events, long defaultValue) {
+        long last = defaultValue;
+        if (events != null) {
+            for (JsonObject event : events) {
+                JsonElement id = event.get(KEY_CONVERSATION_EVENT_ID);
+                if (id != null && id.isJsonPrimitive()) {
+                    last = Math.max(last, id.getAsLong());
+                }
+            }
+        }
+        return last;
+    }
+}
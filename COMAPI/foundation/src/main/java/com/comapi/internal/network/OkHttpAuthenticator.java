@@ -54,11 +54,12 @@ class OkHttpAuthenticator implements Authenticator {
             return null; // If we've failed N times, give up.
         }
 
-        //Obtain new Comapi access token and retry request with updated header.
+        //Obtain new Comapi access token and retry request with updated header. Concurrent unauthorised responses share the same re-authentication.
 
-        String credential = mgr.restartSession().toBlocking().single().getAccessToken();
+        String rejected = AuthManager.removeAuthPrefix(response.request().header("Authorization"));
+        String credential = mgr.restartSession(rejected).toBlocking().single().getAccessToken();
 
-        if (!credential.equals(response.request().header("Authorization"))) {
+        if (credential != null && !credential.equals(rejected)) {
 
             return response.request().newBuilder()
                     .header("Authorization", AuthManager.addAuthPrefix(credential))
@@ -0,0 +1,221 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.IProfileListener;
+import com.comapi.internal.network.model.events.ProfileUpdateEvent;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of profile details. Keeps up to {@link #MAX_ENTRIES} least recently used profiles no bigger than
+ * {@link #MAX_CACHE_SIZE} in total. Entries expire after configured time to live and are patched or invalidated when
+ * profile update events are received through the socket.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class ProfileCache implements IProfileListener {
+
+    /**
+     * Maximum number of cached profiles.
+     */
+    static final int MAX_ENTRIES = 200;
+
+    /**
+     * Maximum estimated size of all cached profiles in characters.
+     */
+    static final int MAX_CACHE_SIZE = 256 * 1024;
+
+    /**
+     * Default time after which cached profile details are considered stale.
+     */
+    static final long DEFAULT_TTL = 5 * 60 * 1000;
+
+    private final int maxEntries;
+
+    private final long maxSize;
+
+    private final long ttl;
+
+    /**
+     * Cached profiles in least recently used order.
+     */
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    /**
+     * Recommended constructor.
+     */
+    ProfileCache() {
+        this(MAX_ENTRIES, MAX_CACHE_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries Maximum number of cached profiles.
+     * @param maxSize    Maximum estimated size of all cached profiles in characters.
+     * @param ttl        Time in milliseconds after which cached profile details are considered stale.
+     */
+    ProfileCache(int maxEntries, long maxSize, long ttl) {
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Gets cached profile details.
+     *
+     * @param profileId Profile id.
+     * @return Copy of cached profile details or null if not cached or expired.
+     */
+    synchronized ComapiResult<Map<String, Object>> get(@NonNull String profileId) {
+        Entry entry = cache.get(profileId);
+        if (entry == null) {
+            return null;
+        }
+        if (now() - entry.cachedOn >= ttl) {
+            remove(profileId);
+            return null;
+        }
+        return new ComapiResult<>(new HashMap<>(entry.profile), true, entry.eTag, 200, "OK", null);
+    }
+
+    /**
+     * Stores profile details obtained from the services.
+     *
+     * @param profileId Profile id.
+     * @param result    Result of get profile call.
+     */
+    synchronized void put(@NonNull String profileId, ComapiResult<Map<String, Object>> result) {
+        if (result != null && result.isSuccessful() && result.getResult() != null) {
+            put(profileId, new Entry(new HashMap<>(result.getResult()), result.getETag(), now()));
+        }
+    }
+
+    /**
+     * Removes profile details from cache.
+     *
+     * @param profileId Profile id.
+     */
+    synchronized void invalidate(String profileId) {
+        if (profileId != null) {
+            remove(profileId);
+        }
+    }
+
+    /**
+     * Removes all cached profiles.
+     */
+    synchronized void clear() {
+        cache.clear();
+        size = 0;
+    }
+
+    /**
+     * Applies profile changes received in socket event to the cached profile details. If the event carries no changes the profile is removed from cache.
+     *
+     * @param event Event to dispatch.
+     */
+    @Override
+    public synchronized void onProfileUpdate(ProfileUpdateEvent event) {
+        final String profileId = event.getProfileId();
+        if (profileId == null) {
+            return;
+        }
+        final Entry entry = cache.get(profileId);
+        if (entry == null) {
+            return;
+        }
+        final Map<String, Object> payload = event.getPayload();
+        if (payload == null || payload.isEmpty()) {
+            remove(profileId);
+        } else {
+            Map<String, Object> profile = new HashMap<>(entry.profile);
+            profile.putAll(payload);
+            put(profileId, new Entry(profile, event.getETag(), now()));
+        }
+    }
+
+    private void put(String profileId, Entry entry) {
+        Entry previous = cache.put(profileId, entry);
+        if (previous != null) {
+            size -= previous.size;
+        }
+        size += entry.size;
+        Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+        while ((size > maxSize || cache.size() > maxEntries) && iterator.hasNext()) {
+            size -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+
+    private void remove(String profileId) {
+        Entry previous = cache.remove(profileId);
+        if (previous != null) {
+            size -= previous.size;
+        }
+    }
+
+    private long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Cached profile details.
+     */
+    private static class Entry {
+
+        final Map<String, Object> profile;
+
+        final String eTag;
+
+        final long cachedOn;
+
+        final long size;
+
+        Entry(Map<String, Object> profile, String eTag, long cachedOn) {
+            this.profile = profile;
+            this.eTag = eTag;
+            this.cachedOn = cachedOn;
+            this.size = estimateSize(profile);
+        }
+
+        private static long estimateSize(Map<String, Object> profile) {
+            long size = 0;
+            for (Map.Entry<String, Object> entry : profile.entrySet()) {
+                size += entry.getKey().length();
+                if (entry.getValue() != null) {
+                    size += entry.getValue().toString().length();
+                }
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+import okio.Sink;
+
+/**
+ * Request body notifying a listener about the number of bytes written to the network.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class ProgressRequestBody extends RequestBody {
+
+    /**
+     * Minimum number of bytes written between notifications when the content length is unknown.
+     */
+    static final long MIN_PROGRESS_STEP = 64 * 1024;
+
+    /**
+     * Maximum number of notifications when the content length is known.
+     */
+    static final int MAX_NOTIFICATIONS = 100;
+
+    private final RequestBody delegate;
+
+    private final UploadProgressListener listener;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param delegate Request body to upload.
+     * @param listener Listener for upload progress.
+     */
+    ProgressRequestBody(@NonNull final RequestBody delegate, @NonNull final UploadProgressListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        final long length = contentLength();
+        final long step = length > 0 ? Math.max(1, length / MAX_NOTIFICATIONS) : MIN_PROGRESS_STEP;
+        CountingSink countingSink = new CountingSink(sink, length, step);
+        BufferedSink counting = Okio.buffer(countingSink);
+        delegate.writeTo(counting);
+        counting.flush();
+        countingSink.onCompleted();
+    }
+
+    /**
+     * Sink counting bytes written to the network.
+     */
+    private class CountingSink extends ForwardingSink {
+
+        private final long length;
+
+        private final long step;
+
+        private long written;
+
+        private long notified;
+
+        CountingSink(Sink delegate, long length, long step) {
+            super(delegate);
+            this.length = length;
+            this.step = step;
+        }
+
+        @Override
+        public void write(@NonNull Buffer source, long byteCount) throws IOException {
+            super.write(source, byteCount);
+            written += byteCount;
+            if (written - notified >= step || written == length) {
+                notified = written;
+                listener.onProgress(written, length);
+            }
+        }
+
+        /**
+         * Notifies about the last part of the content if it was smaller than the notification step.
+         */
+        void onCompleted() {
+            if (notified != written) {
+                notified = written;
+                listener.onProgress(written, length);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package com.comapi.internal.network;
 
 import android.support.annotation.NonNull;
 
+import com.comapi.internal.NetworkConnectivityListener;
 import com.comapi.internal.log.LogLevelConst;
 import com.comapi.internal.network.api.RestApi;
 import com.google.gson.ExclusionStrategy;
@@ -32,7 +33,9 @@ import com.google.gson.annotations.SerializedName;
 
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
@@ -45,7 +48,7 @@ import retrofit2.converter.gson.GsonConverterFactory;
  * @author Marcin Swierczek
  * @since 1.0.0
  */
-class RestClient {
+class RestClient implements NetworkConnectivityListener {
 
     /**
      * Service connection timeout.
@@ -62,11 +65,27 @@ class RestClient {
      */
     private static final int WRITE_TIMEOUT = 90;
 
+    /**
+     * Maximum size of request body logged in debug mode. Bigger or streamed bodies (e.g. uploaded content) are not logged, as it would require
+     * reading them into memory.
+     */
+    private static final long MAX_LOGGED_BODY_SIZE = 64 * 1024;
+
     /**
      * REST API
      */
     private RestApi service;
 
+    /**
+     * HTTP client used by the REST API.
+     */
+    private OkHttpClient client;
+
+    /**
+     * Conditional GET cache.
+     */
+    private final ETagCacheInterceptor eTagCache = new ETagCacheInterceptor();
+
     /**
      * Recommended constructor.
      *
@@ -75,7 +94,8 @@ class RestClient {
      */
     RestClient(final OkHttpAuthenticator authenticator, int logLevel, String baseUrl) {
         if (service == null) {
-            createService(createOkHttpClient(authenticator, logLevel), baseUrl);
+            client = createOkHttpClient(authenticator, logLevel);
+            createService(client, baseUrl);
         }
     }
 
@@ -88,6 +108,29 @@ class RestClient {
         return service;
     }
 
+    /**
+     * Removes responses stored for conditional GET requests.
+     */
+    void clearCache() {
+        eTagCache.clear();
+    }
+
+    @Override
+    public void onNetworkActive() {
+
+    }
+
+    @Override
+    public void onNetworkUnavailable() {
+
+    }
+
+    @Override
+    public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+        // Pooled connections were opened on the previous network and may be dead.
+        client.connectionPool().evictAll();
+    }
+
     /**
      * Create and configure OkHTTP client.
      *
@@ -98,6 +141,7 @@ class RestClient {
     private OkHttpClient createOkHttpClient(OkHttpAuthenticator authenticator, int logLevel) {
 
         OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .addInterceptor(eTagCache)
                 .addInterceptor(loggingInterceptor(logLevel))
                 .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
                 .writeTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS)
@@ -113,14 +157,22 @@ class RestClient {
      * @param logLevel Log level threshold for logging service requests and responses.
      * @return Interceptor to be used to configure the OkHTTP client.
      */
-    private HttpLoggingInterceptor loggingInterceptor(int logLevel) {
+    private Interceptor loggingInterceptor(int logLevel) {
 
         HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
 
         switch (logLevel) {
             case LogLevelConst.DEBUG:
                 interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-                break;
+                final HttpLoggingInterceptor bodyInterceptor = interceptor;
+                final HttpLoggingInterceptor headersInterceptor = new HttpLoggingInterceptor().setLevel(HttpLoggingInterceptor.Level.HEADERS);
+                return chain -> {
+                    RequestBody body = chain.request().body();
+                    if (body != null && (body.contentLength() < 0 || body.contentLength() > MAX_LOGGED_BODY_SIZE)) {
+                        return headersInterceptor.intercept(chain);
+                    }
+                    return bodyInterceptor.intercept(chain);
+                };
             default:
                 interceptor.setLevel(HttpLoggingInterceptor.Level.NONE);
                 break;
@@ -41,10 +41,15 @@ import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
 import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
+import com.comapi.internal.network.model.messaging.UploadSession;
+import com.comapi.internal.network.model.messaging.UploadSessionCreate;
+import com.google.gson.JsonObject;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import okhttp3.RequestBody;
 import retrofit2.Response;
 import rx.Observable;
 import rx.functions.Func1;
@@ -63,6 +68,11 @@ class ServiceApiWrapper extends ApiWrapper {
 
     protected final String apiSpaceId;
 
+    /**
+     * Shares identical GET calls being in progress.
+     */
+    final SingleFlight singleFlight = new SingleFlight();
+
     /**
      * Recommended constructor.
      *
@@ -103,7 +113,75 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable emitting details of uploaded content.
      */
     Observable<ComapiResult<UploadContentResponse>> doUploadContent(@NonNull final String token, @NonNull final String folder, @Nullable final String name, @NonNull final ContentData data) {
-        return wrapObservable(service.uploadContent(AuthManager.addAuthPrefix(token), apiSpaceId, folder, name, data.getBody()).map(mapToComapiResult()), log, "Uploading content " + name);
+        return doUploadContent(token, folder, name, data, null);
+    }
+
+    /**
+     * Upload content data notifying about the upload progress.
+     *
+     * @param token    Comapi access token.
+     * @param folder   Folder name to put the file in.
+     * @param data     Content data.
+     * @param listener Listener for upload progress.
+     * @return Observable emitting details of uploaded content.
+     */
+    Observable<ComapiResult<UploadContentResponse>> doUploadContent(@NonNull final String token, @NonNull final String folder, @Nullable final String name, @NonNull final ContentData data, @Nullable final UploadProgressListener listener) {
+        return wrapObservable(service.uploadContent(AuthManager.addAuthPrefix(token), apiSpaceId, folder, name, data.getBody(listener)).map(mapToComapiResult()), log, "Uploading content " + name);
+    }
+
+    /**
+     * Start chunked content upload.
+     *
+     * @param token   Comapi access token.
+     * @param folder  Folder name to put the file in.
+     * @param name    Content name.
+     * @param request Content size and type.
+     * @return Observable emitting details of the upload.
+     */
+    Observable<ComapiResult<UploadSession>> doCreateUpload(@NonNull final String token, @NonNull final String folder, @Nullable final String name, @NonNull final UploadSessionCreate request) {
+        return wrapObservable(service.createUpload(AuthManager.addAuthPrefix(token), apiSpaceId, folder, name, request).map(mapToComapiResult()), log, "Starting chunked upload " + name);
+    }
+
+    /**
+     * Get details of chunked content upload in progress.
+     *
+     * @param token    Comapi access token.
+     * @param uploadId Upload id.
+     * @return Observable emitting details of the upload.
+     */
+    Observable<ComapiResult<UploadSession>> doGetUpload(@NonNull final String token, @NonNull final String uploadId) {
+        return wrapObservable(service.getUpload(AuthManager.addAuthPrefix(token), apiSpaceId, uploadId).map(mapToComapiResult()), log, "Getting chunked upload " + uploadId);
+    }
+
+    /**
+     * Upload single chunk of the content.
+     *
+     * @param token    Comapi access token.
+     * @param uploadId Upload id.
+     * @param start    Offset of the first byte of the chunk.
+     * @param total    Content size in bytes.
+     * @param body     Chunk bytes.
+     * @return Observable emitting details of the upload.
+     */
+    Observable<ComapiResult<UploadSession>> doUploadChunk(@NonNull final String token, @NonNull final String uploadId, final long start, final long total, @NonNull final RequestBody body) {
+        final String range;
+        try {
+            range = "bytes " + start + "-" + (start + body.contentLength() - 1) + "/" + total;
+        } catch (IOException e) {
+            return Observable.error(e);
+        }
+        return wrapObservable(service.uploadChunk(AuthManager.addAuthPrefix(token), apiSpaceId, uploadId, range, body).map(mapToComapiResult()), log, "Uploading chunk " + range + " of " + uploadId);
+    }
+
+    /**
+     * Finish chunked content upload once all chunks were uploaded.
+     *
+     * @param token    Comapi access token.
+     * @param uploadId Upload id.
+     * @return Observable emitting details of uploaded content.
+     */
+    Observable<ComapiResult<UploadContentResponse>> doCompleteUpload(@NonNull final String token, @NonNull final String uploadId) {
+        return wrapObservable(service.completeUpload(AuthManager.addAuthPrefix(token), apiSpaceId, uploadId).map(mapToComapiResult()), log, "Completing chunked upload " + uploadId);
     }
 
     /**
@@ -114,7 +192,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Profile details from the service.
      */
     Observable<ComapiResult<Map<String, Object>>> doGetProfile(@NonNull final String token, @NonNull final String profileId) {
-        return wrapObservable(service.getProfile(AuthManager.addAuthPrefix(token), apiSpaceId, profileId).map(mapToComapiResult()), log, "Getting profile " + profileId);
+        return singleFlight.execute("getProfile:" + profileId, () -> wrapObservable(service.getProfile(AuthManager.addAuthPrefix(token), apiSpaceId, profileId).map(mapToComapiResult()), log, "Getting profile " + profileId));
     }
 
     /**
@@ -186,7 +264,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to to create a conversation.
      */
     Observable<ComapiResult<ConversationDetails>> doGetConversation(@NonNull final String token, @NonNull final String conversationId) {
-        return wrapObservable(service.getConversation(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting conversation" + conversationId);
+        return singleFlight.execute("getConversation:" + conversationId, () -> wrapObservable(service.getConversation(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting conversation" + conversationId));
     }
 
     /**
@@ -197,7 +275,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to to create a conversation.
      */
     Observable<ComapiResult<List<Conversation>>> doGetConversations(@NonNull final String token, @NonNull final String profileId, @NonNull final Scope scope) {
-        return wrapObservable(service.getConversations(AuthManager.addAuthPrefix(token), apiSpaceId, scope.getValue(), profileId).map(mapToComapiResult()), log, "Getting conversations " + profileId + " " + scope.name());
+        return singleFlight.execute("getConversations:" + profileId + ":" + scope.name(), () -> wrapObservable(service.getConversations(AuthManager.addAuthPrefix(token), apiSpaceId, scope.getValue(), profileId).map(mapToComapiResult()), log, "Getting conversations " + profileId + " " + scope.name()));
     }
 
     /**
@@ -234,7 +312,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to get a list of conversation participants.
      */
     Observable<ComapiResult<List<Participant>>> doGetParticipants(@NonNull final String token, @NonNull final String conversationId) {
-        return wrapObservable(service.getParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting participants for " + conversationId);
+        return singleFlight.execute("getParticipants:" + conversationId, () -> wrapObservable(service.getParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting participants for " + conversationId));
     }
 
     /**
@@ -295,6 +373,19 @@ class ServiceApiWrapper extends ApiWrapper {
                 });
     }
 
+    /**
+     * Query conversation events without filtering out event types.
+     *
+     * @param token          Comapi access token.
+     * @param conversationId ID of a conversation to query events in it.
+     * @param from           ID of the event to start from.
+     * @param limit          Limit of events to obtain in this call.
+     * @return Observable to get raw events in a conversation.
+     */
+    Observable<ComapiResult<List<JsonObject>>> doQueryRawEvents(@NonNull final String token, @NonNull final String conversationId, @NonNull final Long from, @NonNull final Integer limit) {
+        return wrapObservable(service.queryEvents(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, from, limit).map(mapToComapiResult()), log, "Querying conversation events in " + conversationId);
+    }
+
     /**
      * Query messages in a conversation.
      *
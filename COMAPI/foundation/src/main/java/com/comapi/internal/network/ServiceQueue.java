@@ -21,8 +21,10 @@
 package com.comapi.internal.network;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.comapi.internal.data.DataManager;
+import com.comapi.internal.data.SessionData;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.model.conversation.ConversationCreate;
 import com.comapi.internal.network.model.conversation.ConversationDetails;
@@ -39,12 +41,17 @@ import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import rx.Observable;
 import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 import rx.subjects.AsyncSubject;
 
 /**
@@ -61,6 +68,10 @@ class ServiceQueue extends ServiceApiWrapper {
 
     private final TaskQueue taskQueue;
 
+    private final MessageSyncController messageSync;
+
+    private volatile ChunkedUploader uploader;
+
     /**
      * Recommended constructor.
      *
@@ -73,6 +84,7 @@ class ServiceQueue extends ServiceApiWrapper {
         this.dataMgr = dataMgr;
         this.log = log;
         taskQueue = new TaskQueue();
+        messageSync = new MessageSyncController(this, dataMgr, log);
     }
 
     /**
@@ -81,7 +93,8 @@ class ServiceQueue extends ServiceApiWrapper {
      * @return Session access token.
      */
     protected String getToken() {
-        return dataMgr.getSessionDAO().session() != null ? dataMgr.getSessionDAO().session().getAccessToken() : null;
+        SessionData session = dataMgr.getSessionDAO().session();
+        return session != null ? session.getAccessToken() : null;
     }
 
     /**
@@ -93,301 +106,470 @@ class ServiceQueue extends ServiceApiWrapper {
         return taskQueue;
     }
 
+    /**
+     * Gets controller serving message queries from the local message store.
+     *
+     * @return Local message store synchronisation controller.
+     */
+    MessageSyncController getMessageSync() {
+        return messageSync;
+    }
+
+    /**
+     * Sets maximum number of pending service calls executed in parallel once the session is authenticated.
+     *
+     * @param parallelism Maximum number of pending service calls executed in parallel. Values lower than 1 are ignored.
+     */
+    public void setTaskQueueParallelism(int parallelism) {
+        taskQueue.setParallelism(parallelism);
+    }
+
+    /**
+     * Enables uploading large content in resumable chunks. Upload state is stored after each acknowledged chunk and an interrupted upload continues
+     * from the missing chunks when the same content is uploaded again.
+     *
+     * @param threshold   Minimum content size in bytes uploaded in chunks. Negative value to disable chunked uploads.
+     * @param chunkSize   Chunk size in bytes.
+     * @param parallelism Maximum number of chunks of a single upload sent in parallel.
+     */
+    public void setChunkedUpload(long threshold, int chunkSize, int parallelism) {
+        uploader = threshold >= 0 ? new ChunkedUploader(this, dataMgr::getUploadDAO, Schedulers.io(), log, threshold, chunkSize, parallelism) : null;
+    }
+
+    /**
+     * Upload content data, in resumable chunks if enabled and the content is large enough.
+     *
+     * @param token    Comapi access token.
+     * @param folder   Folder name to put the file in.
+     * @param data     Content data.
+     * @param listener Listener for upload progress.
+     * @return Observable emitting details of uploaded content.
+     */
+    Observable<ComapiResult<UploadContentResponse>> doUploadContentResumable(@NonNull final String token, @NonNull final String folder, @NonNull final ContentData data, @Nullable final UploadProgressListener listener) {
+        final ChunkedUploader chunkedUploader = uploader;
+        return chunkedUploader != null ? chunkedUploader.upload(token, folder, data, listener) : doUploadContent(token, folder, data.getName(), data, listener);
+    }
+
     /**
      * Observables queue wrapper to store pending service calls.
      */
     class TaskQueue {
 
-        ConcurrentLinkedQueue<AsyncSubject<String>> queue = new ConcurrentLinkedQueue<>();
+        /**
+         * Default number of pending calls executed in parallel, matches default OkHttp limit of concurrent requests per host.
+         */
+        static final int DEFAULT_PARALLELISM = 5;
+
+        /**
+         * Ordering key for profile modifications (ETag based updates need to be executed in order).
+         */
+        private static final String ORDERING_KEY_PROFILE = "profile";
+
+        ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Ordering keys of the tasks being executed.
+         */
+        private final Set<String> runningKeys = new HashSet<>();
+
+        private int running;
+
+        private volatile int parallelism = DEFAULT_PARALLELISM;
+
+        /**
+         * Sets maximum number of pending tasks executed in parallel.
+         *
+         * @param parallelism Maximum number of pending tasks executed in parallel.
+         */
+        void setParallelism(int parallelism) {
+            if (parallelism > 0) {
+                this.parallelism = parallelism;
+            }
+        }
 
         Observable<ComapiResult<MessageSentResponse>> queueSendMessage(@NonNull final String conversationId, @NonNull final MessageToSend message) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<MessageSentResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<MessageSentResponse>> call(String token) {
-                            log.d("doSendMessage called from the service queue. " + queue.size() + " requests still pending.");
-                            return doSendMessage(token, conversationId, message);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(conversationId);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<MessageSentResponse>>>() {
+                @Override
+                public Observable<ComapiResult<MessageSentResponse>> call(String token) {
+                    log.d(() -> "doSendMessage called from the service queue. " + queue.size() + " requests still pending.");
+                    return doSendMessage(token, conversationId, message);
+                }
+            });
 
         }
 
         Observable<ComapiResult<UploadContentResponse>> queueUploadContent(@NonNull final String folder, @NonNull final ContentData body) {
+            return queueUploadContent(folder, body, null);
+        }
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<UploadContentResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<UploadContentResponse>> call(String token) {
-                            log.d("doUploadContent called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUploadContent(token, folder, body.getName(), body);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+        Observable<ComapiResult<UploadContentResponse>> queueUploadContent(@NonNull final String folder, @NonNull final ContentData body, @Nullable final UploadProgressListener listener) {
+
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<UploadContentResponse>>>() {
+                @Override
+                public Observable<ComapiResult<UploadContentResponse>> call(String token) {
+                    log.d(() -> "doUploadContent called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUploadContentResumable(token, folder, body, listener);
+                }
+            });
         }
 
         Observable<ComapiResult<Map<String, Object>>> queueGetProfile(String profileId) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
-                        @Override
-                        public Observable<ComapiResult<Map<String, Object>>> call(String token) {
-                            log.d("doGetProfile called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetProfile(token, profileId);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
+                @Override
+                public Observable<ComapiResult<Map<String, Object>>> call(String token) {
+                    log.d(() -> "doGetProfile called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetProfile(token, profileId);
+                }
+            });
         }
 
         Observable<ComapiResult<List<Map<String, Object>>>> queueQueryProfiles(String queryString) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<Map<String, Object>>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<Map<String, Object>>>> call(String token) {
-                            log.d("doQueryProfiles called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryProfiles(token, queryString);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<List<Map<String, Object>>>>>() {
+                @Override
+                public Observable<ComapiResult<List<Map<String, Object>>>> call(String token) {
+                    log.d(() -> "doQueryProfiles called from the service queue. " + queue.size() + " requests still pending.");
+                    return doQueryProfiles(token, queryString);
+                }
+            });
         }
 
         Observable<ComapiResult<Map<String, Object>>> queueUpdateProfile(Map<String, Object> profileDetails, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
-                        @Override
-                        public Observable<ComapiResult<Map<String, Object>>> call(String token) {
-                            log.d("doUpdateProfile called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUpdateProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(ORDERING_KEY_PROFILE);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
+                @Override
+                public Observable<ComapiResult<Map<String, Object>>> call(String token) {
+                    log.d(() -> "doUpdateProfile called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUpdateProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<Map<String, Object>>> queuePatchProfile(Map<String, Object> profileDetails, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
-                        @Override
-                        public Observable<ComapiResult<Map<String, Object>>> call(String token) {
-                            log.d("doPatchProfile called from the service queue. " + queue.size() + " requests still pending.");
-                            return doPatchProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(ORDERING_KEY_PROFILE);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
+                @Override
+                public Observable<ComapiResult<Map<String, Object>>> call(String token) {
+                    log.d(() -> "doPatchProfile called from the service queue. " + queue.size() + " requests still pending.");
+                    return doPatchProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationDetails>> queueCreateConversation(ConversationCreate request) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationDetails>> call(String token) {
-                            log.d("doCreateConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doCreateConversation(token, request);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationDetails>> call(String token) {
+                    log.d(() -> "doCreateConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doCreateConversation(token, request);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueDeleteConversation(String conversationId, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doDeleteConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doDeleteConversation(token, conversationId, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(conversationId);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d(() -> "doDeleteConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doDeleteConversation(token, conversationId, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationDetails>> queueGetConversation(String conversationId) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationDetails>> call(String token) {
-                            log.d("doGetConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetConversation(token, conversationId);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationDetails>> call(String token) {
+                    log.d(() -> "doGetConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetConversation(token, conversationId);
+                }
+            });
         }
 
         Observable<ComapiResult<List<ConversationDetails>>> queueGetConversations(Scope scope) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<ConversationDetails>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<ConversationDetails>>> call(String token) {
-                            log.d("doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope).map(result -> {
-                                List<ConversationDetails> newList = new ArrayList<>();
-                                List<Conversation> oldList = result.getResult();
-                                if (oldList != null && !oldList.isEmpty()) {
-                                    newList.addAll(oldList);
-                                }
-                                return new ComapiResult<>(result, newList);
-                            });
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<List<ConversationDetails>>>>() {
+                @Override
+                public Observable<ComapiResult<List<ConversationDetails>>> call(String token) {
+                    log.d(() -> "doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope).map(result -> {
+                        List<ConversationDetails> newList = new ArrayList<>();
+                        List<Conversation> oldList = result.getResult();
+                        if (oldList != null && !oldList.isEmpty()) {
+                            newList.addAll(oldList);
                         }
-                    })
-                    .doOnCompleted(this::executePending);
+                        return new ComapiResult<>(result, newList);
+                    });
+                }
+            });
         }
 
         Observable<ComapiResult<List<Conversation>>> queueGetConversationsExt(Scope scope) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<Conversation>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<Conversation>>> call(String token) {
-                            log.d("doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<List<Conversation>>>>() {
+                @Override
+                public Observable<ComapiResult<List<Conversation>>> call(String token) {
+                    log.d(() -> "doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationDetails>> queueUpdateConversation(String conversationId, ConversationUpdate request, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationDetails>> call(String token) {
-                            log.d("doUpdateConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUpdateConversation(token, conversationId, request, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(conversationId);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationDetails>> call(String token) {
+                    log.d(() -> "doUpdateConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUpdateConversation(token, conversationId, request, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueRemoveParticipants(String conversationId, List<String> ids) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doRemoveParticipants called from the service queue. " + queue.size() + " requests still pending.");
-                            return doRemoveParticipants(token, conversationId, ids);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(conversationId);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d(() -> "doRemoveParticipants called from the service queue. " + queue.size() + " requests still pending.");
+                    return doRemoveParticipants(token, conversationId, ids);
+                }
+            });
         }
 
         Observable<ComapiResult<List<Participant>>> queueGetParticipants(String conversationId) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<Participant>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<Participant>>> call(String token) {
-                            log.d("doGetParticipants called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetParticipants(token, conversationId);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<List<Participant>>>>() {
+                @Override
+                public Observable<ComapiResult<List<Participant>>> call(String token) {
+                    log.d(() -> "doGetParticipants called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetParticipants(token, conversationId);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueAddParticipants(String conversationId, List<Participant> participants) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doAddParticipants called from the service queue. " + queue.size() + " requests still pending.");
-                            return doAddParticipants(token, conversationId, participants);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(conversationId);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d(() -> "doAddParticipants called from the service queue. " + queue.size() + " requests still pending.");
+                    return doAddParticipants(token, conversationId, participants);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueUpdateMessageStatus(String conversationId, List<MessageStatusUpdate> msgStatusList) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doUpdateMessageStatus called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUpdateMessageStatus(token, conversationId, msgStatusList);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d(() -> "doUpdateMessageStatus called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUpdateMessageStatus(token, conversationId, msgStatusList);
+                }
+            });
         }
 
         Observable<ComapiResult<EventsQueryResponse>> queueQueryEvents(String conversationId, Long from, Integer limit) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<EventsQueryResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<EventsQueryResponse>> call(String token) {
-                            log.d("doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryEvents(token, conversationId, from, limit);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<EventsQueryResponse>>>() {
+                @Override
+                public Observable<ComapiResult<EventsQueryResponse>> call(String token) {
+                    log.d(() -> "doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
+                    return doQueryEvents(token, conversationId, from, limit);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationEventsResponse>> queueQueryConversationEvents(String conversationId, Long from, Integer limit) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationEventsResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationEventsResponse>> call(String token) {
-                            log.d("doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryConversationEvents(token, conversationId, from, limit);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<ConversationEventsResponse>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationEventsResponse>> call(String token) {
+                    log.d(() -> "doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
+                    return doQueryConversationEvents(token, conversationId, from, limit);
+                }
+            });
         }
 
         Observable<ComapiResult<MessagesQueryResponse>> queueQueryMessages(String conversationId, Long from, Integer limit) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<MessagesQueryResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<MessagesQueryResponse>> call(String token) {
-                            log.d("doQueryMessages called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryMessages(token, conversationId, from, limit);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<MessagesQueryResponse>>>() {
+                @Override
+                public Observable<ComapiResult<MessagesQueryResponse>> call(String token) {
+                    log.d(() -> "doQueryMessages called from the service queue. " + queue.size() + " requests still pending.");
+                    return messageSync.queryMessages(token, conversationId, from, limit);
+                }
+            });
         }
 
         Observable<ComapiResult<String>> createFbOptInState() {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<String>>>() {
-                        @Override
-                        public Observable<ComapiResult<String>> call(String token) {
-                            log.d("createFbOptInState called from the service queue. " + queue.size() + " requests still pending.");
-                            return doCreateFbOptInState(token);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            final Task task = createNewTask(null);
+
+            return task.execute(new Func1<String, Observable<ComapiResult<String>>>() {
+                @Override
+                public Observable<ComapiResult<String>> call(String token) {
+                    log.d(() -> "createFbOptInState called from the service queue. " + queue.size() + " requests still pending.");
+                    return doCreateFbOptInState(token);
+                }
+            });
         }
 
         /**
-         * Executes pending service calls.
+         * Executes pending service calls. Releases as many pending tasks as allowed by the parallelism setting, tasks with the same ordering key are executed one after another.
          */
-        void executePending() {
-            AsyncSubject<String> next = queue.poll();
-            if (next != null) {
-                next.onNext(dataMgr.getSessionDAO().session().getAccessToken());
-                next.onCompleted();
+        synchronized void executePending() {
+            String token = null;
+            Task next;
+            while (running < parallelism && (next = pollNext()) != null) {
+                if (token == null) {
+                    token = getToken();
+                }
+                // Task with no subscribers will replay the token when subscribed and won't notify when finished.
+                if (next.subject.hasObservers()) {
+                    next.isRunning.set(true);
+                    running++;
+                    if (next.orderingKey != null) {
+                        runningKeys.add(next.orderingKey);
+                    }
+                }
+                next.subject.onNext(token);
+                next.subject.onCompleted();
             }
         }
 
         /**
-         * Creates AsyncSubject representing new pending task in a queue. Will be mapped to pending service call and blocked till session controller finishes authentication process.
+         * Removes from the queue first task which ordering key is not used by any task being executed.
          *
+         * @return Next task to execute or null if no task can be executed.
+         */
+        private Task pollNext() {
+            Iterator<Task> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                if (task.orderingKey == null || !runningKeys.contains(task.orderingKey)) {
+                    iterator.remove();
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Called when a task execution finished. Releases next pending tasks.
+         *
+         * @param task Finished task.
+         */
+        synchronized void onTaskFinished(Task task) {
+            if (task.isRunning.compareAndSet(true, false)) {
+                running--;
+                if (task.orderingKey != null) {
+                    runningKeys.remove(task.orderingKey);
+                }
+                executePending();
+            }
+        }
+
+        /**
+         * Creates task representing new pending service call in a queue. Will be mapped to pending service call and blocked till session controller finishes authentication process.
+         *
+         * @param orderingKey Tasks with the same ordering key will be executed one after another, null if the task can run in parallel with any other task.
          * @return New pending task.
          */
-        private AsyncSubject<String> createNewTask() {
-            AsyncSubject<String> subject = AsyncSubject.create();
-            queue.add(subject);
-            return subject;
+        private Task createNewTask(String orderingKey) {
+            Task task = new Task(orderingKey);
+            queue.add(task);
+            return task;
+        }
+
+        /**
+         * Pending service call.
+         */
+        class Task {
+
+            private final AsyncSubject<String> subject = AsyncSubject.create();
+
+            private final String orderingKey;
+
+            private final AtomicBoolean isRunning = new AtomicBoolean();
+
+            Task(String orderingKey) {
+                this.orderingKey = orderingKey;
+            }
+
+            /**
+             * Gets observable emitting access token when the task is released from the queue.
+             *
+             * @return Observable emitting access token.
+             */
+            Observable<String> getToken() {
+                return subject;
+            }
+
+            /**
+             * Marks task as finished.
+             */
+            void finish() {
+                onTaskFinished(this);
+            }
+
+            /**
+             * Executes service call once the task is released from the queue. The task is marked as finished when the call terminates or is unsubscribed.
+             *
+             * @param call Service call for the access token.
+             * @param <T>  Type of the service call result.
+             * @return Observable for the service call.
+             */
+            <T> Observable<T> execute(Func1<String, Observable<T>> call) {
+                return getToken()
+                        .flatMap(call)
+                        .doAfterTerminate(this::finish)
+                        .doOnUnsubscribe(this::finish);
+            }
         }
     }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@
 package com.comapi.internal.network;
 
 import android.app.Application;
+import android.content.Context;
 import android.os.Build;
 import android.os.Handler;
 import android.support.annotation.NonNull;
@@ -38,6 +39,7 @@ import com.comapi.internal.data.DataManager;
 import com.comapi.internal.data.SessionData;
 import com.comapi.internal.helpers.DateHelper;
 import com.comapi.internal.helpers.DeviceHelper;
+import com.comapi.internal.lifecycle.LifecycleListener;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.api.RestApi;
 import com.comapi.internal.network.model.session.PushConfig;
@@ -46,6 +48,7 @@ import com.comapi.internal.network.model.session.SessionCreateResponse;
 import com.comapi.internal.network.sockets.SocketController;
 import com.comapi.internal.push.PushManager;
 
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -67,6 +70,16 @@ public class SessionController extends ApiWrapper {
      */
     private static final long MINIMAL_REAUTHENTICATION_SCHEDULE_SEC = 60;
 
+    /**
+     * Default fraction of the access token lifetime after which the session will be renewed.
+     */
+    public static final float DEFAULT_RENEWAL_FRACTION = 0.8f;
+
+    /**
+     * Maximum random shift of the renewal time as a fraction of the access token lifetime. Spreads renewals of many devices in time.
+     */
+    private static final float RENEWAL_JITTER = 0.05f;
+
     /**
      * Global state of Comapi SDK. Possible values in {@link GlobalState}
      */
@@ -122,7 +135,31 @@ public class SessionController extends ApiWrapper {
     private final ISessionListener stateListener;
 
     /**
-     * Recommended constructor.
+     * Shares re-authentication between unauthorised service calls, scheduled and manual session refresh.
+     */
+    private final TokenRefresher tokenRefresher = new TokenRefresher(this::reAuthenticate, TokenRefresher.DEFAULT_REUSE_WINDOW);
+
+    /**
+     * Fraction of the access token lifetime after which the session will be renewed.
+     */
+    private final float renewalFraction;
+
+    private final Random random = new Random();
+
+    /**
+     * Scheduled session renewal.
+     */
+    private final Runnable renewal = this::renewSession;
+
+    private volatile boolean isForegrounded = true;
+
+    /**
+     * True if the session renewal was skipped when the app was in background.
+     */
+    private volatile boolean isRenewalDeferred;
+
+    /**
+     * Constructor renewing session after {@link #DEFAULT_RENEWAL_FRACTION} of the access token lifetime.
      *
      * @param sessionCreateManager Manager of session create intermediate states.
      * @param pushMgr              Manager for push messaging.
@@ -149,6 +186,41 @@ public class SessionController extends ApiWrapper {
                       @NonNull ServiceQueue.TaskQueue taskQueue,
                       boolean fcmEnabled,
                       @Nullable final ISessionListener stateListener) {
+        this(sessionCreateManager, pushMgr, state, dataMgr, auth, service, packageName, handler, log, taskQueue, fcmEnabled, stateListener, DEFAULT_RENEWAL_FRACTION);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sessionCreateManager Manager of session create intermediate states.
+     * @param pushMgr              Manager for push messaging.
+     * @param state                Instance of the global SDK state.
+     * @param dataMgr              Manager of internal data storage.
+     * @param auth                 SDK authenticator.
+     * @param service              Service APIs.
+     * @param packageName          App package name.
+     * @param handler              Main thread handler.
+     * @param log                  Internal logger.
+     * @param taskQueue            Service calls queue used when SDK is re-authenticating.
+     * @param fcmEnabled           True if Firebase initialised and configured.
+     * @param stateListener        Listener for new sessions.
+     * @param renewalFraction      Fraction of the access token lifetime after which the session will be renewed.
+     */
+    SessionController(@NonNull final SessionCreateManager sessionCreateManager,
+                      @NonNull PushManager pushMgr,
+                      @NonNull final AtomicInteger state,
+                      @NonNull final DataManager dataMgr,
+                      @NonNull final ComapiAuthenticator auth,
+                      @NonNull RestApi service,
+                      @NonNull final String packageName,
+                      @NonNull Handler handler,
+                      @NonNull final Logger log,
+                      @NonNull ServiceQueue.TaskQueue taskQueue,
+                      boolean fcmEnabled,
+                      @Nullable final ISessionListener stateListener,
+                      float renewalFraction) {
+
+        this.renewalFraction = renewalFraction > 0 && renewalFraction < 1 ? renewalFraction : DEFAULT_RENEWAL_FRACTION;
 
         this.state = state;
         this.dataMgr = dataMgr;
@@ -229,17 +301,66 @@ public class SessionController extends ApiWrapper {
         return Observable.error(new ComapiException("Session already started or SDK not initialised. Stop the active session first. [" + state.get() + "]"));
     }
 
-    void scheduleNextAuthentication(long nextRestartTime) {
+    /**
+     * Schedules session renewal ahead of the access token expiry, after configured fraction of its remaining lifetime with a random shift. Renewals
+     * are never scheduled sooner than {@link #MINIMAL_REAUTHENTICATION_SCHEDULE_SEC} apart.
+     *
+     * @param expiresOn Time when the access token expires.
+     */
+    void scheduleNextAuthentication(long expiresOn) {
 
-        final long delay = (nextRestartTime - System.currentTimeMillis());
-        log.d("Scheduling next authentication to " + DateHelper.getUTC(nextRestartTime) +
+        final long lifetime = Math.max(0, expiresOn - System.currentTimeMillis());
+        final long jitter = (long) (lifetime * RENEWAL_JITTER * (2 * random.nextFloat() - 1));
+        final long delay = Math.max(Math.min(Math.max(0, (long) (lifetime * renewalFraction) + jitter), lifetime), TimeUnit.SECONDS.toMillis(MINIMAL_REAUTHENTICATION_SCHEDULE_SEC));
+        log.d(() -> "Scheduling next authentication. Token expires on " + DateHelper.getUTC(expiresOn) +
                 " Device UTC time is " + DateHelper.getUTC(System.currentTimeMillis()) +
                 " Authenticating automatically in " + TimeUnit.MILLISECONDS.toMinutes(delay) + " minutes.");
-        handler.postDelayed(() -> reAuthenticate().subscribe(session -> {
+        isRenewalDeferred = false;
+        handler.removeCallbacks(renewal);
+        handler.postDelayed(renewal, delay);
+    }
+
+    /**
+     * Renews the session according to schedule. Skipped when the app is in background, the session will be renewed when the app is foregrounded
+     * or when a service call will be rejected as unauthorised.
+     */
+    private void renewSession() {
+
+        if (!isForegrounded) {
+            isRenewalDeferred = true;
+            log.d("App in background, session renewal deferred.");
+            return;
+        }
+
+        refreshSession().subscribe(session -> {
             log.d("Successfully authenticated according to schedule");
         }, throwable -> {
             log.f("Failed to authenticate according to schedule.", throwable);
-        }), delay);
+        });
+    }
+
+    /**
+     * Creates application lifecycle listener deferring scheduled session renewal when app is in background.
+     *
+     * @return Application lifecycle listener.
+     */
+    public LifecycleListener createLifecycleListener() {
+        return new LifecycleListener() {
+
+            @Override
+            public void onForegrounded(Context context) {
+                isForegrounded = true;
+                if (isRenewalDeferred) {
+                    isRenewalDeferred = false;
+                    handler.post(renewal);
+                }
+            }
+
+            @Override
+            public void onBackgrounded(Context context) {
+                isForegrounded = false;
+            }
+        };
     }
 
     /**
@@ -271,12 +392,12 @@ public class SessionController extends ApiWrapper {
                             }))
                             .subscribeOn(Schedulers.io())
                             .observeOn(Schedulers.io()))
-                    .doOnNext(token -> log.d("Received 3rd party auth token: " + token))
+                    .doOnNext(token -> log.d("Received 3rd party auth token: ", token))
                     .map(token -> getSessionCreateRequest(token, sessionCreateManager.getSessionAuthId(), deviceId))
                     .concatMap(sessionCreateRequest -> service.createSession(apiSpaceId, sessionCreateRequest)
                             .subscribeOn(Schedulers.io())
                             .observeOn(Schedulers.io())
-                            .doOnNext(sessionCreateResponse -> log.i("Starting session successful: " + sessionCreateResponse.toString()))
+                            .doOnNext(sessionCreateResponse -> log.i("Starting session successful: ", sessionCreateResponse))
                     ).doOnNext(response -> {
                         sessionCreateManager.setStop();
                     })
@@ -314,12 +435,14 @@ public class SessionController extends ApiWrapper {
     Observable<Response<Void>> endSession() {
         final int oldState = state.getAndSet(GlobalState.INITIALISING);
         handler.removeCallbacksAndMessages(null);
+        tokenRefresher.clear();
         SessionData session = dataMgr.getSessionDAO().session();
         return service.endSession(AuthManager.addAuthPrefix(session.getAccessToken()), apiSpaceId, session.getSessionId())
                 .subscribeOn(Schedulers.io())
                 .observeOn(Schedulers.io())
                 .doOnNext(voidResponse -> {
                     dataMgr.getSessionDAO().clearSession();
+                    dataMgr.getMessageDAO().clear();
                     socketController.disconnectSocket();
                     state.compareAndSet(GlobalState.INITIALISING, GlobalState.INITIALISED);
                 })
@@ -371,8 +494,7 @@ public class SessionController extends ApiWrapper {
             return Observable.error(new ComapiException("Session not started yet."));
         }
 
-        socketController.disconnectSocket();
-
+        // Existing socket connection is kept until the new token is ready, connectSocket() will then open a new socket and close the old one once the new one is connected.
         return wrapObservable(doStartSessionServiceCalls(dataMgr.getDeviceDAO().device().getDeviceId()))
                 .map(sessionCreateResponse -> new SessionData()
                         .setProfileId(sessionCreateResponse.getSession().getProfileId())
@@ -384,7 +506,7 @@ public class SessionController extends ApiWrapper {
                     dataMgr.getSessionDAO().updateSessionDetails(session);
                     state.compareAndSet(GlobalState.SESSION_STARTING, GlobalState.SESSION_ACTIVE);
                     socketController.connectSocket();
-                    scheduleNextAuthentication(Math.max(session.getExpiresOn(), System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MINIMAL_REAUTHENTICATION_SCHEDULE_SEC)));
+                    scheduleNextAuthentication(session.getExpiresOn());
                     taskQueue.executePending();
                     if (stateListener != null) {
                         stateListener.onSessionStart(new Session(session));
@@ -401,6 +523,26 @@ public class SessionController extends ApiWrapper {
                                 (session, voidResult) -> session));
     }
 
+    /**
+     * Re-authenticate or join re-authentication already in progress.
+     *
+     * @return Observable returning new Comapi session.
+     */
+    Observable<SessionData> refreshSession() {
+        return tokenRefresher.refresh();
+    }
+
+    /**
+     * Gets new session to replace the one with access token rejected by the services. Session obtained recently by a
+     * concurrent re-authentication will be reused.
+     *
+     * @param rejectedToken Access token rejected by the services.
+     * @return Observable returning new Comapi session.
+     */
+    Observable<SessionData> refreshSession(@Nullable String rejectedToken) {
+        return tokenRefresher.refresh(rejectedToken);
+    }
+
     /**
      * Challenge authentication. Integrator should provide auth token from authentication services provider and pass it to AuthClient instance.
      *
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rx.Observable;
+import rx.functions.Func0;
+
+/**
+ * Shares a single in-flight call among all subscribers asking for the same resource. The call is forgotten as soon as it emits a result,
+ * terminates or all subscribers unsubscribe, so the next request for the same key will hit the services again.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class SingleFlight {
+
+    private final ConcurrentMap<String, Observable<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Gets observable for a call identified by a key. If the same call is already in progress its result will be shared.
+     *
+     * @param key  Unique identifier of the call, e.g. method name and resource id.
+     * @param call Creates observable for a new call if none is in progress.
+     * @param <T>  Type of the call result.
+     * @return Observable emitting the call result.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Observable<T> execute(@NonNull final String key, @NonNull final Func0<Observable<T>> call) {
+        return Observable.defer(() -> {
+            Observable<T> existing = (Observable<T>) inFlight.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            final AtomicReference<Observable<T>> self = new AtomicReference<>();
+            // Forget the call before subscribers are notified, so calls made after receiving the result will hit the services.
+            Observable<T> shared = call.call()
+                    .doOnNext(result -> inFlight.remove(key, self.get()))
+                    .doOnTerminate(() -> inFlight.remove(key, self.get()))
+                    .doOnUnsubscribe(() -> inFlight.remove(key, self.get()))
+                    .replay(1)
+                    .refCount();
+            self.set(shared);
+            Observable<T> previous = (Observable<T>) inFlight.putIfAbsent(key, shared);
+            return previous != null ? previous : shared;
+        });
+    }
+
+    /**
+     * Gets number of calls currently in progress.
+     *
+     * @return Number of calls currently in progress.
+     */
+    int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
+import android.support.annotation.NonNull;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Request body streaming the content from its source, so the whole content is never kept in memory. Bodies created from an {@link InputStream} or
+ * non-seekable file descriptor can be written only once, e.g. they will fail if the request needs to be repeated after re-authentication.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class StreamingRequestBody extends RequestBody {
+
+    /**
+     * Opens the content for reading.
+     */
+    interface StreamSource {
+
+        /**
+         * Opens new stream with the content from the beginning.
+         *
+         * @return Stream with the content.
+         * @throws IOException If the content cannot be opened.
+         */
+        InputStream open() throws IOException;
+
+        /**
+         * Gets content length.
+         *
+         * @return Number of bytes or -1 if unknown.
+         */
+        long length();
+
+        /**
+         * Checks if the content can be opened more than once.
+         *
+         * @return True if the content can be read again.
+         */
+        boolean isReplayable();
+    }
+
+    private final MediaType type;
+
+    private final StreamSource source;
+
+    private final AtomicBoolean isConsumed = new AtomicBoolean();
+
+    private volatile Long length;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param type   Mime type of the content.
+     * @param source Source of the content.
+     */
+    StreamingRequestBody(MediaType type, @NonNull final StreamSource source) {
+        this.type = type;
+        this.source = source;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return type;
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        if (length == null) {
+            length = source.length();
+        }
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        if (!source.isReplayable() && !isConsumed.compareAndSet(false, true)) {
+            throw new IOException("Content stream has already been read and cannot be sent again.");
+        }
+        Source in = Okio.source(source.open());
+        try {
+            sink.writeAll(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Creates body reading content from a stream once.
+     *
+     * @param type   Mime type of the content.
+     * @param stream Stream with the content.
+     * @param length Content length in bytes or -1 if unknown.
+     * @return Request body.
+     */
+    static StreamingRequestBody create(MediaType type, @NonNull final InputStream stream, final long length) {
+        return new StreamingRequestBody(type, new StreamSource() {
+
+            @Override
+            public InputStream open() {
+                return stream;
+            }
+
+            @Override
+            public long length() {
+                return length >= 0 ? length : -1;
+            }
+
+            @Override
+            public boolean isReplayable() {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Creates body reading content from a file descriptor. Seekable descriptors are read from the beginning each time the body is written. The
+     * descriptor is not closed.
+     *
+     * @param type Mime type of the content.
+     * @param fd   File descriptor with the content.
+     * @return Request body.
+     */
+    static StreamingRequestBody create(MediaType type, @NonNull final ParcelFileDescriptor fd) {
+        final long size = fd.getStatSize();
+        return new StreamingRequestBody(type, new StreamSource() {
+
+            @Override
+            public InputStream open() throws IOException {
+                FileInputStream stream = new ParcelFileDescriptor.AutoCloseInputStream(fd.dup());
+                if (size >= 0) {
+                    stream.getChannel().position(0);
+                }
+                return stream;
+            }
+
+            @Override
+            public long length() {
+                return size;
+            }
+
+            @Override
+            public boolean isReplayable() {
+                return size >= 0;
+            }
+        });
+    }
+
+    /**
+     * Creates body reading content from a content Uri, e.g. an image picked from the gallery. The Uri is opened each time the body is written.
+     *
+     * @param type     Mime type of the content.
+     * @param resolver Content resolver.
+     * @param uri      Content Uri.
+     * @return Request body.
+     */
+    static StreamingRequestBody create(MediaType type, @NonNull final ContentResolver resolver, @NonNull final Uri uri) {
+        return new StreamingRequestBody(type, new StreamSource() {
+
+            @Override
+            public InputStream open() throws IOException {
+                InputStream stream = resolver.openInputStream(uri);
+                if (stream == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                return stream;
+            }
+
+            @Override
+            public long length() {
+                return querySize(resolver, uri);
+            }
+
+            @Override
+            public boolean isReplayable() {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Queries content provider for the size of the content.
+     *
+     * @param resolver Content resolver.
+     * @param uri      Content Uri.
+     * @return Number of bytes or -1 if unknown.
+     */
+    static long querySize(@NonNull final ContentResolver resolver, @NonNull final Uri uri) {
+        Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null);
+        if (cursor != null) {
+            try {
+                if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                    return cursor.getLong(0);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        return -1;
+    }
+}
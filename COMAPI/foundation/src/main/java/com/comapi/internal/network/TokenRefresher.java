@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.comapi.internal.data.SessionData;
+
+import rx.Observable;
+import rx.functions.Func0;
+
+/**
+ * Coordinates session re-authentication. Only one re-authentication is performed at a time, callers asking for a new
+ * token while it is in progress receive the same result. A session obtained recently is returned without calling the
+ * services again if the caller's token is not the same as the new one, e.g. when the request was sent before the token
+ * was refreshed.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class TokenRefresher {
+
+    /**
+     * Default time in milliseconds for which a newly obtained session will be reused.
+     */
+    static final long DEFAULT_REUSE_WINDOW = 10 * 1000;
+
+    private static final String KEY = "reAuthenticate";
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private final Func0<Observable<SessionData>> reAuthenticate;
+
+    private final long reuseWindow;
+
+    /**
+     * Most recently obtained session.
+     */
+    private volatile SessionData lastSession;
+
+    /**
+     * Time when the most recent session was obtained, see {@link SystemClock#elapsedRealtime()}.
+     */
+    private volatile long lastSessionTime;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param reAuthenticate Creates observable performing re-authentication.
+     * @param reuseWindow    Time in milliseconds for which a newly obtained session will be reused.
+     */
+    TokenRefresher(@NonNull final Func0<Observable<SessionData>> reAuthenticate, long reuseWindow) {
+        this.reAuthenticate = reAuthenticate;
+        this.reuseWindow = reuseWindow;
+    }
+
+    /**
+     * Re-authenticates the session or joins re-authentication in progress.
+     *
+     * @return Observable emitting new session.
+     */
+    Observable<SessionData> refresh() {
+        return singleFlight.execute(KEY, () -> reAuthenticate.call().doOnNext(session -> {
+            if (session != null) {
+                lastSessionTime = SystemClock.elapsedRealtime();
+                lastSession = session;
+            }
+        }));
+    }
+
+    /**
+     * Gets a session to replace the one with rejected access token. Returns recently obtained session if its token is
+     * different from the rejected one, otherwise re-authenticates or joins re-authentication in progress.
+     *
+     * @param rejectedToken Access token rejected by the services.
+     * @return Observable emitting new session.
+     */
+    Observable<SessionData> refresh(@Nullable final String rejectedToken) {
+        return Observable.defer(() -> {
+            SessionData session = lastSession;
+            if (session != null
+                    && SystemClock.elapsedRealtime() - lastSessionTime < reuseWindow
+                    && session.getAccessToken() != null
+                    && !session.getAccessToken().equals(rejectedToken)) {
+                return Observable.just(session);
+            }
+            return refresh();
+        });
+    }
+
+    /**
+     * Forgets recently obtained session, e.g. when the session ends.
+     */
+    void clear() {
+        lastSession = null;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Func2;
+import rx.subjects.AsyncSubject;
+
+/**
+ * Throttles 'user is typing' events. For each conversation the 'typing' event is sent at most once per interval, calls
+ * in between are not sent and receive the result of the last call. 'Typing off' event is sent automatically when no
+ * 'typing' call was made for the idle timeout, calls made while it is in progress receive its result.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class TypingStateManager {
+
+    /**
+     * Default minimum time in milliseconds between 'typing' events sent for a conversation.
+     */
+    static final long DEFAULT_INTERVAL = 3000;
+
+    /**
+     * Default time in milliseconds after the last 'typing' call when the 'typing off' event is sent.
+     */
+    static final long DEFAULT_IDLE_TIMEOUT = 5000;
+
+    private final Func2<String, Boolean, Observable<ComapiResult<Void>>> sender;
+
+    private final Scheduler scheduler;
+
+    private final Scheduler.Worker worker;
+
+    private final long interval;
+
+    private final long idleTimeout;
+
+    /**
+     * Typing state per conversation for which 'typing' event was sent and 'typing off' wasn't.
+     */
+    private final Map<String, State> states = new HashMap<>();
+
+    /**
+     * Results of the 'typing off' events in progress per conversation.
+     */
+    private final Map<String, Observable<ComapiResult<Void>>> stoppedResults = new HashMap<>();
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sender      Sends typing event for a conversation.
+     * @param scheduler   Scheduler measuring time between calls.
+     * @param interval    Minimum time in milliseconds between 'typing' events sent for a conversation.
+     * @param idleTimeout Time in milliseconds after the last 'typing' call when the 'typing off' event is sent.
+     */
+    TypingStateManager(@NonNull final Func2<String, Boolean, Observable<ComapiResult<Void>>> sender, @NonNull final Scheduler scheduler, long interval, long idleTimeout) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.worker = scheduler.createWorker();
+        this.interval = interval;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Sets typing state for a conversation. The event is sent when the returned observable is subscribed and only if
+     * it's not redundant.
+     *
+     * @param conversationId ID of a conversation.
+     * @param isTyping       True if participant is typing, false if he has stopped typing.
+     * @return Observable emitting result of the call that sent the current typing state.
+     */
+    Observable<ComapiResult<Void>> setTyping(@NonNull final String conversationId, final boolean isTyping) {
+        return Observable.defer(() -> isTyping ? startTyping(conversationId) : stopTyping(conversationId));
+    }
+
+    /**
+     * Sends 'typing' event if it wasn't sent within the interval and restarts idle timer.
+     *
+     * @param conversationId ID of a conversation.
+     * @return Observable emitting result of the call.
+     */
+    private Observable<ComapiResult<Void>> startTyping(@NonNull final String conversationId) {
+
+        final long now = scheduler.now();
+        final State state;
+        final boolean isSending;
+        final AsyncSubject<ComapiResult<Void>> result;
+        Observable<ComapiResult<Void>> stopping = null;
+
+        synchronized (states) {
+            State current = states.get(conversationId);
+            if (current == null) {
+                current = new State();
+                states.put(conversationId, current);
+                stopping = stoppedResults.remove(conversationId);
+            }
+            state = current;
+            isSending = state.result == null || now - state.lastSent >= interval;
+            if (isSending) {
+                state.lastSent = now;
+                state.result = AsyncSubject.create();
+            }
+            if (state.idleTimer != null) {
+                state.idleTimer.unsubscribe();
+            }
+            if (idleTimeout > 0) {
+                state.idleTimer = worker.schedule(() -> stopTyping(conversationId, state), idleTimeout, TimeUnit.MILLISECONDS);
+            }
+            result = state.result;
+        }
+
+        if (isSending) {
+            // 'typing off' still in progress needs to finish first
+            Observable<ComapiResult<Void>> send = sender.call(conversationId, true);
+            if (stopping != null) {
+                send = stopping.ignoreElements().onErrorResumeNext(Observable.empty()).concatWith(send);
+            }
+            send.doOnNext(r -> {
+                if (!r.isSuccessful()) {
+                    retryNext(state, result);
+                }
+            }).doOnError(e -> retryNext(state, result)).subscribe(result);
+        }
+        return result;
+    }
+
+    /**
+     * Sends 'typing off' event if the 'typing' event was sent before.
+     *
+     * @param conversationId ID of a conversation.
+     * @return Observable emitting result of the call.
+     */
+    private Observable<ComapiResult<Void>> stopTyping(@NonNull final String conversationId) {
+        final State state;
+        synchronized (states) {
+            state = states.get(conversationId);
+            if (state == null) {
+                Observable<ComapiResult<Void>> stopped = stoppedResults.get(conversationId);
+                return stopped != null ? stopped : sender.call(conversationId, false);
+            }
+        }
+        return stopTyping(conversationId, state);
+    }
+
+    /**
+     * Sends 'typing off' event if the typing state is still current.
+     *
+     * @param conversationId ID of a conversation.
+     * @param state          Typing state to end.
+     * @return Observable emitting result of the call.
+     */
+    private Observable<ComapiResult<Void>> stopTyping(@NonNull final String conversationId, @NonNull final State state) {
+        final AsyncSubject<ComapiResult<Void>> result;
+        synchronized (states) {
+            if (states.get(conversationId) != state) {
+                Observable<ComapiResult<Void>> stopped = stoppedResults.get(conversationId);
+                return stopped != null ? stopped : Observable.empty();
+            }
+            states.remove(conversationId);
+            if (state.idleTimer != null) {
+                state.idleTimer.unsubscribe();
+            }
+            result = AsyncSubject.create();
+            stoppedResults.put(conversationId, result);
+        }
+        sender.call(conversationId, false).doAfterTerminate(() -> onStopped(conversationId, result)).subscribe(result);
+        return result;
+    }
+
+    /**
+     * Releases the worker measuring idle timeouts. The manager shouldn't be used afterwards.
+     */
+    void release() {
+        worker.unsubscribe();
+    }
+
+    /**
+     * Makes the next 'typing' call to be sent after unsuccessful one.
+     *
+     * @param state  Typing state of a conversation.
+     * @param result Result of the unsuccessful call.
+     */
+    private void retryNext(@NonNull final State state, @NonNull final AsyncSubject<ComapiResult<Void>> result) {
+        synchronized (states) {
+            if (state.result == result) {
+                state.result = null;
+            }
+        }
+    }
+
+    /**
+     * Removes result of the finished 'typing off' call so the next one is sent to the services.
+     *
+     * @param conversationId ID of a conversation.
+     * @param result         Result of the finished call.
+     */
+    private void onStopped(@NonNull final String conversationId, @NonNull final AsyncSubject<ComapiResult<Void>> result) {
+        synchronized (states) {
+            if (stoppedResults.get(conversationId) == result) {
+                stoppedResults.remove(conversationId);
+            }
+        }
+    }
+
+    /**
+     * Typing state of a conversation.
+     */
+    private static class State {
+
+        /**
+         * Time of the last 'typing' event sent, see {@link Scheduler#now()}.
+         */
+        long lastSent;
+
+        /**
+         * Result of the last 'typing' event sent.
+         */
+        AsyncSubject<ComapiResult<Void>> result;
+
+        Subscription idleTimer;
+    }
+}
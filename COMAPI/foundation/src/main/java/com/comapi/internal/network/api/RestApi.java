@@ -26,6 +26,8 @@ import com.comapi.internal.network.model.conversation.ConversationUpdate;
 import com.comapi.internal.network.model.conversation.Conversation;
 import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
+import com.comapi.internal.network.model.messaging.UploadSession;
+import com.comapi.internal.network.model.messaging.UploadSessionCreate;
 import com.comapi.internal.network.model.session.PushConfig;
 import com.comapi.internal.network.model.session.SessionStartResponse;
 import com.google.gson.JsonObject;
@@ -197,6 +199,22 @@ public interface RestApi {
     @POST("/apispaces/{apiSpaceId}/content")
     Observable<Response<UploadContentResponse>> uploadContent(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Query("folder") String folder, @Header("content-filename") String name, @Body RequestBody body);
 
+    @Headers({"Accept: application/json"})
+    @POST("/apispaces/{apiSpaceId}/content/uploads")
+    Observable<Response<UploadSession>> createUpload(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Query("folder") String folder, @Header("content-filename") String name, @Body UploadSessionCreate body);
+
+    @Headers({"Accept: application/json"})
+    @GET("/apispaces/{apiSpaceId}/content/uploads/{uploadId}")
+    Observable<Response<UploadSession>> getUpload(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("uploadId") String uploadId);
+
+    @Headers({"Accept: application/json"})
+    @PUT("/apispaces/{apiSpaceId}/content/uploads/{uploadId}")
+    Observable<Response<UploadSession>> uploadChunk(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("uploadId") String uploadId, @Header("Content-Range") String range, @Body RequestBody body);
+
+    @Headers({"Accept: application/json"})
+    @POST("/apispaces/{apiSpaceId}/content/uploads/{uploadId}/complete")
+    Observable<Response<UploadContentResponse>> completeUpload(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("uploadId") String uploadId);
+
     /*
      * FB
      */
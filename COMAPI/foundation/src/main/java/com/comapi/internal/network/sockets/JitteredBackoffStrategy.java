@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network.sockets;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with decorrelated jitter. Delay before next retry is a random value between the base delay and three times the previous
+ * delay, but not bigger than maximum delay.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class JitteredBackoffStrategy extends RetryStrategy {
+
+    private final long baseDelay;
+
+    private final long maxDelay;
+
+    private final Random random = new Random();
+
+    private long lastDelay;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param baseDelay  Minimum delay between reconnection attempts in milliseconds.
+     * @param maxDelay   Maximum delay between reconnection attempts in milliseconds.
+     * @param maxRetries Maximum number of retries or {@link #UNLIMITED_RETRIES}.
+     */
+    JitteredBackoffStrategy(long baseDelay, long maxDelay, int maxRetries) {
+        super(maxRetries, (int) Math.min(Integer.MAX_VALUE, maxDelay));
+        this.baseDelay = Math.max(0, baseDelay);
+        this.maxDelay = Math.max(this.baseDelay, maxDelay);
+        this.lastDelay = this.baseDelay;
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        lastDelay = baseDelay;
+    }
+
+    @Override
+    long getDelay() {
+        long upper = Math.max(baseDelay, Math.min(maxDelay, lastDelay * 3));
+        lastDelay = baseDelay + (long) (random.nextDouble() * (upper - baseDelay));
+        return lastDelay;
+    }
+}
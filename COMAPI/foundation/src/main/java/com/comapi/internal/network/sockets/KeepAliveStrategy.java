@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network.sockets;
+
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.log.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive socket keep-alive. Learns the longest ping interval that keeps the connection alive, separately for metered (usually mobile) and
+ * unmetered networks. The interval grows by {@link #STEP} after {@link #PROBE_PONGS} pongs received in a row and is reduced and fixed when
+ * a ping is not answered in time, which also closes the dead connection so it can be reconnected. A missed pong may be caused by a temporary
+ * connectivity loss, so probing resumes after the network changes or after {@link #RELEARN_PONGS} pongs received in a row.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class KeepAliveStrategy {
+
+    /**
+     * Minimum ping interval.
+     */
+    static final long MIN_INTERVAL = 20 * 1000;
+
+    /**
+     * Maximum ping interval.
+     */
+    static final long MAX_INTERVAL = 4 * 60 * 1000;
+
+    /**
+     * Ping interval change when probing for the longest safe interval.
+     */
+    static final long STEP = 20 * 1000;
+
+    /**
+     * Number of pongs received in a row before ping interval is increased.
+     */
+    static final int PROBE_PONGS = 3;
+
+    /**
+     * Number of pongs received in a row with a fixed interval before probing for a longer interval resumes.
+     */
+    static final int RELEARN_PONGS = 20;
+
+    /**
+     * Default time to wait for a pong before the connection is considered dead.
+     */
+    static final long PONG_TIMEOUT = 10 * 1000;
+
+    private final Logger log;
+
+    private final long pongTimeout;
+
+    private final ScheduledExecutorService timer;
+
+    private final NetworkEntry metered = new NetworkEntry(30 * 1000);
+
+    private final NetworkEntry unmetered = new NetworkEntry(60 * 1000);
+
+    private NetworkEntry current = metered;
+
+    private int deadConnections;
+
+    /**
+     * Socket waiting for a pong.
+     */
+    private Object pingSocket;
+
+    private ScheduledFuture<?> pongTimeoutTask;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param log Internal logger.
+     */
+    KeepAliveStrategy(@NonNull Logger log) {
+        this(log, PONG_TIMEOUT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param log         Internal logger.
+     * @param pongTimeout Time in milliseconds to wait for a pong before the connection is considered dead.
+     */
+    KeepAliveStrategy(@NonNull Logger log, long pongTimeout) {
+        this.log = log;
+        this.pongTimeout = pongTimeout;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Comapi-socket-keep-alive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the type of the current network. Unknown network is treated as metered.
+     *
+     * @param isMetered True if the current network is metered.
+     */
+    synchronized void setMetered(boolean isMetered) {
+        current = isMetered ? metered : unmetered;
+    }
+
+    /**
+     * Called when the device switched to other network. Sets the type of the new network and resumes probing for the longest interval.
+     *
+     * @param isMetered True if the new network is metered.
+     */
+    synchronized void onNetworkChanged(boolean isMetered) {
+        setMetered(isMetered);
+        current.isLearned = false;
+        current.pongs = 0;
+    }
+
+    /**
+     * Gets ping interval for the current network.
+     *
+     * @return Ping interval in milliseconds.
+     */
+    synchronized long getInterval() {
+        return current.interval;
+    }
+
+    /**
+     * Gets number of connections detected as dead because of missing pong.
+     *
+     * @return Number of dead connections detected.
+     */
+    synchronized int getDeadConnections() {
+        return deadConnections;
+    }
+
+    /**
+     * Called when a ping was sent. Starts waiting for the pong.
+     *
+     * @param socket Socket that sent the ping.
+     * @param onDead  Closes the connection if pong will not be received in time.
+     */
+    synchronized void onPingSent(@NonNull final Object socket, @NonNull final Runnable onDead) {
+        if (pongTimeoutTask != null && pingSocket == socket) {
+            // Still waiting for the previous pong.
+            return;
+        }
+        cancelPongTimeout();
+        pingSocket = socket;
+        pongTimeoutTask = timer.schedule(() -> {
+            if (onPongTimeout(socket)) {
+                onDead.run();
+            }
+        }, pongTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called when a pong was received.
+     *
+     * @param socket Socket that received the pong.
+     * @return Ping interval to be used from now on.
+     */
+    synchronized long onPong(@NonNull Object socket) {
+        if (pingSocket == socket) {
+            cancelPongTimeout();
+        }
+        NetworkEntry entry = current;
+        if (entry.isLearned && ++entry.pongs >= RELEARN_PONGS) {
+            entry.isLearned = false;
+            entry.pongs = 0;
+        } else if (!entry.isLearned && ++entry.pongs >= PROBE_PONGS && entry.interval < MAX_INTERVAL) {
+            entry.pongs = 0;
+            entry.interval = Math.min(MAX_INTERVAL, entry.interval + STEP);
+            log.i("Socket keep-alive interval increased to " + entry.interval / 1000 + "s");
+        }
+        return entry.interval;
+    }
+
+    /**
+     * Called when the socket disconnected. Stops waiting for the pong.
+     *
+     * @param socket Disconnected socket.
+     */
+    synchronized void onDisconnected(@NonNull Object socket) {
+        if (pingSocket == socket) {
+            cancelPongTimeout();
+        }
+    }
+
+    /**
+     * Registers dead connection and reduces ping interval for the current network.
+     *
+     * @param socket Socket that did not receive the pong.
+     * @return True if the connection should be closed.
+     */
+    private synchronized boolean onPongTimeout(Object socket) {
+        if (pingSocket != socket) {
+            return false;
+        }
+        pingSocket = null;
+        pongTimeoutTask = null;
+        deadConnections++;
+        NetworkEntry entry = current;
+        entry.pongs = 0;
+        entry.isLearned = true;
+        entry.interval = Math.max(MIN_INTERVAL, entry.interval - STEP);
+        log.w("Socket pong not received, closing dead connection. Keep-alive interval reduced to " + entry.interval / 1000 + "s, dead connections detected " + deadConnections);
+        return true;
+    }
+
+    private void cancelPongTimeout() {
+        if (pongTimeoutTask != null) {
+            pongTimeoutTask.cancel(false);
+            pongTimeoutTask = null;
+        }
+        pingSocket = null;
+    }
+
+    /**
+     * Keep-alive state for a network type.
+     */
+    private static class NetworkEntry {
+
+        long interval;
+
+        /**
+         * Pongs received in a row with the current interval.
+         */
+        int pongs;
+
+        /**
+         * True if a dead connection was detected and the interval should not increase until probing resumes.
+         */
+        boolean isLearned;
+
+        NetworkEntry(long interval) {
+            this.interval = interval;
+        }
+    }
+}
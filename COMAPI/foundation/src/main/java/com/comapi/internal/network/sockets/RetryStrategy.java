@@ -21,12 +21,18 @@
 package com.comapi.internal.network.sockets;
 
 /**
- * Definition of a strategy for socket reconnection when an error occurs.
+ * Definition of a strategy for socket reconnection when an error occurs. Use {@link #linear(int, int)} or
+ * {@link #exponential(long, long, int)} to create an instance and pass it to the SDK configuration.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
  */
-class RetryStrategy {
+public class RetryStrategy {
+
+    /**
+     * Pass as maximum number of retries to keep reconnecting until the socket connects.
+     */
+    public static final int UNLIMITED_RETRIES = -1;
 
     private int maxRetries;
 
@@ -34,6 +40,8 @@ class RetryStrategy {
 
     private int retries;
 
+    private boolean retryOnNetworkChange = true;
+
     /**
      * Recommended constructor.
      *
@@ -44,12 +52,48 @@ class RetryStrategy {
         this.maximumDelay = maximumDelay;
     }
 
+    /**
+     * Creates strategy increasing delay between reconnection attempts by one second up to the maximum delay.
+     *
+     * @param maxRetries   Maximum number of retries or {@link #UNLIMITED_RETRIES}.
+     * @param maximumDelay Maximum delay between reconnection attempts in milliseconds.
+     * @return Reconnection strategy.
+     */
+    public static RetryStrategy linear(int maxRetries, int maximumDelay) {
+        return new RetryStrategy(maxRetries, maximumDelay);
+    }
+
+    /**
+     * Creates exponential backoff strategy with decorrelated jitter. Each delay is a random value between the base delay and three times
+     * the previous delay, capped at the maximum delay. Devices disconnected at the same time e.g. by the server restart will spread
+     * their reconnection attempts.
+     *
+     * @param baseDelay  Minimum delay between reconnection attempts in milliseconds.
+     * @param maxDelay   Maximum delay between reconnection attempts in milliseconds.
+     * @param maxRetries Maximum number of retries or {@link #UNLIMITED_RETRIES}.
+     * @return Reconnection strategy.
+     */
+    public static RetryStrategy exponential(long baseDelay, long maxDelay, int maxRetries) {
+        return new JitteredBackoffStrategy(baseDelay, maxDelay, maxRetries);
+    }
+
+    /**
+     * Sets if socket should reconnect immediately when the network connection becomes available, regardless of the current delay. True by default.
+     *
+     * @param retryOnNetworkChange True to reconnect immediately when the network connection becomes available.
+     * @return Reconnection strategy.
+     */
+    public RetryStrategy retryOnNetworkChange(boolean retryOnNetworkChange) {
+        this.retryOnNetworkChange = retryOnNetworkChange;
+        return this;
+    }
+
     /**
      * @return True if maximum of retries was not reached. Increments the retry counter.
      */
     boolean retry() {
         retries += 1;
-        return retries <= maxRetries;
+        return maxRetries == UNLIMITED_RETRIES || retries <= maxRetries;
     }
 
     /**
@@ -65,4 +109,11 @@ class RetryStrategy {
     long getDelay() {
         return Math.min(1000*retries, maximumDelay);
     }
-}
\ No newline at end of file
+
+    /**
+     * @return True if socket should reconnect immediately when the network connection becomes available.
+     */
+    boolean isRetryingOnNetworkChange() {
+        return retryOnNetworkChange;
+    }
+}
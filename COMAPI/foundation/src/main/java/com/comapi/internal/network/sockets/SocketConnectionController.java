@@ -34,7 +34,8 @@ import java.lang.ref.WeakReference;
 import java.net.URI;
 
 /**
- * Class to create and manage socket connection. Manages reties and responds to network connectivity changes if registered.
+ * Class to create and manage socket connection. Manages reties and responds to network connectivity changes if registered. Connecting again while
+ * the socket is open, e.g. with a new access token, keeps the open socket until the new one is connected.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
@@ -49,6 +50,16 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
 
     private SocketInterface socket;
 
+    /**
+     * State callbacks of the current socket. Callbacks of replaced sockets are ignored.
+     */
+    private SocketCallbacks socketCallbacks;
+
+    /**
+     * Open socket kept until the socket replacing it is connected.
+     */
+    private SocketInterface replacedSocket;
+
     private boolean isManagingReconnection;
 
     private boolean isNetworkUnavailable;
@@ -96,32 +107,55 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
      */
     synchronized void connect() {
 
-        if (socket != null) {
-            socket.disconnect();
-        }
-
         final String token = getToken();
 
-        if (!TextUtils.isEmpty(token)) {
-
-            socket = factory.createSocket(token, new WeakReference<>(this));
-
+        if (TextUtils.isEmpty(token)) {
+            closeReplacedSocket();
             if (socket != null) {
-                socket.connect();
+                socket.disconnect();
             }
+            return;
+        }
+
+        if (socket != null) {
+            if (socket.isOpen()) {
+                closeReplacedSocket();
+                replacedSocket = socket;
+            } else {
+                socket.disconnect();
+            }
+        }
+
+        // Replaced socket callbacks are ignored, so they will not report disconnection or schedule reconnection.
+        socketCallbacks = new SocketCallbacks();
+        socket = factory.createSocket(token, new WeakReference<>(socketCallbacks));
+
+        if (socket != null) {
+            socket.connect();
         }
     }
 
     /**
      * Close socket connection.
      */
-    void disconnect() {
+    synchronized void disconnect() {
+        closeReplacedSocket();
         if (socket != null) {
             socket.disconnect();
             socket = null;
         }
     }
 
+    /**
+     * Closes the open socket kept until the socket replacing it is connected.
+     */
+    private void closeReplacedSocket() {
+        if (replacedSocket != null) {
+            replacedSocket.disconnect();
+            replacedSocket = null;
+        }
+    }
+
     /**
      * Gets Comapi access token.
      *
@@ -179,7 +213,13 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
     public void onNetworkActive() {
         if (isNetworkUnavailable) {
             isNetworkUnavailable = false;
-            connect();
+            if (retryStrategy.isRetryingOnNetworkChange()) {
+                removeScheduledReconnection();
+                retryStrategy.reset();
+                connect();
+            } else if (shouldReconnect()) {
+                scheduleReconnection();
+            }
         }
     }
 
@@ -188,6 +228,75 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
         isNetworkUnavailable = true;
     }
 
+    @Override
+    public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+        log.d(() -> "Network changed. Validated " + isValidated + ", metered " + isMetered);
+        // Connection opened on the previous network may be dead, do not wait for the ping timeout.
+        if (isValidated && retryStrategy.isRetryingOnNetworkChange() && shouldReconnect()) {
+            removeScheduledReconnection();
+            retryStrategy.reset();
+            connect();
+        }
+    }
+
+    /**
+     * Socket connected. Closes the socket it replaces.
+     *
+     * @param callbacks Callbacks of the connected socket.
+     */
+    private void onSocketConnected(@NonNull final SocketCallbacks callbacks) {
+        synchronized (this) {
+            if (callbacks != socketCallbacks) {
+                return;
+            }
+            if (replacedSocket != null) {
+                closeReplacedSocket();
+                log.i("Socket replaced.");
+                retryStrategy.reset();
+                removeScheduledReconnection();
+                return;
+            }
+        }
+        onConnected();
+    }
+
+    /**
+     * Socket disconnected or failed to connect. The socket it replaces is closed too.
+     *
+     * @param callbacks Callbacks of the socket.
+     * @param dispatch  Dispatches the callback.
+     */
+    private void onSocketClosed(@NonNull final SocketCallbacks callbacks, @NonNull final Runnable dispatch) {
+        synchronized (this) {
+            if (callbacks != socketCallbacks) {
+                return;
+            }
+            closeReplacedSocket();
+        }
+        dispatch.run();
+    }
+
+    /**
+     * State callbacks of a single socket.
+     */
+    private class SocketCallbacks implements SocketStateListener {
+
+        @Override
+        public void onConnected() {
+            onSocketConnected(this);
+        }
+
+        @Override
+        public void onDisconnected() {
+            onSocketClosed(this, SocketConnectionController.this::onDisconnected);
+        }
+
+        @Override
+        public void onError(String hostAddress, URI proxyAddress, Exception exception) {
+            onSocketClosed(this, () -> SocketConnectionController.this.onError(hostAddress, proxyAddress, exception));
+        }
+    }
+
     /**
      * Schedule socket connection retry.
      */
@@ -205,7 +314,7 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
         };
         long delay = retryStrategy.getDelay();
         handler.postDelayed(runnable, delay);
-        log.d("Socket reconnection in " + delay / 1000 + " seconds.");
+        log.d(() -> "Socket reconnection in " + delay / 1000 + " seconds.");
     }
 
     /**
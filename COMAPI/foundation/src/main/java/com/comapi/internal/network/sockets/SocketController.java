@@ -20,26 +20,29 @@
 
 package com.comapi.internal.network.sockets;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.IntentFilter;
-import android.net.ConnectivityManager;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.comapi.internal.ListenerListAdapter;
+import com.comapi.internal.NetworkConnectivityListener;
 import com.comapi.internal.Parser;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.log.Logger;
-import com.comapi.internal.receivers.InternetConnectionReceiver;
+import com.comapi.internal.receivers.NetworkMonitor;
 import com.comapi.internal.lifecycle.LifecycleListener;
 
 import java.net.URI;
+import java.util.concurrent.Executor;
+
+import rx.functions.Func0;
 
 /**
  * Class to create connections. Registers for application background/foreground state changes and network connectivity changes.
- * Socket will disconnect when app is in background and reconnect when in foreground or network connection has been restored.
+ * Socket will disconnect when app stays in background for the linger period and reconnect when in foreground or network connection has been restored.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
@@ -48,9 +51,12 @@ public class SocketController {
 
     private final DataManager dataMgr;
 
-    private SocketConnectionController socketConnection;
+    private volatile SocketConnectionController socketConnection;
 
-    private BroadcastReceiver receiver;
+    /**
+     * Monitors network changes to reconnect socket when network becomes available or changes.
+     */
+    private final NetworkMonitor networkMonitor;
 
     private final Logger log;
 
@@ -58,14 +64,63 @@ public class SocketController {
 
     private final URI proxyURI;
 
+    /**
+     * Default time in milliseconds for which the socket stays connected after the app goes to background.
+     */
+    public static final long DEFAULT_BACKGROUND_LINGER = 15 * 1000;
+
+    /**
+     * Interval of checks for pending outbound work when background linger is extended.
+     */
+    private static final long LINGER_CHECK_INTERVAL = 1000;
+
     private boolean isForegrounded;
 
     private final ListenerListAdapter listener;
 
     private final Object lock;
 
+    private final Executor eventsExecutor;
+
+    private final long coalescingWindow;
+
+    private final RetryStrategy retryStrategy;
+
     /**
-     * Recommended constructor.
+     * Adaptive keep-alive learning ping intervals across connections.
+     */
+    private final KeepAliveStrategy keepAlive;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Time in milliseconds for which the socket stays connected after the app goes to background.
+     */
+    private long backgroundLinger;
+
+    /**
+     * Maximum time in milliseconds by which the background linger can be extended while there is pending outbound work.
+     */
+    private long maxLingerExtension;
+
+    /**
+     * Checks if there is pending outbound work.
+     */
+    private Func0<Boolean> hasPendingWork;
+
+    /**
+     * Scheduled disconnection of the socket after the app went to background.
+     */
+    private Runnable lingerTask;
+
+    /**
+     * True if socket should be connected when the app comes to foreground, because it was disconnected in background or the connection was
+     * requested while the app was in background.
+     */
+    private boolean isConnectPending;
+
+    /**
+     * Constructor notifying socket event listeners on the main thread.
      *
      * @param dataMgr   Manager of internal data storage.
      * @param listener  Listener for socket events.
@@ -74,7 +129,55 @@ public class SocketController {
      * @param proxyURI  Proxy URI
      */
     public SocketController(@NonNull DataManager dataMgr, ListenerListAdapter listener, @NonNull Logger log, @NonNull URI socketURI, URI proxyURI) {
+        this(dataMgr, listener, log, socketURI, proxyURI, SocketEventDispatcher.createMainThreadExecutor(), 0, createDefaultRetryStrategy());
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param dataMgr          Manager of internal data storage.
+     * @param listener         Listener for socket events.
+     * @param log              Internal logger.
+     * @param socketURI        Socket URI.
+     * @param proxyURI         Proxy URI
+     * @param eventsExecutor   Executor on which socket event listeners will be notified.
+     * @param coalescingWindow Time window in milliseconds in which typing and message status events are collected before being passed to listeners. Zero to deliver them immediately.
+     * @param retryStrategy    Strategy for socket reconnection.
+     */
+    public SocketController(@NonNull DataManager dataMgr, ListenerListAdapter listener, @NonNull Logger log, @NonNull URI socketURI, URI proxyURI, @NonNull Executor eventsExecutor, long coalescingWindow, @NonNull RetryStrategy retryStrategy) {
         this.lock = new Object();
+        this.retryStrategy = retryStrategy;
+        this.keepAlive = new KeepAliveStrategy(log);
+        this.networkMonitor = new NetworkMonitor();
+        this.networkMonitor.addListener(new NetworkConnectivityListener() {
+
+            @Override
+            public void onNetworkActive() {
+                SocketConnectionController connection = socketConnection;
+                if (connection != null) {
+                    connection.onNetworkActive();
+                }
+            }
+
+            @Override
+            public void onNetworkUnavailable() {
+                SocketConnectionController connection = socketConnection;
+                if (connection != null) {
+                    connection.onNetworkUnavailable();
+                }
+            }
+
+            @Override
+            public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+                keepAlive.onNetworkChanged(isMetered);
+                SocketConnectionController connection = socketConnection;
+                if (connection != null) {
+                    connection.onNetworkChanged(isValidated, isMetered);
+                }
+            }
+        });
+        this.eventsExecutor = eventsExecutor;
+        this.coalescingWindow = coalescingWindow;
         this.dataMgr = dataMgr;
         this.listener = listener;
         this.log = log;
@@ -84,15 +187,28 @@ public class SocketController {
     }
 
     /**
-     * Create and connect socket.
+     * Creates default socket reconnection strategy. Exponential backoff with jitter from one second up to one minute, never giving up
+     * while the app is in foreground.
+     *
+     * @return Socket reconnection strategy.
+     */
+    public static RetryStrategy createDefaultRetryStrategy() {
+        return RetryStrategy.exponential(1000, 60000, RetryStrategy.UNLIMITED_RETRIES);
+    }
+
+    /**
+     * Create and connect socket. If the app is in background the socket will be connected when the app comes to foreground.
      */
     public void connectSocket() {
 
         synchronized (lock) {
-            if (isForegrounded) {
+            if (!isForegrounded) {
+                isConnectPending = true;
+            } else {
                 if (socketConnection == null) {
-                    SocketFactory factory = new SocketFactory(socketURI, new SocketEventDispatcher(listener, new Parser()).setLogger(log), log);
-                    socketConnection = new SocketConnectionController(new Handler(Looper.getMainLooper()), dataMgr, factory, listener, new RetryStrategy(60, 60000), log);
+                    SocketEventListener eventListener = coalescingWindow > 0 ? new SocketEventCoalescer(listener, eventsExecutor, coalescingWindow) : listener;
+                    SocketFactory factory = new SocketFactory(socketURI, new SocketEventDispatcher(eventListener, new Parser(), eventsExecutor).setLogger(log), log, keepAlive);
+                    socketConnection = new SocketConnectionController(new Handler(Looper.getMainLooper()), dataMgr, factory, listener, retryStrategy, log);
                     socketConnection.setProxy(proxyURI);
                     socketConnection.connect();
 
@@ -131,12 +247,13 @@ public class SocketController {
                 synchronized (lock) {
                     if (!isForegrounded) {
                         isForegrounded = true;
-                        connectSocket();
-                        if (receiver == null) {
-                            receiver = new InternetConnectionReceiver(socketConnection);
+                        cancelLinger();
+                        if (isConnectPending) {
+                            isConnectPending = false;
+                            connectSocket();
                         }
-                        context.registerReceiver(receiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
                     }
+                    registerNetworkMonitor(context);
                     lock.notifyAll();
                 }
             }
@@ -146,9 +263,10 @@ public class SocketController {
                 synchronized (lock) {
                     if (isForegrounded) {
                         isForegrounded = false;
-                        disconnectSocket();
-                        if (receiver != null && !isForegrounded) {
-                            context.unregisterReceiver(receiver);
+                        if (backgroundLinger > 0) {
+                            scheduleLinger(context);
+                        } else {
+                            disconnectInBackground(context);
                         }
                     }
                     lock.notifyAll();
@@ -157,6 +275,142 @@ public class SocketController {
         };
     }
 
+    /**
+     * Sets the time for which the socket stays connected after the app goes to background, so switching to another app for a moment will
+     * not close the connection.
+     *
+     * @param backgroundLinger   Time in milliseconds for which the socket stays connected after the app goes to background.
+     * @param maxLingerExtension Maximum time in milliseconds by which the linger can be extended while there is pending outbound work.
+     * @param hasPendingWork     Checks if there is pending outbound work. Null if linger should not be extended.
+     */
+    public void setBackgroundLinger(long backgroundLinger, long maxLingerExtension, @Nullable Func0<Boolean> hasPendingWork) {
+        synchronized (lock) {
+            this.backgroundLinger = Math.max(0, backgroundLinger);
+            this.maxLingerExtension = Math.max(0, maxLingerExtension);
+            this.hasPendingWork = hasPendingWork;
+        }
+    }
+
+    /**
+     * Schedules socket disconnection after the background linger period.
+     *
+     * @param context Application context.
+     */
+    private void scheduleLinger(final Context context) {
+        cancelLinger();
+        final long deadline = SystemClock.elapsedRealtime() + backgroundLinger + maxLingerExtension;
+        lingerTask = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (lock) {
+                    if (isForegrounded || lingerTask != this) {
+                        return;
+                    }
+                    if (hasPendingWork != null && hasPendingWork.call() && SystemClock.elapsedRealtime() < deadline) {
+                        log.d("Pending outbound work, keeping socket connected in background.");
+                        handler.postDelayed(this, LINGER_CHECK_INTERVAL);
+                        return;
+                    }
+                    lingerTask = null;
+                    disconnectInBackground(context);
+                    lock.notifyAll();
+                }
+            }
+        };
+        handler.postDelayed(lingerTask, backgroundLinger);
+    }
+
+    private void cancelLinger() {
+        if (lingerTask != null) {
+            handler.removeCallbacks(lingerTask);
+            lingerTask = null;
+        }
+    }
+
+    /**
+     * Disconnects socket and stops monitoring network when the app is in background.
+     *
+     * @param context Application context.
+     */
+    private void disconnectInBackground(Context context) {
+        isConnectPending = true;
+        disconnectSocket();
+        networkMonitor.unregister(context);
+    }
+
+    /**
+     * Checks if the socket is kept connected for a while after the app went to background.
+     *
+     * @return True if socket disconnection is scheduled.
+     */
+    boolean isLingering() {
+        synchronized (lock) {
+            return lingerTask != null;
+        }
+    }
+
+    /**
+     * Starts monitoring network changes while the app is in foreground.
+     *
+     * @param context Application context.
+     */
+    public void startNetworkMonitor(@NonNull Context context) {
+        synchronized (lock) {
+            if (isForegrounded) {
+                registerNetworkMonitor(context);
+            }
+        }
+    }
+
+    /**
+     * Starts monitoring network changes and sets the type of the current network for the socket keep-alive, network change callbacks report
+     * only later changes.
+     *
+     * @param context Application context.
+     */
+    private void registerNetworkMonitor(@NonNull Context context) {
+        networkMonitor.register(context);
+        keepAlive.setMetered(networkMonitor.isMetered());
+    }
+
+    /**
+     * Adds listener for network changes reported while the app is in foreground.
+     *
+     * @param listener Listener for network changes.
+     */
+    public void addNetworkListener(@NonNull NetworkConnectivityListener listener) {
+        networkMonitor.addListener(listener);
+    }
+
+    /**
+     * Gets socket ping interval currently used for the network type.
+     *
+     * @return Ping interval in milliseconds.
+     */
+    public long getKeepAliveInterval() {
+        return keepAlive.getInterval();
+    }
+
+    /**
+     * Gets number of socket connections closed because the server did not answer ping in time.
+     *
+     * @return Number of dead connections detected.
+     */
+    public int getDeadConnectionsDetected() {
+        return keepAlive.getDeadConnections();
+    }
+
+    /**
+     * Checks if the socket will be connected when the app comes to foreground.
+     *
+     * @return True if the connection is pending.
+     */
+    boolean isConnectPending() {
+        synchronized (lock) {
+            return isConnectPending;
+        }
+    }
+
     boolean isAllowedToConnect() {
         return isForegrounded;
     }
@@ -0,0 +1,261 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network.sockets;
+
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.ProfileUpdateEvent;
+import com.comapi.internal.network.model.events.SocketStartEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationDeleteEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationUndeleteEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationUpdateEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantAddedEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantRemovedEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantTypingEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantTypingOffEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantUpdatedEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageDeliveredEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects high frequency socket events for a short time window before passing them to the listener. Only the last typing
+ * state of each participant is delivered and message status updates are delivered in a single batch per conversation.
+ * A read status supersedes delivered status of the same message and participant. Other events are passed through immediately.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+class SocketEventCoalescer implements SocketEventListener {
+
+    private final SocketEventListener listener;
+
+    private final Executor executor;
+
+    private final long window;
+
+    private final ScheduledExecutorService timer;
+
+    private final Object lock = new Object();
+
+    /**
+     * Last typing event per conversation participant.
+     */
+    private Map<String, Event> typing = new LinkedHashMap<>();
+
+    /**
+     * Message status updates per conversation.
+     */
+    private Map<String, StatusBatch> statuses = new LinkedHashMap<>();
+
+    private boolean isFlushScheduled;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param listener Listener for socket events.
+     * @param executor Executor on which listener is notified about the collected events.
+     * @param window   Time window in milliseconds in which events are collected.
+     */
+    SocketEventCoalescer(@NonNull SocketEventListener listener, @NonNull Executor executor, long window) {
+        this.listener = listener;
+        this.executor = executor;
+        this.window = window;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Comapi-socket-events-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onParticipantIsTyping(ParticipantTypingEvent event) {
+        onTypingEvent(event.getConversationId() + "/" + event.getProfileId(), event);
+    }
+
+    @Override
+    public void onParticipantTypingOff(ParticipantTypingOffEvent event) {
+        onTypingEvent(event.getConversationId() + "/" + event.getProfileId(), event);
+    }
+
+    @Override
+    public void onMessageDelivered(MessageDeliveredEvent event) {
+        synchronized (lock) {
+            getBatch(event.getConversationId()).add(event);
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public void onMessageRead(MessageReadEvent event) {
+        synchronized (lock) {
+            getBatch(event.getConversationId()).add(event);
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public void onMessageStatusBatch(String conversationId, List<MessageDeliveredEvent> delivered, List<MessageReadEvent> read) {
+        synchronized (lock) {
+            StatusBatch batch = getBatch(conversationId);
+            for (MessageDeliveredEvent event : delivered) {
+                batch.add(event);
+            }
+            for (MessageReadEvent event : read) {
+                batch.add(event);
+            }
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public void onMessageSent(MessageSentEvent event) {
+        listener.onMessageSent(event);
+    }
+
+    @Override
+    public void onSocketStarted(SocketStartEvent event) {
+        listener.onSocketStarted(event);
+    }
+
+    @Override
+    public void onParticipantAdded(ParticipantAddedEvent event) {
+        listener.onParticipantAdded(event);
+    }
+
+    @Override
+    public void onParticipantUpdated(ParticipantUpdatedEvent event) {
+        listener.onParticipantUpdated(event);
+    }
+
+    @Override
+    public void onParticipantRemoved(ParticipantRemovedEvent event) {
+        listener.onParticipantRemoved(event);
+    }
+
+    @Override
+    public void onConversationUpdated(ConversationUpdateEvent event) {
+        listener.onConversationUpdated(event);
+    }
+
+    @Override
+    public void onConversationDeleted(ConversationDeleteEvent event) {
+        listener.onConversationDeleted(event);
+    }
+
+    @Override
+    public void onConversationUndeleted(ConversationUndeleteEvent event) {
+        listener.onConversationUndeleted(event);
+    }
+
+    @Override
+    public void onProfileUpdate(ProfileUpdateEvent event) {
+        listener.onProfileUpdate(event);
+    }
+
+    private void onTypingEvent(String key, Event event) {
+        synchronized (lock) {
+            // Keep the latest typing state in the order of arrival.
+            typing.remove(key);
+            typing.put(key, event);
+            scheduleFlush();
+        }
+    }
+
+    private StatusBatch getBatch(String conversationId) {
+        StatusBatch batch = statuses.get(conversationId);
+        if (batch == null) {
+            batch = new StatusBatch();
+            statuses.put(conversationId, batch);
+        }
+        return batch;
+    }
+
+    private void scheduleFlush() {
+        if (!isFlushScheduled) {
+            isFlushScheduled = true;
+            timer.schedule(() -> executor.execute(this::flush), window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Delivers collected events to the listener.
+     */
+    void flush() {
+
+        final Map<String, Event> typingEvents;
+        final Map<String, StatusBatch> statusEvents;
+
+        synchronized (lock) {
+            typingEvents = typing;
+            statusEvents = statuses;
+            typing = new LinkedHashMap<>();
+            statuses = new LinkedHashMap<>();
+            isFlushScheduled = false;
+        }
+
+        for (Event event : typingEvents.values()) {
+            if (event instanceof ParticipantTypingEvent) {
+                listener.onParticipantIsTyping((ParticipantTypingEvent) event);
+            } else if (event instanceof ParticipantTypingOffEvent) {
+                listener.onParticipantTypingOff((ParticipantTypingOffEvent) event);
+            }
+        }
+
+        for (Map.Entry<String, StatusBatch> entry : statusEvents.entrySet()) {
+            StatusBatch batch = entry.getValue();
+            listener.onMessageStatusBatch(entry.getKey(), new ArrayList<>(batch.delivered.values()), new ArrayList<>(batch.read.values()));
+        }
+    }
+
+    /**
+     * Message status updates for a single conversation keyed by message and participant.
+     */
+    private static class StatusBatch {
+
+        final Map<String, MessageDeliveredEvent> delivered = new LinkedHashMap<>();
+
+        final Map<String, MessageReadEvent> read = new LinkedHashMap<>();
+
+        void add(MessageDeliveredEvent event) {
+            final String key = event.getMessageId() + "/" + event.getProfileId();
+            if (!read.containsKey(key)) {
+                delivered.put(key, event);
+            }
+        }
+
+        void add(MessageReadEvent event) {
+            final String key = event.getMessageId() + "/" + event.getProfileId();
+            delivered.remove(key);
+            read.put(key, event);
+        }
+    }
+}
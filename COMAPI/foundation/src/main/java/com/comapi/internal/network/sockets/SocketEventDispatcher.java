@@ -22,6 +22,7 @@ package com.comapi.internal.network.sockets;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.support.annotation.NonNull;
 
 import com.comapi.internal.Parser;
 import com.comapi.internal.log.Logger;
@@ -39,8 +40,19 @@ import com.comapi.internal.network.model.events.conversation.ParticipantUpdatedE
 import com.comapi.internal.network.model.events.conversation.message.MessageDeliveredEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import rx.functions.Action1;
 
 /**
  * Categorises, and dispatches socket events to message bus.
@@ -56,18 +68,71 @@ public class SocketEventDispatcher implements SocketMessageListener {
 
     private final SocketEventListener listener;
 
-    private Handler handler;
+    private final Executor executor;
 
     /**
-     * Recommended constructor.
+     * Json adapters and dispatch functions for known event types, keyed by event name.
+     */
+    private final Map<String, EventType<? extends Event>> eventTypes;
+
+    /**
+     * Constructor dispatching events on the main thread.
      *
      * @param listener Listener for all socket events.
      * @param parser   Json parser implantation.
      */
     public SocketEventDispatcher(SocketEventListener listener, Parser parser) {
+        this(listener, parser, createMainThreadExecutor());
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param listener Listener for all socket events.
+     * @param parser   Json parser implantation.
+     * @param executor Executor on which socket event listener will be notified.
+     */
+    public SocketEventDispatcher(SocketEventListener listener, Parser parser, @NonNull Executor executor) {
         this.listener = listener;
         this.parser = parser;
-        this.handler = new Handler(Looper.getMainLooper());
+        this.executor = executor;
+        this.eventTypes = new ConcurrentHashMap<>();
+        register(MessageSentEvent.TYPE, MessageSentEvent.class, this::onMessageSent);
+        register(MessageDeliveredEvent.TYPE, MessageDeliveredEvent.class, this::onMessageDelivered);
+        register(MessageReadEvent.TYPE, MessageReadEvent.class, this::onMessageRead);
+        register(ParticipantAddedEvent.TYPE, ParticipantAddedEvent.class, this::onParticipantAdded);
+        register(ParticipantUpdatedEvent.TYPE, ParticipantUpdatedEvent.class, this::onParticipantUpdated);
+        register(ParticipantRemovedEvent.TYPE, ParticipantRemovedEvent.class, this::onParticipantRemoved);
+        register(ConversationUpdateEvent.TYPE, ConversationUpdateEvent.class, this::onConversationUpdated);
+        register(ConversationDeleteEvent.TYPE, ConversationDeleteEvent.class, this::onConversationDeleted);
+        register(ConversationUndeleteEvent.TYPE, ConversationUndeleteEvent.class, this::onConversationUndeleted);
+        register(SocketStartEvent.TYPE, SocketStartEvent.class, this::onSocketStarted);
+        register(ProfileUpdateEvent.TYPE, ProfileUpdateEvent.class, this::onProfileUpdate);
+        register(ParticipantTypingEvent.TYPE, ParticipantTypingEvent.class, this::onParticipantIsTyping);
+        register(ParticipantTypingOffEvent.TYPE, ParticipantTypingOffEvent.class, this::onParticipantTypingOff);
+    }
+
+    /**
+     * Creates executor notifying socket event listeners on a dedicated background thread in the order in which events were received.
+     *
+     * @return Executor with a single background thread.
+     */
+    public static ExecutorService createDefaultExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Comapi-socket-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates executor notifying socket event listeners on the main thread.
+     *
+     * @return Executor posting to the main looper.
+     */
+    public static Executor createMainThreadExecutor() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return handler::post;
     }
 
     /**
@@ -85,56 +150,80 @@ public class SocketEventDispatcher implements SocketMessageListener {
 
         if (listener != null) {
 
-            JsonObject event = parser.parse(text, JsonObject.class);
-
-            if (event != null) {
-
-                JsonElement nameElement = event.get(Event.KEY_NAME);
-
-                if (nameElement != null) {
-
-                    String name = nameElement.getAsString();
-
-                    if (MessageSentEvent.TYPE.equals(name)) {
-                        onMessageSent(parser.parse(event, MessageSentEvent.class));
-                    } else if (MessageDeliveredEvent.TYPE.equals(name)) {
-                        onMessageDelivered(parser.parse(event, MessageDeliveredEvent.class));
-                    } else if (MessageReadEvent.TYPE.equals(name)) {
-                        onMessageRead(parser.parse(event, MessageReadEvent.class));
-                    } else if (ParticipantAddedEvent.TYPE.equals(name)) {
-                        onParticipantAdded(parser.parse(event, ParticipantAddedEvent.class));
-                    } else if (ParticipantUpdatedEvent.TYPE.equals(name)) {
-                        onParticipantUpdated(parser.parse(event, ParticipantUpdatedEvent.class));
-                    } else if (ParticipantRemovedEvent.TYPE.equals(name)) {
-                        onParticipantRemoved(parser.parse(event, ParticipantRemovedEvent.class));
-                    } else if (ConversationUpdateEvent.TYPE.equals(name)) {
-                        onConversationUpdated(parser.parse(event, ConversationUpdateEvent.class));
-                    } else if (ConversationDeleteEvent.TYPE.equals(name)) {
-                        onConversationDeleted(parser.parse(event, ConversationDeleteEvent.class));
-                    } else if (ConversationUndeleteEvent.TYPE.equals(name)) {
-                        onConversationUndeleted(parser.parse(event, ConversationUndeleteEvent.class));
-                    } else if (SocketStartEvent.TYPE.equals(name)) {
-                        onSocketStarted(parser.parse(event, SocketStartEvent.class));
-                    } else if (ProfileUpdateEvent.TYPE.equals(name)) {
-                        onProfileUpdate(parser.parse(event, ProfileUpdateEvent.class));
-                    } else if (ParticipantTypingEvent.TYPE.equals(name)) {
-                        onParticipantIsTyping(parser.parse(event, ParticipantTypingEvent.class));
-                    } else if (ParticipantTypingOffEvent.TYPE.equals(name)) {
-                        onParticipantTypingOff(parser.parse(event, ParticipantTypingOffEvent.class));
+            try {
+                String name = readEventName(text);
+                if (name != null) {
+                    EventType<?> type = eventTypes.get(name);
+                    if (type != null) {
+                        type.dispatch(createReader(text));
                     }
                 }
+            } catch (IOException | RuntimeException e) {
+                if (log != null) {
+                    log.f("Error parsing socket event.", e);
+                }
             }
         }
     }
 
+    /**
+     * Registers handler for socket events with a given name. Events are deserialised directly to the given type and passed to the handler on the dispatch executor.
+     * Replaces handler previously registered for the same event name.
+     *
+     * @param name    Event name.
+     * @param type    Class of the event.
+     * @param handler Handler for parsed events.
+     * @param <E>     Type of the event.
+     * @return Dispatcher instance with the new event type registered.
+     */
+    public <E extends Event> SocketEventDispatcher registerEventType(@NonNull String name, @NonNull Class<E> type, @NonNull Action1<E> handler) {
+        register(name, type, event -> {
+            executor.execute(() -> handler.call(event));
+            log(event);
+        });
+        return this;
+    }
+
+    private <E extends Event> void register(String name, Class<E> type, Action1<E> dispatch) {
+        eventTypes.put(name, new EventType<>(parser.getAdapter(type), dispatch));
+    }
+
+    /**
+     * Reads event name skipping other top level properties of the event without building a json tree.
+     *
+     * @param text Json string.
+     * @return Event name or null if not found.
+     * @throws IOException If the json string is malformed.
+     */
+    private String readEventName(String text) throws IOException {
+        JsonReader reader = createReader(text);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return null;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (Event.KEY_NAME.equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                return reader.nextString();
+            }
+            reader.skipValue();
+        }
+        return null;
+    }
+
+    private JsonReader createReader(String text) {
+        JsonReader reader = new JsonReader(new StringReader(text));
+        reader.setLenient(true);
+        return reader;
+    }
+
     /**
      * Dispatch conversation participant is typing event.
      *
      * @param event Event to dispatch.
      */
     private void onParticipantIsTyping(ParticipantTypingEvent event) {
-        handler.post(() -> listener.onParticipantIsTyping(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onParticipantIsTyping(event));
+        log(event);
     }
 
     /**
@@ -143,8 +232,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantTypingOff(ParticipantTypingOffEvent event) {
-        handler.post(() -> listener.onParticipantTypingOff(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onParticipantTypingOff(event));
+        log(event);
     }
 
     /**
@@ -153,8 +242,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onProfileUpdate(ProfileUpdateEvent event) {
-        handler.post(() -> listener.onProfileUpdate(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onProfileUpdate(event));
+        log(event);
     }
 
     /**
@@ -163,8 +252,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onMessageSent(MessageSentEvent event) {
-        handler.post(() -> listener.onMessageSent(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onMessageSent(event));
+        log(event);
     }
 
     /**
@@ -173,8 +262,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onMessageDelivered(MessageDeliveredEvent event) {
-        handler.post(() -> listener.onMessageDelivered(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onMessageDelivered(event));
+        log(event);
     }
 
     /**
@@ -183,8 +272,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onMessageRead(MessageReadEvent event) {
-        handler.post(() -> listener.onMessageRead(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onMessageRead(event));
+        log(event);
     }
 
     /**
@@ -193,8 +282,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onSocketStarted(SocketStartEvent event) {
-        handler.post(() -> listener.onSocketStarted(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onSocketStarted(event));
+        log(event);
     }
 
     /**
@@ -203,8 +292,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantAdded(ParticipantAddedEvent event) {
-        handler.post(() -> listener.onParticipantAdded(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onParticipantAdded(event));
+        log(event);
     }
 
     /**
@@ -213,8 +302,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantUpdated(ParticipantUpdatedEvent event) {
-        handler.post(() -> listener.onParticipantUpdated(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onParticipantUpdated(event));
+        log(event);
     }
 
     /**
@@ -223,8 +312,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantRemoved(ParticipantRemovedEvent event) {
-        handler.post(() -> listener.onParticipantRemoved(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onParticipantRemoved(event));
+        log(event);
     }
 
     /**
@@ -233,8 +322,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onConversationUpdated(ConversationUpdateEvent event) {
-        handler.post(() -> listener.onConversationUpdated(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onConversationUpdated(event));
+        log(event);
     }
 
     /**
@@ -243,8 +332,8 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onConversationDeleted(ConversationDeleteEvent event) {
-        handler.post(() -> listener.onConversationDeleted(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onConversationDeleted(event));
+        log(event);
     }
 
     /**
@@ -253,13 +342,37 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onConversationUndeleted(ConversationUndeleteEvent event) {
-        handler.post(() -> listener.onConversationUndeleted(event));
-        log("Event published " + event.toString());
+        executor.execute(() -> listener.onConversationUndeleted(event));
+        log(event);
     }
 
-    private void log(String message) {
+    private void log(Event event) {
         if (log != null) {
-            log.d(message);
+            log.d("Event published ", event);
+        }
+    }
+
+    /**
+     * Json adapter and dispatch function for a socket event type.
+     *
+     * @param <E> Type of the event.
+     */
+    private static final class EventType<E extends Event> {
+
+        private final TypeAdapter<E> adapter;
+
+        private final Action1<E> dispatch;
+
+        EventType(TypeAdapter<E> adapter, Action1<E> dispatch) {
+            this.adapter = adapter;
+            this.dispatch = dispatch;
+        }
+
+        void dispatch(JsonReader reader) throws IOException {
+            E event = adapter.read(reader);
+            if (event != null) {
+                dispatch.call(event);
+            }
         }
     }
 }
\ No newline at end of file
@@ -34,6 +34,8 @@ import com.comapi.internal.network.model.events.conversation.message.MessageDeli
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
 
+import java.util.List;
+
 /**
  * Listener for socket events.
  *
@@ -132,4 +134,13 @@ public interface SocketEventListener {
      * @param event Event to dispatch.
      */
     void onParticipantTypingOff(ParticipantTypingOffEvent event);
+
+    /**
+     * Dispatch batch of message status updates for a single conversation.
+     *
+     * @param conversationId Conversation id.
+     * @param delivered      Message delivered events.
+     * @param read           Message read events.
+     */
+    void onMessageStatusBatch(String conversationId, List<MessageDeliveredEvent> delivered, List<MessageReadEvent> read);
 }
@@ -21,6 +21,7 @@
 package com.comapi.internal.network.sockets;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.AuthManager;
@@ -67,16 +68,34 @@ class SocketFactory {
     private URI proxyAddress;
 
     /**
-     * Recommended constructor.
+     * Adaptive keep-alive. If null sockets ping the server every {@link #PING_INTERVAL}.
+     */
+    private final KeepAliveStrategy keepAlive;
+
+    /**
+     * Constructor for sockets with fixed ping interval.
      *
      * @param uri             Socket connection URI.
      * @param messageListener Listener for incoming socket messages.
      * @param log             Internal logger.
      */
     SocketFactory(@NonNull URI uri, @NonNull SocketMessageListener messageListener, @NonNull Logger log) {
+        this(uri, messageListener, log, null);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param uri             Socket connection URI.
+     * @param messageListener Listener for incoming socket messages.
+     * @param log             Internal logger.
+     * @param keepAlive       Adaptive keep-alive.
+     */
+    SocketFactory(@NonNull URI uri, @NonNull SocketMessageListener messageListener, @NonNull Logger log, @Nullable KeepAliveStrategy keepAlive) {
         this.uri = uri;
         this.messageListener = messageListener;
         this.log = log;
+        this.keepAlive = keepAlive;
     }
 
     /**
@@ -119,7 +138,7 @@ class SocketFactory {
 
             socket.addListener(createWebSocketAdapter(stateListenerWeakReference));
 
-            socket.setPingInterval(PING_INTERVAL);
+            socket.setPingInterval(keepAlive != null ? keepAlive.getInterval() : PING_INTERVAL);
 
             return new SocketWrapperImpl(socket);
         }
@@ -158,16 +177,38 @@ class SocketFactory {
             @Override
             public void onDisconnected(WebSocket websocket, WebSocketFrame serverCloseFrame, WebSocketFrame clientCloseFrame, boolean closedByServer) throws Exception {
                 super.onDisconnected(websocket, serverCloseFrame, clientCloseFrame, closedByServer);
+                if (keepAlive != null) {
+                    keepAlive.onDisconnected(websocket);
+                }
                 final SocketStateListener stateListener = stateListenerWeakReference.get();
                 if (stateListener != null) {
                     stateListener.onDisconnected();
                 }
             }
 
+            @Override
+            public void onFrameSent(WebSocket websocket, WebSocketFrame frame) throws Exception {
+                super.onFrameSent(websocket, frame);
+                if (keepAlive != null && frame.isPingFrame()) {
+                    keepAlive.onPingSent(websocket, websocket::disconnect);
+                }
+            }
+
+            @Override
+            public void onPongFrame(WebSocket websocket, WebSocketFrame frame) throws Exception {
+                super.onPongFrame(websocket, frame);
+                if (keepAlive != null) {
+                    long interval = keepAlive.onPong(websocket);
+                    if (interval != websocket.getPingInterval()) {
+                        websocket.setPingInterval(interval);
+                    }
+                }
+            }
+
             @Override
             public void onTextMessage(WebSocket websocket, String text) throws Exception {
                 super.onTextMessage(websocket, text);
-                log.d("Socket message received = " + text);
+                log.d("Socket message received = ", text);
                 messageListener.onMessage(text);
             }
 
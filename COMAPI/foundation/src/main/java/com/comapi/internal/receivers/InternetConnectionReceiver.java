@@ -31,15 +31,22 @@ import com.comapi.internal.NetworkConnectivityListener;
 import java.lang.ref.WeakReference;
 
 /**
- * Broadcast receiver for network connectivity changes.
+ * Broadcast receiver for network connectivity changes. Used by {@link NetworkMonitor} on platforms older than Android N.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
  */
 public class InternetConnectionReceiver extends BroadcastReceiver {
 
+    private static final int NO_NETWORK = -1;
+
     private final WeakReference<NetworkConnectivityListener> listenerWeakReference;
 
+    /**
+     * Type of the last active network, see {@link ConnectivityManager#TYPE_WIFI}.
+     */
+    private int lastNetworkType = NO_NETWORK;
+
     /**
      * Recommended constructor.
      *
@@ -58,8 +65,13 @@ public class InternetConnectionReceiver extends BroadcastReceiver {
                 NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
                 if (activeNetwork != null) {
                     listener.onNetworkActive();
+                    if (lastNetworkType != NO_NETWORK && lastNetworkType != activeNetwork.getType()) {
+                        listener.onNetworkChanged(activeNetwork.isConnected(), cm.isActiveNetworkMetered());
+                    }
+                    lastNetworkType = activeNetwork.getType();
                 } else {
                     listener.onNetworkUnavailable();
+                    lastNetworkType = NO_NETWORK;
                 }
             }
         }
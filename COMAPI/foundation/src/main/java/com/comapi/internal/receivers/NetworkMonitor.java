@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.receivers;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import com.comapi.internal.NetworkConnectivityListener;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Monitors the default network. On Android N and above uses {@link ConnectivityManager.NetworkCallback} to report network handovers
+ * (e.g. Wi-Fi to mobile data), validation of internet access and metered state as soon as they happen. On older platforms falls back to
+ * {@link ConnectivityManager#CONNECTIVITY_ACTION} broadcasts. Listeners are always notified on the main thread.
+ *
+ * @author Marcin Swierczek
+ * @since 1.3.0
+ */
+public class NetworkMonitor {
+
+    private final CopyOnWriteArrayList<NetworkConnectivityListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Network callbacks are called on a connectivity thread, listeners expect the main thread as with the broadcasts.
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Forwards network events to all registered listeners.
+     */
+    private final NetworkConnectivityListener dispatcher = new NetworkConnectivityListener() {
+
+        @Override
+        public void onNetworkActive() {
+            for (NetworkConnectivityListener listener : listeners) {
+                listener.onNetworkActive();
+            }
+        }
+
+        @Override
+        public void onNetworkUnavailable() {
+            for (NetworkConnectivityListener listener : listeners) {
+                listener.onNetworkUnavailable();
+            }
+        }
+
+        @Override
+        public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+            for (NetworkConnectivityListener listener : listeners) {
+                listener.onNetworkChanged(isValidated, isMetered);
+            }
+        }
+    };
+
+    /**
+     * Network callback on Android N and above.
+     */
+    private ConnectivityManager.NetworkCallback callback;
+
+    /**
+     * Connectivity broadcasts receiver on older platforms.
+     */
+    private InternetConnectionReceiver receiver;
+
+    /**
+     * True if the current default network is metered. Unknown network is treated as metered.
+     */
+    private volatile boolean isMetered = true;
+
+    /**
+     * Adds listener for network changes.
+     *
+     * @param listener Listener for network changes.
+     */
+    public void addListener(@NonNull NetworkConnectivityListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Removes listener for network changes.
+     *
+     * @param listener Listener for network changes.
+     */
+    public void removeListener(@NonNull NetworkConnectivityListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts monitoring the network. Does nothing if already started.
+     *
+     * @param context Application context.
+     */
+    public synchronized void register(@NonNull Context context) {
+        if (callback != null || receiver != null) {
+            return;
+        }
+        ConnectivityManager cm = (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm != null) {
+            isMetered = cm.isActiveNetworkMetered();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && cm != null) {
+            callback = createNetworkCallback();
+            cm.registerDefaultNetworkCallback(callback);
+        } else {
+            receiver = new InternetConnectionReceiver(dispatcher);
+            context.getApplicationContext().registerReceiver(receiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+        }
+    }
+
+    /**
+     * Checks if the current default network is metered. Read when monitoring starts and updated with network capabilities on Android N and above.
+     *
+     * @return True if the current network is metered or unknown.
+     */
+    public boolean isMetered() {
+        return isMetered;
+    }
+
+    /**
+     * Stops monitoring the network.
+     *
+     * @param context Application context.
+     */
+    public synchronized void unregister(@NonNull Context context) {
+        if (callback != null) {
+            ConnectivityManager cm = (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (cm != null) {
+                cm.unregisterNetworkCallback(callback);
+            }
+            callback = null;
+        }
+        if (receiver != null) {
+            context.getApplicationContext().unregisterReceiver(receiver);
+            receiver = null;
+        }
+    }
+
+    /**
+     * Creates callback for default network changes.
+     *
+     * @return Callback for default network changes.
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    private ConnectivityManager.NetworkCallback createNetworkCallback() {
+
+        return new ConnectivityManager.NetworkCallback() {
+
+            /**
+             * Current default network. Null if there is none.
+             */
+            private Network network;
+
+            /**
+             * Network which capabilities were last reported.
+             */
+            private Network capabilitiesNetwork;
+
+            private boolean isValidated;
+
+            @Override
+            public void onAvailable(Network network) {
+                boolean wasUnavailable;
+                synchronized (this) {
+                    wasUnavailable = this.network == null;
+                    this.network = network;
+                }
+                if (wasUnavailable) {
+                    handler.post(dispatcher::onNetworkActive);
+                }
+            }
+
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                boolean validated = capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+                boolean metered = !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+                boolean isChanged;
+                synchronized (this) {
+                    // First capabilities after a period without network are not a change, onNetworkActive was reported.
+                    // Only a switch to other network or newly gained internet access may leave the socket connection dead.
+                    isChanged = capabilitiesNetwork != null && (!network.equals(capabilitiesNetwork) || (validated && !isValidated));
+                    this.capabilitiesNetwork = network;
+                    this.isValidated = validated;
+                }
+                isMetered = metered;
+                if (isChanged) {
+                    handler.post(() -> dispatcher.onNetworkChanged(validated, metered));
+                }
+            }
+
+            @Override
+            public void onLost(Network network) {
+                synchronized (this) {
+                    if (!network.equals(this.network)) {
+                        return;
+                    }
+                    this.network = null;
+                    this.capabilitiesNetwork = null;
+                }
+                handler.post(dispatcher::onNetworkUnavailable);
+            }
+        };
+    }
+}
@@ -27,8 +27,12 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Looper;
 import android.support.v4.content.LocalBroadcastManager;
 import android.text.TextUtils;
 
@@ -45,6 +49,7 @@ import com.comapi.internal.log.LogLevel;
 import com.comapi.internal.network.AuthManager;
 import com.comapi.internal.push.IDService;
 import com.comapi.internal.receivers.InternetConnectionReceiver;
+import com.comapi.internal.receivers.NetworkMonitor;
 import com.comapi.mock.MockAuthenticator;
 import com.comapi.mock.ShadowGoogleApiAvailability;
 import com.google.android.gms.common.ConnectionResult;
@@ -58,16 +63,21 @@ import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowApplication;
 import org.robolectric.shadows.ShadowBluetoothAdapter;
+import org.robolectric.shadows.ShadowConnectivityManager;
+import org.robolectric.shadows.ShadowNetworkInfo;
 import org.robolectric.android.controller.ActivityController;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
@@ -163,6 +173,8 @@ public class ComapiClientTest {
             }
         });
         assertNotNull(pc.getComapiService());
+        assertTrue(pc.getSocketKeepAliveInterval() > 0);
+        assertEquals(0, pc.getSocketDeadConnectionsDetected());
 
         DataTestHelper.clearSessionData();
         DataTestHelper.clearDeviceData();
@@ -469,6 +481,11 @@ public class ComapiClientTest {
             public void onNetworkUnavailable() {
 
             }
+
+            @Override
+            public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+
+            }
         });
 
         RuntimeEnvironment.application.registerReceiver(receiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
@@ -479,6 +496,142 @@ public class ComapiClientTest {
         assertTrue(connectionReceived[0]);
     }
 
+    @Test
+    public void connectivity_networkChanged() {
+
+        final AtomicInteger changes = new AtomicInteger();
+
+        NetworkMonitor monitor = new NetworkMonitor();
+        monitor.addListener(new NetworkConnectivityListener() {
+            @Override
+            public void onNetworkActive() {
+
+            }
+
+            @Override
+            public void onNetworkUnavailable() {
+
+            }
+
+            @Override
+            public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+                changes.incrementAndGet();
+                assertTrue(isValidated);
+            }
+        });
+        monitor.register(RuntimeEnvironment.application);
+
+        ShadowConnectivityManager shadowConnectivityManager = Shadows.shadowOf((ConnectivityManager) RuntimeEnvironment.application.getSystemService(Context.CONNECTIVITY_SERVICE));
+        Intent intent = new Intent(ConnectivityManager.CONNECTIVITY_ACTION);
+
+        shadowConnectivityManager.setActiveNetworkInfo(ShadowNetworkInfo.newInstance(NetworkInfo.DetailedState.CONNECTED, ConnectivityManager.TYPE_WIFI, 0, true, true));
+        RuntimeEnvironment.application.sendBroadcast(intent);
+        assertEquals(0, changes.get());
+
+        shadowConnectivityManager.setActiveNetworkInfo(ShadowNetworkInfo.newInstance(NetworkInfo.DetailedState.CONNECTED, ConnectivityManager.TYPE_MOBILE, 0, true, true));
+        RuntimeEnvironment.application.sendBroadcast(intent);
+        assertEquals(1, changes.get());
+
+        monitor.unregister(RuntimeEnvironment.application);
+        RuntimeEnvironment.application.sendBroadcast(intent);
+        assertEquals(1, changes.get());
+    }
+
+    @Test
+    @Config(sdk = Build.VERSION_CODES.N)
+    public void connectivity_networkCallback() throws Exception {
+
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger unavailable = new AtomicInteger();
+        final AtomicInteger changes = new AtomicInteger();
+        final boolean[] validated = {false};
+
+        NetworkMonitor monitor = new NetworkMonitor();
+        monitor.addListener(new NetworkConnectivityListener() {
+            @Override
+            public void onNetworkActive() {
+                assertEquals(Looper.getMainLooper(), Looper.myLooper());
+                active.incrementAndGet();
+            }
+
+            @Override
+            public void onNetworkUnavailable() {
+                unavailable.incrementAndGet();
+            }
+
+            @Override
+            public void onNetworkChanged(boolean isValidated, boolean isMetered) {
+                assertEquals(Looper.getMainLooper(), Looper.myLooper());
+                validated[0] = isValidated;
+                changes.incrementAndGet();
+            }
+        });
+
+        Method create = NetworkMonitor.class.getDeclaredMethod("createNetworkCallback");
+        create.setAccessible(true);
+        ConnectivityManager.NetworkCallback callback = (ConnectivityManager.NetworkCallback) create.invoke(monitor);
+
+        Network wifi = createNetwork(1);
+        Network mobile = createNetwork(2);
+
+        callback.onAvailable(wifi);
+        callback.onCapabilitiesChanged(wifi, createCapabilities(true, false));
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(1, active.get());
+        assertEquals(0, changes.get());
+
+        // Metered state of the same network is not a change.
+        callback.onCapabilitiesChanged(wifi, createCapabilities(true, true));
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(0, changes.get());
+
+        // Handover to other network.
+        callback.onAvailable(mobile);
+        callback.onLost(wifi);
+        callback.onCapabilitiesChanged(mobile, createCapabilities(false, true));
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(1, active.get());
+        assertEquals(0, unavailable.get());
+        assertEquals(1, changes.get());
+        assertFalse(validated[0]);
+
+        // Newly gained internet access.
+        callback.onCapabilitiesChanged(mobile, createCapabilities(true, true));
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(2, changes.get());
+        assertTrue(validated[0]);
+
+        // Lost validation is not a change.
+        callback.onCapabilitiesChanged(mobile, createCapabilities(false, true));
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(2, changes.get());
+
+        callback.onLost(mobile);
+        Robolectric.flushForegroundThreadScheduler();
+        assertEquals(1, unavailable.get());
+    }
+
+    private Network createNetwork(int netId) throws Exception {
+        Constructor<Network> constructor = Network.class.getDeclaredConstructor(int.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(netId);
+    }
+
+    private NetworkCapabilities createCapabilities(boolean isValidated, boolean isMetered) throws Exception {
+        Constructor<NetworkCapabilities> constructor = NetworkCapabilities.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        NetworkCapabilities capabilities = constructor.newInstance();
+        Method add = NetworkCapabilities.class.getDeclaredMethod("addCapability", int.class);
+        add.setAccessible(true);
+        if (isValidated) {
+            add.invoke(capabilities, NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+        }
+        if (!isMetered) {
+            add.invoke(capabilities, NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+        }
+        return capabilities;
+    }
+
     @Test
     public void listeners() {
 
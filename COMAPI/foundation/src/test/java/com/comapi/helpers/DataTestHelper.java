@@ -108,7 +108,11 @@ public class DataTestHelper {
     public static void clearSessionData() {
         SharedPreferences sharedPreferences = RuntimeEnvironment.application.getSharedPreferences(fileNameSession, Context.MODE_PRIVATE);
         SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.clear().apply();
+        // Editor.clear() doesn't notify change listeners, remove keys one by one so in-memory copies are invalidated.
+        for (String key : sharedPreferences.getAll().keySet()) {
+            editor.remove(key);
+        }
+        editor.apply();
     }
 
     public static void saveDeviceData() {
@@ -23,10 +23,12 @@ package com.comapi.internal.data;
 import android.os.Build;
 
 import com.comapi.BuildConfig;
+import com.comapi.helpers.DataTestHelper;
 import com.comapi.internal.log.LogManager;
 
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.model.messaging.MessageReceived;
+import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.messaging.OrphanedEvent;
 
 import org.junit.After;
@@ -39,8 +41,11 @@ import org.robolectric.annotation.Config;
 
 import static com.comapi.helpers.DataTestHelper.API_SPACE_ID;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Robolectric tests for application lifecycle observer.
@@ -128,6 +133,70 @@ public class DataTest {
         assertNull(sessionDAO.session());
     }
 
+    @Test
+    public void testOutboxDAO() {
+
+        OutboxDAO outboxDAO = mgr.getOutboxDAO();
+
+        outboxDAO.add("c1", "conversation1", MessageToSend.builder().addMetadata("key", "first").build());
+        outboxDAO.add("c2", "conversation2", MessageToSend.builder().build());
+        outboxDAO.add("c3", "conversation1", MessageToSend.builder().addMetadata("key", "second").build());
+        outboxDAO.add("c1", "conversation1", MessageToSend.builder().build());
+        assertEquals(2, outboxDAO.getConversationIds().size());
+
+        OutboxDAO.Entry entry = outboxDAO.peek("conversation1");
+        assertEquals("c1", entry.getClientId());
+        assertEquals("conversation1", entry.getConversationId());
+        assertEquals("first", entry.getMessage().getMetadata().get("key"));
+
+        assertTrue(outboxDAO.remove("c1"));
+        assertFalse(outboxDAO.remove("c1"));
+        assertEquals("second", outboxDAO.peek("conversation1").getMessage().getMetadata().get("key"));
+
+        outboxDAO.clear();
+        assertNull(outboxDAO.peek("conversation1"));
+        assertTrue(outboxDAO.getConversationIds().isEmpty());
+    }
+
+    @Test
+    public void testSessionDAO_snapshot() {
+
+        SessionDAO sessionDAO = mgr.getSessionDAO();
+
+        sessionDAO.startSession();
+        sessionDAO.updateSessionDetails(new SessionData().setProfileId("profileId").setAccessToken("token").setSessionId("sessionId").setExpiresOn(Long.MAX_VALUE));
+
+        SessionData loadedSession = sessionDAO.session();
+        assertEquals("token", loadedSession.getAccessToken());
+        assertTrue(loadedSession == sessionDAO.session());
+
+        // Snapshot is shared and read-only.
+        try {
+            loadedSession.setAccessToken("other");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals("token", sessionDAO.session().getAccessToken());
+        }
+
+        // Own writes swap the snapshot without reloading it.
+        SessionData update = new SessionData().setProfileId("profileId").setAccessToken("token1").setSessionId("sessionId").setExpiresOn(Long.MAX_VALUE);
+        sessionDAO.updateSessionDetails(update);
+        loadedSession = sessionDAO.session();
+        assertEquals("token1", loadedSession.getAccessToken());
+        assertTrue(loadedSession == sessionDAO.session());
+        update.setAccessToken("token3");
+        assertEquals("token1", sessionDAO.session().getAccessToken());
+
+        // Changes made directly in internal storage are picked up.
+        DataTestHelper.clearSessionData();
+        assertNull(sessionDAO.session());
+
+        // Other DAO instance for the same file.
+        SessionDAO otherDAO = new SessionDAO(RuntimeEnvironment.application, API_SPACE_ID);
+        otherDAO.updateSessionDetails(new SessionData().setProfileId("profileId").setAccessToken("token2").setSessionId("sessionId2").setExpiresOn(Long.MAX_VALUE));
+        assertEquals("token2", sessionDAO.session().getAccessToken());
+    }
+
     @Test
     public void testOrphanedEventConstructors() throws Exception {
         OrphanedEvent event = new OrphanedEvent();
@@ -157,5 +226,6 @@ public class DataTest {
     public void tearDown() throws Exception {
         mgr.getDeviceDAO().clearAll();
         mgr.getSessionDAO().clearAll();
+        mgr.getOutboxDAO().clear();
     }
 }
\ No newline at end of file
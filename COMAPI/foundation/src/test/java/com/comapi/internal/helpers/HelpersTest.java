@@ -22,9 +22,11 @@ package com.comapi.internal.helpers;
 
 import android.content.Context;
 import android.os.Build;
+import android.util.Log;
 
 import com.comapi.BuildConfig;
 
+import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
@@ -38,6 +40,13 @@ import org.robolectric.shadows.ShadowWifiManager;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
@@ -76,6 +85,86 @@ public class HelpersTest {
     @Test
     public void testDateHelper_wrongDate() {
         assertEquals(true, DateHelper.getUTCMilliseconds("wrong date") == -1);
+        assertEquals(true, DateHelper.getUTCMilliseconds("2017-01-25T13:54:x2.888Z") == -1);
+    }
+
+    @Test
+    public void testDateHelper_sameAsDateFormat() {
+
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        long[] times = {0, -1, 1, 951782400000L, 951868799999L, 4102444800000L, -12219292800001L, 253402300799999L, 253402300800000L};
+        for (long time : times) {
+            assertEquals(sdf.format(new Date(time)), DateHelper.getUTC(time));
+            assertEquals(time, DateHelper.getUTCMilliseconds(sdf.format(new Date(time))));
+        }
+
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            long time = random.nextLong() % 4102444800000L;
+            String expected = sdf.format(new Date(time));
+            assertEquals(expected, DateHelper.getUTC(time));
+            assertEquals(time, DateHelper.getUTCMilliseconds(expected));
+        }
+
+        // Same lenient parsing as date format for strings outside of fixed pattern
+        assertEquals(DateHelper.getUTCMilliseconds("2017-03-02T00:00:00.000Z"), DateHelper.getUTCMilliseconds("2017-02-30T00:00:00.000Z"));
+    }
+
+    /**
+     * Compares formatting and parsing dates with a date format created per call, as DateHelper did before, and with {@link DateHelper}.
+     * Timings depend on the machine so nothing is asserted, results are logged.
+     */
+    @Ignore("Benchmark, run manually.")
+    @Test
+    public void testDateHelper_benchmark() throws ParseException {
+
+        final int warmUp = 20000;
+        final int count = 100000;
+        final long time = 1500000000000L;
+
+        measureDateFormat(time, warmUp);
+        measureDateHelper(time, warmUp);
+
+        long[] dateFormat = measureDateFormat(time, count);
+        long[] helper = measureDateHelper(time, count);
+
+        Log.i("HelpersTest", "Formatting and parsing " + count + " dates: SimpleDateFormat " + TimeUnit.NANOSECONDS.toMillis(dateFormat[0]) + "ms, DateHelper "
+                + TimeUnit.NANOSECONDS.toMillis(helper[0]) + "ms, checksums " + dateFormat[1] + " " + helper[1]);
+    }
+
+    /**
+     * Formats and parses dates with a new date format for each date.
+     *
+     * @return Elapsed time in nanoseconds and checksum of parsed dates.
+     */
+    private static long[] measureDateFormat(long time, int count) throws ParseException {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            String text = sdf.format(new Date(time + i));
+            sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            checksum += sdf.parse(text).getTime();
+        }
+        return new long[]{System.nanoTime() - start, checksum};
+    }
+
+    /**
+     * Formats and parses dates with {@link DateHelper}.
+     *
+     * @return Elapsed time in nanoseconds and checksum of parsed dates.
+     */
+    private static long[] measureDateHelper(long time, int count) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            checksum += DateHelper.getUTCMilliseconds(DateHelper.getUTC(time + i));
+        }
+        return new long[]{System.nanoTime() - start, checksum};
     }
 
     @Test
@@ -35,13 +35,18 @@ import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowLog;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -231,6 +236,124 @@ public class LoggingTest {
         file0.delete();
     }
 
+    @Test
+    public void testLazyMessages() throws InterruptedException {
+
+        ShadowLog.stream = ps;
+
+        LogManager mgr = new LogManager();
+        mgr.init(RuntimeEnvironment.application, LogLevelConst.WARNING, LogLevelConst.OFF, LIMIT);
+        Logger log = new Logger(mgr, "LoggingTest");
+
+        assertTrue(log.isLoggable(LogLevelConst.WARNING));
+        assertFalse(log.isLoggable(LogLevelConst.INFO));
+        assertFalse(log.isLoggable(LogLevelConst.DEBUG));
+
+        final AtomicInteger created = new AtomicInteger();
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                created.incrementAndGet();
+                return "@arg@";
+            }
+        };
+
+        String id = UUID.randomUUID().toString();
+        log.d(() -> {
+            created.incrementAndGet();
+            return debugMsg + id;
+        });
+        log.i(infoMsg + id + " ", arg);
+        assertEquals(0, created.get());
+
+        log.w(wrnMsg + id + " ", arg);
+        log.w(() -> errorMsg + id);
+        assertEquals(1, created.get());
+
+        String logCat = baos.toString();
+        assertTrue(logCat.contains(wrnMsg + id + " @arg@"));
+        assertTrue(logCat.contains(errorMsg + id));
+        assertFalse(logCat.contains(debugMsg + id));
+        assertFalse(logCat.contains(infoMsg + id));
+    }
+
+    @Test
+    public void testQueuedEntries() throws InterruptedException {
+
+        ShadowLog.stream = null;
+
+        LogManager mgr = new LogManager();
+        mgr.init(RuntimeEnvironment.application, LogLevelConst.OFF, LogLevelConst.DEBUG, 10000);
+        Logger log = new Logger(mgr, "LoggingTest");
+
+        String id = UUID.randomUUID().toString();
+        int count = 4 * AppenderFile.QUEUE_CAPACITY;
+        for (int i = 0; i < count; i++) {
+            log.d(id + " " + i);
+        }
+
+        String logs = mgr.getLogs().toBlocking().first();
+
+        // Each entry is either written or counted as dropped.
+        int written = 0;
+        int dropped = 0;
+        for (String line : logs.split("\n")) {
+            if (line.contains(id)) {
+                written++;
+            } else if (line.contains(" log entries dropped")) {
+                dropped += Integer.parseInt(line.substring(line.indexOf(": ") + 2, line.indexOf(" log entries dropped")));
+            }
+        }
+        assertEquals(count, written + dropped);
+        assertTrue(logs.contains(id + " 0\n"));
+    }
+
+    @Test
+    public void testCompressedRollOver() throws IOException {
+
+        ShadowLog.stream = null;
+
+        LogManager mgr = new LogManager();
+        mgr.init(RuntimeEnvironment.application, LogLevelConst.OFF, LogLevelConst.DEBUG, 500, 3, true);
+        Logger log = new Logger(mgr, "LoggingTest");
+
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        String text = new String(chars);
+
+        String id = UUID.randomUUID().toString();
+        int count = 1200;
+        for (int i = 0; i < count; i++) {
+            log.d(id + i + " " + text);
+        }
+
+        int lines = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(mgr.getLogsStream().toBlocking().first()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.contains(id)) {
+                lines++;
+            }
+        }
+        reader.close();
+        assertEquals(count, lines);
+
+        File dir = RuntimeEnvironment.application.getFilesDir();
+        assertTrue(new File(dir, name(1)).exists());
+        assertTrue(new File(dir, name(2) + ".gz").exists());
+        assertTrue(new File(dir, name(3) + ".gz").exists());
+        assertFalse(new File(dir, name(2)).exists());
+        assertFalse(new File(dir, name(4) + ".gz").exists());
+
+        File file0 = new File(dir, UUID.randomUUID().toString());
+        File file = mgr.copyLogs(file0).toBlocking().first();
+        String merged = FileHelper.readFile(file);
+        assertTrue(merged.contains(id + "0 "));
+        assertTrue(merged.contains(id + (count - 1) + " "));
+        //noinspection ResultOfMethodCallIgnored
+        file0.delete();
+    }
+
     private String name(int index) {
         // Private config in AppenderFile
         String LOG_FILE_NAME = "comapi_logs_";
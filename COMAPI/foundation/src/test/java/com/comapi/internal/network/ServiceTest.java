@@ -35,20 +35,28 @@ import com.comapi.helpers.ResponseTestHelper;
 import com.comapi.internal.CallbackAdapter;
 import com.comapi.internal.ComapiException;
 import com.comapi.internal.ListenerListAdapter;
+import com.comapi.internal.Parser;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.data.SessionData;
+import com.comapi.internal.data.UploadState;
 import com.comapi.internal.log.LogLevel;
 import com.comapi.internal.log.LogManager;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.api.RestApi;
+import com.comapi.internal.network.model.conversation.ConversationDetails;
 import com.comapi.internal.network.model.conversation.Participant;
 import com.comapi.internal.network.model.conversation.Scope;
+import com.comapi.internal.network.model.events.ProfileUpdateEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
 import com.comapi.internal.network.model.messaging.Alert;
 import com.comapi.internal.network.model.messaging.MessageReceived;
+import com.comapi.internal.network.model.messaging.MessageSentResponse;
 import com.comapi.internal.network.model.messaging.MessageStatus;
 import com.comapi.internal.network.model.messaging.MessageToSend;
+import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.OrphanedEvent;
 import com.comapi.internal.network.model.messaging.Part;
+import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.profile.ComapiProfile;
 import com.comapi.internal.network.sockets.SocketController;
 import com.comapi.internal.push.PushManager;
@@ -62,21 +70,30 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import rx.Observable;
 import rx.Observer;
+import rx.schedulers.Schedulers;
 
 import static com.comapi.helpers.DataTestHelper.API_SPACE_ID;
 import static junit.framework.Assert.assertEquals;
@@ -187,12 +204,14 @@ public class ServiceTest {
         MockResponse mr = new MockResponse();
         mr.setResponseCode(204);
         server.enqueue(mr);
+        dataMgr.getUploadDAO().save("key", new UploadState("uploadId", 10, 5));
 
         service.endSession().toBlocking().forEach(response -> {
             assertEquals(true, response.isSuccessful());
             assertEquals(204, response.getCode());
             assertNull(response.getResult());
         });
+        assertNull(dataMgr.getUploadDAO().load("key"));
     }
 
     @Test(expected = RuntimeException.class)
@@ -221,6 +240,117 @@ public class ServiceTest {
 
     }
 
+    @Test
+    public void getProfile_concurrentCallsShared() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag").setBodyDelay(1, TimeUnit.SECONDS));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag"));
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        service.getProfile("profileId").subscribe(response -> latch.countDown(), t -> fail());
+        service.getProfile("profileId").subscribe(response -> latch.countDown(), t -> fail());
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+
+        // Finished call is not shared.
+        service.profileCache.clear();
+        service.getProfile("profileId").toBlocking().first();
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void getProfile_cached() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag2"));
+
+        ComapiResult<Map<String, Object>> response = service.getProfile("profileId").toBlocking().first();
+        assertEquals(true, response.isSuccessful());
+
+        ComapiResult<Map<String, Object>> cached = service.getProfile("profileId").toBlocking().first();
+        assertEquals(true, cached.isSuccessful());
+        assertEquals(200, cached.getCode());
+        assertEquals("eTag", cached.getETag());
+        assertEquals("firstName", cached.getResult().get("firstName"));
+        assertEquals(1, server.getRequestCount());
+
+        // Socket event patches cached profile.
+        String json = ResponseTestHelper.readFromFile(this, "profile_update.json").replace("userABC", "profileId");
+        service.profileCache.onProfileUpdate(new Parser().parse(json, ProfileUpdateEvent.class));
+        cached = service.getProfile("profileId").toBlocking().first();
+        assertEquals("John", cached.getResult().get("forename"));
+        assertEquals("firstName", cached.getResult().get("firstName"));
+        assertEquals("\"33-EFUJLArhd3ar+j1D4/TR3JfNcvE\"", cached.getETag());
+        assertEquals(1, server.getRequestCount());
+
+        service.profileCache.invalidate("profileId");
+        response = service.getProfile("profileId").toBlocking().first();
+        assertEquals("eTag2", response.getETag());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void profileCache_limits() throws Exception {
+
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("id", "id");
+        ComapiResult<Map<String, Object>> result = new ComapiResult<>(profile, true, "eTag", 200, "OK", null);
+
+        ProfileCache expiring = new ProfileCache(ProfileCache.MAX_ENTRIES, ProfileCache.MAX_CACHE_SIZE, 0);
+        expiring.put("id", result);
+        assertNull(expiring.get("id"));
+
+        ProfileCache small = new ProfileCache(2, ProfileCache.MAX_CACHE_SIZE, ProfileCache.DEFAULT_TTL);
+        small.put("id1", result);
+        small.put("id2", result);
+        assertNotNull(small.get("id1"));
+        small.put("id3", result);
+        assertNotNull(small.get("id1"));
+        assertNull(small.get("id2"));
+        assertNotNull(small.get("id3"));
+    }
+
+    @Test
+    public void getProfiles() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_query.json", 200));
+
+        List<String> ids = new ArrayList<>();
+        ids.add("p1");
+        ids.add("p2");
+        ids.add("missing");
+
+        ComapiResult<Map<String, ComapiProfile>> response = service.getProfileServiceWithDefaults().getProfiles(ids).toBlocking().first();
+        assertEquals(true, response.isSuccessful());
+        assertEquals(3, response.getResult().size());
+        assertEquals("p1", response.getResult().get("p1").getId());
+        assertEquals("p2", response.getResult().get("p2").getId());
+        assertTrue(response.getResult().containsKey("missing"));
+        assertNull(response.getResult().get("missing"));
+        assertFalse(response.getResult().containsKey("p3"));
+        assertEquals(1, server.getRequestCount());
+        assertTrue(server.takeRequest().getPath().contains("id[]=p1&id[]=p2&id[]=missing"));
+    }
+
+    @Test
+    public void getProfiles_chunked() throws Exception {
+
+        for (int i = 0; i < 10; i++) {
+            server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_query.json", 200));
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+
+        ComapiResult<Map<String, ComapiProfile>> response = service.getProfileServiceWithDefaults().getProfiles(ids).toBlocking().first();
+        assertEquals(true, response.isSuccessful());
+        assertEquals(200, response.getResult().size());
+        assertTrue(server.getRequestCount() > 1);
+    }
+
     @Test
     public void getProfileWithDefaults() throws Exception {
 
@@ -680,6 +810,35 @@ public class ServiceTest {
         });
     }
 
+    @Test
+    public void isTyping_throttling() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        service.setTypingThrottling(TimeUnit.MINUTES.toMillis(1), 1000);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(service.isTyping("conversationId").timeout(3, TimeUnit.SECONDS).toBlocking().first().isSuccessful());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals("POST", server.takeRequest().getMethod());
+
+        // typing off sent after idle timeout
+        assertEquals("DELETE", server.takeRequest(5, TimeUnit.SECONDS).getMethod());
+        assertEquals(2, server.getRequestCount());
+
+        // explicit typing off sent after the previous one finished
+        Thread.sleep(500);
+        assertTrue(service.isTyping("conversationId", false).timeout(3, TimeUnit.SECONDS).toBlocking().first().isSuccessful());
+        assertEquals(3, server.getRequestCount());
+
+        assertTrue(service.isTyping("conversationId").timeout(3, TimeUnit.SECONDS).toBlocking().first().isSuccessful());
+        assertEquals(4, server.getRequestCount());
+    }
+
     @Test
     public void isTyping_sessionCreateInProgress() throws Exception {
         isCreateSessionInProgress.set(true);
@@ -762,6 +921,39 @@ public class ServiceTest {
         createConversation();
     }
 
+    @Test
+    public void getConversation_notModified() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_conversation_get.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "eTag"));
+
+        ComapiResult<ConversationDetails> response = service.getConversation("someId").toBlocking().first();
+        assertEquals(200, response.getCode());
+        assertNotNull(response.getResult().getId());
+
+        response = service.getConversation("someId").toBlocking().first();
+        assertEquals(true, response.isSuccessful());
+        assertEquals(200, response.getCode());
+        assertEquals("eTag", response.getETag());
+        assertNotNull(response.getResult().getId());
+
+        server.takeRequest();
+        assertEquals("eTag", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void queryEvents_notCached() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_events_query.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_events_query.json", 200).addHeader("ETag", "eTag"));
+
+        service.queryEvents("someId", 0L, 100).toBlocking().first();
+        service.queryEvents("someId", 0L, 100).toBlocking().first();
+
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+    }
+
     @Test
     public void getConversation() throws Exception {
 
@@ -989,6 +1181,32 @@ public class ServiceTest {
         assertEquals(0, service.getTaskQueue().queue.size());
     }
 
+    @Test
+    public void participants_sessionCreateInProgress_orderedPerConversation() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(201).setBodyDelay(1, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setResponseCode(204));
+
+        List<Participant> participants = new ArrayList<>();
+        participants.add(Participant.builder().setId("pA").setIsParticipant().build());
+        List<String> ids = new ArrayList<>();
+        ids.add("pA");
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        isCreateSessionInProgress.set(true);
+        service.addParticipants("someId", participants).subscribe(response -> latch.countDown(), t -> fail());
+        service.removeParticipants("someId", ids).subscribe(response -> latch.countDown(), t -> fail());
+        assertEquals(2, service.getTaskQueue().queue.size());
+
+        isCreateSessionInProgress.set(false);
+        service.getTaskQueue().executePending();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // Participants are removed only after they were added.
+        assertEquals("POST", server.takeRequest().getMethod());
+        assertEquals("DELETE", server.takeRequest().getMethod());
+    }
+
     @Test(expected = RuntimeException.class)
     public void removeParticipants_noSession_shouldFail() throws Exception {
         DataTestHelper.clearSessionData();
@@ -1113,6 +1331,124 @@ public class ServiceTest {
         assertEquals(0, service.getTaskQueue().queue.size());
     }
 
+    @Test
+    public void sendMessage_sessionCreateInProgress_orderedPerConversation() throws Exception {
+
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag").setBodyDelay(1, TimeUnit.SECONDS));
+        }
+
+        final CountDownLatch latch = new CountDownLatch(3);
+        isCreateSessionInProgress.set(true);
+        service.sendMessage("someId", MessageToSend.builder().build()).subscribe(response -> latch.countDown(), t -> fail());
+        service.sendMessage("someId", MessageToSend.builder().build()).subscribe(response -> latch.countDown(), t -> fail());
+        service.sendMessage("otherId", MessageToSend.builder().build()).subscribe(response -> latch.countDown(), t -> fail());
+        assertEquals(3, service.getTaskQueue().queue.size());
+
+        isCreateSessionInProgress.set(false);
+        service.getTaskQueue().executePending();
+
+        // Second message to the same conversation waits for the first one to finish.
+        assertEquals(1, service.getTaskQueue().queue.size());
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, service.getTaskQueue().queue.size());
+    }
+
+    @Test
+    public void sendMessage_outbox() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        service.setMessageOutbox(true);
+
+        Future<ComapiResult<MessageSentResponse>> first = service.sendMessage("someId", MessageToSend.builder().addPart(Part.builder().setData("first").build()).build()).toBlocking().toFuture();
+        Future<ComapiResult<MessageSentResponse>> second = service.sendMessage("someId", MessageToSend.builder().addPart(Part.builder().setData("second").build()).build()).toBlocking().toFuture();
+
+        // retried after the services were unavailable
+        assertTrue(first.get(10, TimeUnit.SECONDS).isSuccessful());
+        // rejected messages are not retried
+        assertEquals(400, second.get(10, TimeUnit.SECONDS).getCode());
+        assertEquals(3, server.getRequestCount());
+
+        String body = server.takeRequest().getBody().readUtf8();
+        assertTrue(body.contains("first") && body.contains(MessageOutbox.KEY_CLIENT_ID));
+        assertTrue(server.takeRequest().getBody().readUtf8().contains("first"));
+        assertTrue(server.takeRequest().getBody().readUtf8().contains("second"));
+        assertTrue(dataMgr.getOutboxDAO().getConversationIds().isEmpty());
+    }
+
+    @Test
+    public void sendMessage_outboxResume() throws Exception {
+
+        // process killed while sending
+        MessageOutbox outbox = new MessageOutbox((conversationId, message) -> Observable.never(), dataMgr::getOutboxDAO, Schedulers.immediate(), log);
+        MessageToSend message = MessageToSend.builder().addPart(Part.builder().setData("first").build()).build();
+        outbox.send("someId", message).subscribe();
+        outbox.send("someId", message).subscribe();
+        assertTrue(message.getMetadata() == null || !message.getMetadata().containsKey(MessageOutbox.KEY_CLIENT_ID));
+
+        // sent again after the restart
+        final Set<Object> clientIds = Collections.synchronizedSet(new HashSet<>());
+        final CountDownLatch latch = new CountDownLatch(2);
+        MessageOutbox restarted = new MessageOutbox((conversationId, m) -> {
+            clientIds.add(m.getMetadata().get(MessageOutbox.KEY_CLIENT_ID));
+            latch.countDown();
+            return Observable.just(new ComapiResult<>(null, true, null, 200, null, null));
+        }, dataMgr::getOutboxDAO, Schedulers.io(), log);
+        restarted.resume();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(2, clientIds.size());
+        for (int i = 0; i < 100 && dataMgr.getOutboxDAO().peek("someId") != null; i++) {
+            Thread.sleep(50);
+        }
+        assertNull(dataMgr.getOutboxDAO().peek("someId"));
+    }
+
+    @Test
+    public void sendMessage_outboxNetworkUnavailable() throws Exception {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        MessageOutbox outbox = new MessageOutbox((conversationId, message) -> {
+            latch.countDown();
+            return Observable.just(new ComapiResult<>(null, true, null, 200, null, null));
+        }, dataMgr::getOutboxDAO, Schedulers.io(), log);
+
+        // not sent while offline
+        outbox.onNetworkUnavailable();
+        Future<ComapiResult<MessageSentResponse>> result = outbox.send("someId", MessageToSend.builder().addPart(Part.builder().setData("first").build()).build()).toBlocking().toFuture();
+        assertFalse(latch.await(1, TimeUnit.SECONDS));
+        assertNotNull(dataMgr.getOutboxDAO().peek("someId"));
+
+        outbox.onNetworkActive();
+        assertTrue(result.get(10, TimeUnit.SECONDS).isSuccessful());
+        assertNull(dataMgr.getOutboxDAO().peek("someId"));
+    }
+
+    @Test
+    public void sendMessage_outboxSentEvent() throws Exception {
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        MessageOutbox outbox = new MessageOutbox((conversationId, message) -> {
+            attempts.incrementAndGet();
+            latch.countDown();
+            return Observable.error(new IOException("response lost"));
+        }, dataMgr::getOutboxDAO, Schedulers.io(), log);
+
+        Future<ComapiResult<MessageSentResponse>> result = outbox.send("someId", MessageToSend.builder().addPart(Part.builder().setData("first").build()).build()).toBlocking().toFuture();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // services accepted the message before the response was lost
+        String clientId = dataMgr.getOutboxDAO().peek("someId").getClientId();
+        outbox.onMessage(new Parser().parse("{\"name\":\"" + MessageSentEvent.TYPE + "\",\"payload\":{\"messageId\":\"messageId\",\"metadata\":{\"" + MessageOutbox.KEY_CLIENT_ID + "\":\"" + clientId + "\"},\"context\":{\"conversationId\":\"someId\"}}}", MessageSentEvent.class));
+
+        assertEquals("messageId", result.get(10, TimeUnit.SECONDS).getResult().getId());
+        assertNull(dataMgr.getOutboxDAO().peek("someId"));
+        assertEquals(1, attempts.get());
+    }
+
     @Test(expected = RuntimeException.class)
     public void sendMessage_noSession_shouldFail() throws Exception {
         DataTestHelper.clearSessionData();
@@ -1151,6 +1487,66 @@ public class ServiceTest {
         updateMessageStatus();
     }
 
+    @Test
+    public void updateMessageStatus_batching() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+
+        service.setMessageStatusBatching(TimeUnit.MINUTES.toMillis(1), 3);
+
+        List<Future<ComapiResult<Void>>> results = new ArrayList<>();
+        for (String id : new String[]{"id1", "id2"}) {
+            List<com.comapi.internal.network.model.messaging.MessageStatusUpdate> update = new ArrayList<>();
+            update.add(com.comapi.internal.network.model.messaging.MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId(id).build());
+            results.add(service.updateMessageStatus("someId", update).toBlocking().toFuture());
+        }
+        List<com.comapi.internal.network.model.messaging.MessageStatusUpdate> update = new ArrayList<>();
+        update.add(com.comapi.internal.network.model.messaging.MessageStatusUpdate.builder().setStatus(MessageStatus.delivered).addMessageId("id4").build());
+        results.add(service.updateMessageStatus("someId", update).toBlocking().toFuture());
+        assertEquals(0, server.getRequestCount());
+
+        // maximum batch size reached
+        update = new ArrayList<>();
+        update.add(com.comapi.internal.network.model.messaging.MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId("id2").addMessageId("id3").build());
+        results.add(service.updateMessageStatus("someId", update).toBlocking().toFuture());
+        assertTrue(results.get(0).get(10, TimeUnit.SECONDS).isSuccessful());
+        assertTrue(results.get(1).get(10, TimeUnit.SECONDS).isSuccessful());
+        assertEquals(1, server.getRequestCount());
+        String body = server.takeRequest().getBody().readUtf8();
+        assertTrue(body.contains("id1") && body.contains("id2") && body.contains("id3") && !body.contains("id4"));
+
+        // app backgrounded
+        service.createLifecycleListener().onBackgrounded(application);
+        assertTrue(results.get(2).get(10, TimeUnit.SECONDS).isSuccessful());
+        assertTrue(results.get(3).get(10, TimeUnit.SECONDS).isSuccessful());
+        assertEquals(2, server.getRequestCount());
+        body = server.takeRequest().getBody().readUtf8();
+        assertTrue(body.contains("id4") && body.contains(MessageStatus.delivered.name()));
+
+        // update larger than maximum batch size is split
+        update = new ArrayList<>();
+        update.add(com.comapi.internal.network.model.messaging.MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId("id5").addMessageId("id6").addMessageId("id7").addMessageId("id8").build());
+        Future<ComapiResult<Void>> split = service.updateMessageStatus("someId", update).toBlocking().toFuture();
+        body = server.takeRequest(10, TimeUnit.SECONDS).getBody().readUtf8();
+        assertTrue(body.contains("id5") && body.contains("id6") && body.contains("id7") && !body.contains("id8"));
+        assertEquals(3, server.getRequestCount());
+        service.flushMessageStatusUpdates();
+        assertTrue(split.get(10, TimeUnit.SECONDS).isSuccessful());
+        body = server.takeRequest().getBody().readUtf8();
+        assertTrue(body.contains("id8") && !body.contains("id7"));
+
+        // time window passed
+        service.setMessageStatusBatching(100, 3);
+        update = new ArrayList<>();
+        update.add(com.comapi.internal.network.model.messaging.MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId("id2").addMessageId("id3").build());
+        assertTrue(service.updateMessageStatus("someId", update).timeout(10, TimeUnit.SECONDS).toBlocking().first().isSuccessful());
+        assertEquals(5, server.getRequestCount());
+    }
+
     @Test
     public void queryEvents() throws Exception {
 
@@ -1393,6 +1789,34 @@ public class ServiceTest {
         });
     }
 
+    @Test
+    public void queryMessages_localStore() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_query.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("[]"));
+
+        ComapiResult<MessagesQueryResponse> response = service.queryMessages("someId", null, 100).toBlocking().first();
+        assertNotNull(response.getETag());
+        assertEquals(2, response.getResult().getMessages().size());
+
+        // Second query for the latest page should only ask for events newer than the stored ones.
+        response = service.queryMessages("someId", null, 100).toBlocking().first();
+        assertEquals(true, response.isSuccessful());
+        assertNull(response.getETag());
+        assertEquals(38, response.getResult().getLatestEventId());
+        assertEquals(2, response.getResult().getMessages().size());
+        assertEquals(MessageStatus.read, response.getResult().getMessages().get(0).getStatusUpdate().get("userB").getStatus());
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        assertTrue(server.takeRequest().getPath().contains("/events?from=39"));
+
+        // Older page is available locally.
+        response = service.queryMessages("someId", 37L, 1).toBlocking().first();
+        assertEquals(1, response.getResult().getMessages().size());
+        assertEquals(Long.valueOf(37), response.getResult().getMessages().get(0).getSentEventId());
+        assertEquals(2, server.getRequestCount());
+    }
+
     @Test
     public void queryMessages_sessionCreateInProgress() throws Exception {
         isCreateSessionInProgress.set(true);
@@ -1520,6 +1944,133 @@ public class ServiceTest {
         });
     }
 
+    @Test
+    public void uploadContent_stream() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200).addHeader("ETag", "eTag"));
+
+        final int size = 300 * 1024;
+        final List<long[]> progress = new ArrayList<>();
+
+        // unknown length
+        ComapiResult<UploadContentResponse> result = service.uploadContent("folder", ContentData.create(new ByteArrayInputStream(new byte[size]), "mime_type", "name"), (bytesWritten, contentLength) -> progress.add(new long[]{bytesWritten, contentLength})).toBlocking().first();
+        assertTrue(result.isSuccessful());
+        assertEquals(size, server.takeRequest().getBodySize());
+        assertTrue(progress.size() > 1);
+        assertEquals(size, progress.get(progress.size() - 1)[0]);
+        assertEquals(-1, progress.get(progress.size() - 1)[1]);
+
+        // known length
+        progress.clear();
+        result = service.uploadContent("folder", ContentData.create(new ByteArrayInputStream(new byte[size]), size, "mime_type", "name"), (bytesWritten, contentLength) -> progress.add(new long[]{bytesWritten, contentLength})).toBlocking().first();
+        assertTrue(result.isSuccessful());
+        assertEquals(size, server.takeRequest().getBodySize());
+        assertTrue(progress.size() > 1 && progress.size() <= 100);
+        assertEquals(size, progress.get(progress.size() - 1)[0]);
+        assertEquals(size, progress.get(progress.size() - 1)[1]);
+    }
+
+    @Test
+    public void uploadContent_chunked() throws Exception {
+
+        final int size = 250 * 1024;
+        final int chunkSize = 100 * 1024;
+        final List<long[]> progress = new ArrayList<>();
+        service.setChunkedUpload(chunkSize, chunkSize, 2);
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 201));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+
+        ComapiResult<UploadContentResponse> result = service.uploadContent("folder", ContentData.create(new byte[size], "mime_type", "name"), (bytesWritten, contentLength) -> progress.add(new long[]{bytesWritten, contentLength})).toBlocking().first();
+        assertTrue(result.isSuccessful());
+        assertEquals("id", result.getResult().getId());
+        assertEquals(size, progress.get(progress.size() - 1)[0]);
+        assertEquals(size, progress.get(progress.size() - 1)[1]);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/apispaces/" + API_SPACE_ID + "/content/uploads?folder=folder", request.getPath());
+
+        Set<String> ranges = new HashSet<>();
+        long uploaded = 0;
+        for (int i = 0; i < 3; i++) {
+            request = server.takeRequest();
+            assertEquals("PUT", request.getMethod());
+            ranges.add(request.getHeader("Content-Range"));
+            uploaded += request.getBodySize();
+        }
+        assertEquals(size, uploaded);
+        assertTrue(ranges.contains("bytes 0-102399/256000"));
+        assertTrue(ranges.contains("bytes 102400-204799/256000"));
+        assertTrue(ranges.contains("bytes 204800-255999/256000"));
+
+        request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/apispaces/" + API_SPACE_ID + "/content/uploads/uploadId/complete", request.getPath());
+
+        // below threshold
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+        result = service.uploadContent("folder", ContentData.create(new byte[chunkSize - 1], "mime_type", "name")).toBlocking().first();
+        assertTrue(result.isSuccessful());
+        assertEquals("/apispaces/" + API_SPACE_ID + "/content?folder=folder", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void uploadContent_chunkedResume() throws Exception {
+
+        final int size = 250 * 1024;
+        final int chunkSize = 100 * 1024;
+        final byte[] data = new byte[size];
+        data[0] = 1;
+        service.setChunkedUpload(0, chunkSize, 1);
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 201));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 200));
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        ComapiResult<UploadContentResponse> result = service.uploadContent("folder", ContentData.create(data, "mime_type", "name")).toBlocking().first();
+        assertFalse(result.isSuccessful());
+        assertEquals(500, result.getCode());
+        assertEquals("/apispaces/" + API_SPACE_ID + "/content/uploads?folder=folder", server.takeRequest().getPath());
+        assertEquals("bytes 0-102399/256000", server.takeRequest().getHeader("Content-Range"));
+        assertEquals("bytes 102400-204799/256000", server.takeRequest().getHeader("Content-Range"));
+
+        // resume from the offset confirmed by the services
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session_resume.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+
+        result = service.uploadContent("folder", ContentData.create(data, "mime_type", "name")).toBlocking().first();
+        assertTrue(result.isSuccessful());
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("GET", request.getMethod());
+        assertEquals("/apispaces/" + API_SPACE_ID + "/content/uploads/uploadId", request.getPath());
+        assertEquals("bytes 102400-204799/256000", server.takeRequest().getHeader("Content-Range"));
+        assertEquals("bytes 204800-255999/256000", server.takeRequest().getHeader("Content-Range"));
+        assertEquals("/apispaces/" + API_SPACE_ID + "/content/uploads/uploadId/complete", server.takeRequest().getPath());
+
+        // finished upload is not resumed
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 201));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        service.uploadContent("folder", ContentData.create(data, "mime_type", "name")).toBlocking().first();
+        assertEquals("POST", server.takeRequest().getMethod());
+        assertEquals("PUT", server.takeRequest().getMethod());
+
+        // upload that cannot be resumed is started again
+        server.enqueue(new MockResponse().setResponseCode(410));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_session.json", 201));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        service.uploadContent("folder", ContentData.create(data, "mime_type", "name")).toBlocking().first();
+        assertEquals("GET", server.takeRequest().getMethod());
+        assertEquals("POST", server.takeRequest().getMethod());
+    }
+
     @Test
     public void uploadContent_sessionCreateInProgress() throws Exception {
         isCreateSessionInProgress.set(true);
@@ -1540,6 +2091,7 @@ public class ServiceTest {
     public void tearDown() throws Exception {
         DataTestHelper.clearDeviceData();
         DataTestHelper.clearSessionData();
+        dataMgr.getUploadDAO().removeAll();
         server.shutdown();
         pushMgr.unregisterPushReceiver(RuntimeEnvironment.application);
     }
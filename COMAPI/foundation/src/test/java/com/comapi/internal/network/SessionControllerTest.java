@@ -33,6 +33,7 @@ import com.comapi.helpers.ResponseTestHelper;
 import com.comapi.internal.ComapiException;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.data.SessionData;
+import com.comapi.internal.lifecycle.LifecycleListener;
 import com.comapi.internal.log.LogLevel;
 import com.comapi.internal.log.LogManager;
 import com.comapi.internal.log.Logger;
@@ -46,18 +47,23 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import rx.Observable;
+import rx.subjects.PublishSubject;
 
 import static com.comapi.helpers.DataTestHelper.API_SPACE_ID;
 import static junit.framework.Assert.assertEquals;
@@ -234,14 +240,42 @@ public class SessionControllerTest {
         reAuthShouldFail = false;
         session = null;
         sessionController.scheduleNextAuthentication(0);
+        // renewals are at least a minute apart
+        Robolectric.getForegroundThreadScheduler().advanceBy(1, TimeUnit.MINUTES);
         assertNotNull(session);
 
         reAuthShouldFail = true;
         session = null;
         sessionController.scheduleNextAuthentication(0);
+        // renewals are at least a minute apart
+        Robolectric.getForegroundThreadScheduler().advanceBy(1, TimeUnit.MINUTES);
         assertNull(session);
     }
 
+    @Test
+    public void reAuthenticate_deferredInBackground() throws Throwable {
+
+        SessionController sessionController = new SessionController(new SessionCreateManager(new AtomicBoolean()), pushMgr, new AtomicInteger(), dataMgr, authenticator, restApi, "", new Handler(Looper.getMainLooper()), new Logger(new LogManager(), ""), null, false, new StateListener() {
+        }, 0.5f) {
+            @Override
+            protected Observable<SessionData> reAuthenticate() {
+                return Observable.just(new SessionData().setAccessToken(UUID.randomUUID().toString()).setExpiresOn(Long.MAX_VALUE).setProfileId("id").setSessionId("id")).doOnNext(session1 -> SessionControllerTest.this.session = session1);
+            }
+        };
+
+        LifecycleListener lifecycleListener = sessionController.createLifecycleListener();
+        lifecycleListener.onBackgrounded(application);
+
+        session = null;
+        sessionController.scheduleNextAuthentication(0);
+        // renewals are at least a minute apart
+        Robolectric.getForegroundThreadScheduler().advanceBy(1, TimeUnit.MINUTES);
+        assertNull(session);
+
+        lifecycleListener.onForegrounded(application);
+        assertNotNull(session);
+    }
+
     @Test(expected = RuntimeException.class)
     public void reAuthenticate_sessionNotStarted() throws Throwable {
         isSessionCreating.set(false);
@@ -249,6 +283,39 @@ public class SessionControllerTest {
         assertNull(sessionController.reAuthenticate().toBlocking().first());
     }
 
+    @Test
+    public void reAuthenticate_singleFlight() {
+
+        AtomicInteger calls = new AtomicInteger();
+        PublishSubject<SessionData> pending = PublishSubject.create();
+        TokenRefresher refresher = new TokenRefresher(() -> {
+            calls.incrementAndGet();
+            return pending;
+        }, TokenRefresher.DEFAULT_REUSE_WINDOW);
+
+        List<SessionData> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            refresher.refresh("oldToken").subscribe(results::add);
+        }
+        assertEquals(1, calls.get());
+
+        pending.onNext(new SessionData().setAccessToken("newToken").setSessionId("id").setProfileId("id").setExpiresOn(Long.MAX_VALUE));
+        pending.onCompleted();
+
+        assertEquals(10, results.size());
+        for (SessionData session : results) {
+            assertEquals("newToken", session.getAccessToken());
+        }
+
+        // Request sent with the old token should reuse recently obtained session
+        assertEquals("newToken", refresher.refresh("oldToken").toBlocking().first().getAccessToken());
+        assertEquals(1, calls.get());
+
+        // New token rejected as well
+        refresher.refresh("newToken").subscribe();
+        assertEquals(2, calls.get());
+    }
+
     @Test(expected = RuntimeException.class)
     public void startSession_nullProfileId() {
         sessionController.startSession().toBlocking().first();
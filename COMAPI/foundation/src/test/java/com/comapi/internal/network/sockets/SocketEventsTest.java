@@ -21,6 +21,7 @@
 package com.comapi.internal.network.sockets;
 
 import android.os.Build;
+import android.os.Looper;
 
 import com.comapi.BuildConfig;
 import com.comapi.MessagingListener;
@@ -35,6 +36,7 @@ import com.comapi.internal.ListenerListAdapter;
 import com.comapi.internal.Parser;
 import com.comapi.internal.log.LogManager;
 import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.events.Event;
 import com.comapi.internal.network.model.events.ProfileUpdateEvent;
 import com.comapi.internal.network.model.events.SocketStartEvent;
 import com.comapi.internal.network.model.events.conversation.ConversationCreateEvent;
@@ -58,11 +60,17 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 
 /**
  * Robolectric tests for parsing and dispatching events.
@@ -188,6 +196,11 @@ public class SocketEventsTest {
             public void onParticipantTypingOff(ParticipantTypingOffEvent event) {
                 throw new RuntimeException();
             }
+
+            @Override
+            public void onMessageStatusBatch(String conversationId, List<MessageDeliveredEvent> delivered, List<MessageReadEvent> read) {
+                throw new RuntimeException();
+            }
         };
 
         profileListener = new IProfileListener() {
@@ -426,6 +439,82 @@ public class SocketEventsTest {
         assertEquals("\"33-EFUJLArhd3ar+j1D4/TR3JfNcvE\"", receiver.profileUpdate.getETag());
     }
 
+    @Test
+    public void dispatchOnExecutor() throws Exception {
+
+        final List<Thread> threads = new ArrayList<>();
+        final ExecutorService executor = SocketEventDispatcher.createDefaultExecutor();
+        dispatcher = new SocketEventDispatcher(receiver, new Parser(), runnable -> executor.execute(() -> {
+            threads.add(Thread.currentThread());
+            runnable.run();
+        }));
+
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "message_sent.json"));
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "profile_update.json"));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertNotNull(receiver.sent);
+        assertNotNull(receiver.profileUpdate);
+        assertEquals(2, threads.size());
+        assertEquals(threads.get(0), threads.get(1));
+        assertNotSame(Looper.getMainLooper().getThread(), threads.get(0));
+    }
+
+    @Test
+    public void dispatchRegisteredEventType() throws IOException {
+
+        final List<Event> events = new ArrayList<>();
+        dispatcher.registerEventType("custom.event", Event.class, events::add);
+        dispatcher.onMessage("{\"eventId\":\"id\",\"payload\":{\"name\":\"nested\",\"list\":[1,2]},\"name\":\"custom.event\"}");
+        dispatcher.onMessage("{\"eventId\":\"id2\",\"name\":\"unknown.event\"}");
+        dispatcher.onMessage("{\"eventId\":");
+        dispatcher.onMessage("[]");
+
+        assertEquals(1, events.size());
+        assertEquals("id", events.get(0).getEventId());
+        assertEquals("custom.event", events.get(0).getName());
+    }
+
+    @Test
+    public void dispatchCoalesced() throws IOException {
+
+        SocketEventCoalescer coalescer = new SocketEventCoalescer(receiver, Runnable::run, 60000);
+        dispatcher = new SocketEventDispatcher(coalescer, new Parser(), Runnable::run);
+
+        String isTyping = ResponseTestHelper.readFromFile(this, "is_typing.json");
+        String typingOff = ResponseTestHelper.readFromFile(this, "typing_off.json");
+        String read = ResponseTestHelper.readFromFile(this, "message_read.json");
+        String delivered = ResponseTestHelper.readFromFile(this, "message_delivered.json");
+        String deliveredAndRead = delivered.replace("6af9bae5-6137-41db-9d18-b00ce67e0d2e", "4604ca02-fd90-421b-8945-c6c622d8687f").replace("\"profileId\": \"id\"", "\"profileId\": \"uAA\"");
+
+        dispatcher.onMessage(isTyping);
+        dispatcher.onMessage(typingOff);
+        dispatcher.onMessage(isTyping);
+        dispatcher.onMessage(delivered);
+        dispatcher.onMessage(deliveredAndRead);
+        dispatcher.onMessage(read);
+        dispatcher.onMessage(delivered);
+        dispatcher.onMessage(deliveredAndRead);
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "message_sent.json"));
+
+        // Not coalesced events are passed immediately.
+        assertNotNull(receiver.sent);
+        assertNull(receiver.isTyping);
+        assertNull(receiver.isNotTyping);
+        assertEquals(0, receiver.statusBatches);
+
+        coalescer.flush();
+
+        assertNotNull(receiver.isTyping);
+        assertNull(receiver.isNotTyping);
+        assertEquals(1, receiver.statusBatches);
+        assertEquals(1, receiver.batchDelivered.size());
+        assertEquals("6af9bae5-6137-41db-9d18-b00ce67e0d2e", receiver.batchDelivered.get(0).getMessageId());
+        assertEquals(1, receiver.batchRead.size());
+        assertEquals("4604ca02-fd90-421b-8945-c6c622d8687f", receiver.batchRead.get(0).getMessageId());
+    }
+
     @Test
     public void dispatchSessionStart() throws IOException {
         receiver.onSessionStart(new Session(null));
@@ -469,6 +558,12 @@ public class SocketEventsTest {
 
         ParticipantTypingOffEvent isNotTyping;
 
+        int statusBatches;
+
+        List<MessageDeliveredEvent> batchDelivered;
+
+        List<MessageReadEvent> batchRead;
+
         /**
          * Recomended constructor.
          */
@@ -559,5 +654,13 @@ public class SocketEventsTest {
             super.onParticipantTypingOff(event);
             isNotTyping = event;
         }
+
+        @Override
+        public void onMessageStatusBatch(String conversationId, List<MessageDeliveredEvent> delivered, List<MessageReadEvent> read) {
+            super.onMessageStatusBatch(conversationId, delivered, read);
+            statusBatches++;
+            batchDelivered = delivered;
+            batchRead = read;
+        }
     }
 }
\ No newline at end of file
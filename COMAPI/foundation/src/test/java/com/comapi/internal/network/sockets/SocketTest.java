@@ -51,6 +51,8 @@ import org.robolectric.android.controller.ActivityController;
 import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.comapi.helpers.DataTestHelper.API_SPACE_ID;
 import static junit.framework.Assert.assertFalse;
@@ -179,6 +181,42 @@ public class SocketTest {
         assertTrue(socketController.isAllowedToConnect());
     }
 
+    @Test
+    public void testBackgroundLinger() {
+
+        final AtomicBoolean hasPendingWork = new AtomicBoolean();
+        socketController.setBackgroundLinger(2000, 3000, hasPendingWork::get);
+        LifecycleListener lifecycleListener = socketController.createLifecycleListener();
+
+        lifecycleListener.onBackgrounded(application);
+        assertTrue(socketController.isLingering());
+        assertFalse(socketController.isAllowedToConnect());
+
+        hasPendingWork.set(true);
+        Robolectric.getForegroundThreadScheduler().advanceBy(2500, TimeUnit.MILLISECONDS);
+        assertTrue(socketController.isLingering());
+
+        hasPendingWork.set(false);
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000, TimeUnit.MILLISECONDS);
+        assertFalse(socketController.isLingering());
+
+        lifecycleListener.onForegrounded(application);
+        assertTrue(socketController.isAllowedToConnect());
+
+        lifecycleListener.onBackgrounded(application);
+        assertTrue(socketController.isLingering());
+        lifecycleListener.onForegrounded(application);
+        assertFalse(socketController.isLingering());
+
+        // connection requested while lingering is made when the app comes to foreground
+        lifecycleListener.onBackgrounded(application);
+        assertFalse(socketController.isConnectPending());
+        socketController.connectSocket();
+        assertTrue(socketController.isConnectPending());
+        lifecycleListener.onForegrounded(application);
+        assertFalse(socketController.isConnectPending());
+    }
+
     @Test
     public void messageReceived() throws Exception {
         socketConnectionController.connect();
@@ -197,6 +235,18 @@ public class SocketTest {
         assertEquals(true, isNetworkActive);
     }
 
+    @Test
+    public void networkChanged() throws Exception {
+        socketConnectionController.onNetworkChanged(true, false);
+        assertNull(testSocketFactory.webSocketAdapter);
+        socketConnectionController.setManageReconnection(true);
+        socketConnectionController.onNetworkChanged(false, false);
+        assertNull(testSocketFactory.webSocketAdapter);
+        socketConnectionController.onNetworkChanged(true, true);
+        assertNotNull(testSocketFactory.webSocketAdapter);
+        socketConnectionController.setManageReconnection(false);
+    }
+
     @Test
     public void testConnectionCallbacks() throws Exception {
         socketConnectionController.connect();
@@ -208,6 +258,34 @@ public class SocketTest {
         assertEquals(ERROR, state);
     }
 
+    @Test
+    public void testSocketReplacedAfterConnected() throws Exception {
+        socketConnectionController.setManageReconnection(true);
+        socketConnectionController.connect();
+        WebSocketAdapter first = testSocketFactory.webSocketAdapter;
+        first.onConnected(null, null);
+        assertEquals(CONNECTED, state);
+        testSocketFactory.isOpen = true;
+
+        // open socket is kept until the new one is connected
+        socketConnectionController.connect();
+        WebSocketAdapter second = testSocketFactory.webSocketAdapter;
+        assertEquals(0, testSocketFactory.disconnected);
+
+        // replaced socket does not report state changes
+        state = "unknown";
+        first.onDisconnected(null, null, null, false);
+        assertEquals("unknown", state);
+        second.onConnected(null, null);
+        assertEquals("unknown", state);
+        assertEquals(1, testSocketFactory.disconnected);
+
+        second.onDisconnected(null, null, null, false);
+        assertEquals(DISCONNECTED, state);
+        socketConnectionController.setManageReconnection(false);
+        handler.removeCallbacksAndMessages(null);
+    }
+
     @Test
     public void testSocketReconnect() {
         retryStrategy = new RetryStrategy(0, 0);
@@ -219,6 +297,74 @@ public class SocketTest {
         retryStrategy = new RetryStrategy(1, 0);
     }
 
+    @Test
+    public void testRetryStrategies() {
+
+        RetryStrategy linear = RetryStrategy.linear(2, 1500);
+        assertTrue(linear.retry());
+        assertEquals(1000, linear.getDelay());
+        assertTrue(linear.retry());
+        assertEquals(1500, linear.getDelay());
+        assertFalse(linear.retry());
+
+        RetryStrategy exponential = RetryStrategy.exponential(100, 1000, RetryStrategy.UNLIMITED_RETRIES);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(exponential.retry());
+            long delay = exponential.getDelay();
+            assertTrue(delay >= 100 && delay <= 1000);
+        }
+        exponential.reset();
+        assertTrue(exponential.getDelay() <= 300);
+    }
+
+    @Test
+    public void testKeepAlive() throws InterruptedException {
+
+        KeepAliveStrategy keepAlive = new KeepAliveStrategy(new Logger(new LogManager(), ""), 50);
+        Object socket = new Object();
+
+        long interval = keepAlive.getInterval();
+        for (int i = 0; i < KeepAliveStrategy.PROBE_PONGS; i++) {
+            keepAlive.onPingSent(socket, () -> {
+            });
+            keepAlive.onPong(socket);
+        }
+        assertEquals(interval + KeepAliveStrategy.STEP, keepAlive.getInterval());
+
+        final AtomicBoolean isDead = new AtomicBoolean();
+        keepAlive.onPingSent(socket, () -> isDead.set(true));
+        Thread.sleep(500);
+        assertTrue(isDead.get());
+        assertEquals(1, keepAlive.getDeadConnections());
+        assertEquals(interval, keepAlive.getInterval());
+
+        // Interval learned for this network type should not grow anymore
+        for (int i = 0; i < KeepAliveStrategy.PROBE_PONGS; i++) {
+            keepAlive.onPong(socket);
+        }
+        assertEquals(interval, keepAlive.getInterval());
+
+        // Probing resumes after a run of pongs
+        for (int i = KeepAliveStrategy.PROBE_PONGS; i < KeepAliveStrategy.RELEARN_PONGS + KeepAliveStrategy.PROBE_PONGS; i++) {
+            keepAlive.onPong(socket);
+        }
+        assertEquals(interval + KeepAliveStrategy.STEP, keepAlive.getInterval());
+
+        // and after the network change
+        keepAlive.onPingSent(socket, () -> {
+        });
+        Thread.sleep(500);
+        assertEquals(interval, keepAlive.getInterval());
+        keepAlive.onNetworkChanged(true);
+        for (int i = 0; i < KeepAliveStrategy.PROBE_PONGS; i++) {
+            keepAlive.onPong(socket);
+        }
+        assertEquals(interval + KeepAliveStrategy.STEP, keepAlive.getInterval());
+
+        keepAlive.setMetered(false);
+        assertTrue(keepAlive.getInterval() > interval);
+    }
+
     @Test
     public void testCreateSocket() {
         try {
@@ -258,10 +404,46 @@ public class SocketTest {
 
         private WebSocketAdapter webSocketAdapter;
 
+        /**
+         * True if created sockets should report being open.
+         */
+        private boolean isOpen;
+
+        private int disconnected;
+
         TestSocketFactory(@NonNull URI uri, @NonNull SocketMessageListener messageListener, @NonNull Logger log) {
             super(uri, messageListener, log);
         }
 
+        @Override
+        SocketInterface createSocket(@NonNull final String token, @NonNull final WeakReference<SocketStateListener> stateListenerWeakReference) {
+            final SocketInterface socket = super.createSocket(token, stateListenerWeakReference);
+            if (socket == null) {
+                return null;
+            }
+            return new SocketInterface() {
+
+                private boolean isClosed;
+
+                @Override
+                public void connect() {
+                    // socket state is driven by the tests through the adapter
+                }
+
+                @Override
+                public void disconnect() {
+                    isClosed = true;
+                    disconnected++;
+                    socket.disconnect();
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return isOpen && !isClosed;
+                }
+            };
+        }
+
         @Override
         protected WebSocketAdapter createWebSocketAdapter(@NonNull final WeakReference<SocketStateListener> stateListenerWeakReference) {
             webSocketAdapter = super.createWebSocketAdapter(stateListenerWeakReference);